@@ -0,0 +1,239 @@
+package com.greenfarm3.assets;
+
+import com.greenfarm3.logging.Logger;
+import javafx.scene.image.Image;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Development hot reload: watches an assets directory and re-decodes a
+ * resource when its file changes, without restarting or preloading again.
+ *
+ * Opt-in with -Dgreenfarm3.assets.dir=path/to/resources. The directory
+ * mirrors the resource root (images/5 replaces /images/5) and is read before
+ * the jar. A change invalidates only that resource (AssetManager.invalidate);
+ * if it was loaded, it is decoded again on a worker thread and the result is
+ * handed to the game loop, which swaps it into live sprites between frames
+ * (applyReloads).
+ */
+public class AssetHotReloader implements AutoCloseable {
+    
+    /** System property naming the directory to watch */
+    public static final String DIRECTORY_PROPERTY = "greenfarm3.assets.dir";
+    
+    private static final Logger LOG = Logger.get(AssetHotReloader.class);
+    
+    // Editors often save in several writes; wait for the directory to go quiet
+    private static final long SETTLE_MILLIS = 100;
+    
+    private final AssetManager assetManager;
+    private final Path root;
+    private final WatchService watcher;
+    private final ExecutorService decoder;
+    private final Queue<Reload> completed; // Decoded, waiting for the next frame
+    private final Thread watchThread;
+    private volatile boolean running;
+    
+    /**
+     * Receives reloaded images on the game loop thread
+     */
+    public interface Listener {
+        /**
+         * @param path Resource path that changed
+         * @param previous Image that live sprites may still show
+         * @param reloaded Newly decoded image
+         */
+        void imageReloaded(String path, Image previous, Image reloaded);
+    }
+    
+    private static class Reload {
+        final String path;
+        final Image previous;
+        final Image reloaded;
+        
+        Reload(String path, Image previous, Image reloaded) {
+            this.path = path;
+            this.previous = previous;
+            this.reloaded = reloaded;
+        }
+    }
+    
+    private AssetHotReloader(AssetManager assetManager, Path root, WatchService watcher) {
+        this.assetManager = assetManager;
+        this.root = root;
+        this.watcher = watcher;
+        this.decoder = Executors.newSingleThreadExecutor(new AssetPreloader.WorkerThreadFactory("asset-reload-"));
+        this.completed = new ConcurrentLinkedQueue<>();
+        this.watchThread = new Thread(this::watch, "asset-watcher");
+        this.watchThread.setDaemon(true);
+    }
+    
+    /**
+     * Start watching the directory named by the greenfarm3.assets.dir property
+     * @param assetManager AssetManager to reload into
+     * @return Running reloader, or null if the property is not set or the directory cannot be watched
+     */
+    public static AssetHotReloader startFromProperty(AssetManager assetManager) {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        try {
+            return start(assetManager, Paths.get(directory));
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Hot reload disabled, cannot watch {} - {}", directory, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Serve resources from a directory and reload them when they change
+     * @param assetManager AssetManager to reload into
+     * @param directory Directory mirroring the resource root
+     * @return Running reloader
+     * @throws IOException If the directory does not exist or cannot be watched
+     */
+    public static AssetHotReloader start(AssetManager assetManager, Path directory) throws IOException {
+        Path root = directory.toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Not a directory: " + root);
+        }
+        
+        AssetHotReloader reloader = new AssetHotReloader(assetManager, root, FileSystems.getDefault().newWatchService());
+        reloader.registerTree(root);
+        assetManager.setOverrideDirectory(root);
+        reloader.running = true;
+        reloader.watchThread.start();
+        LOG.info("Hot reload watching {}", root);
+        return reloader;
+    }
+    
+    private void registerTree(Path directory) throws IOException {
+        try (Stream<Path> tree = Files.walk(directory)) {
+            for (Path dir : (Iterable<Path>) tree.filter(Files::isDirectory)::iterator) {
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+    
+    /**
+     * Watch thread: collect changed files until the directory is quiet, then reload each once
+     */
+    private void watch() {
+        Set<String> changed = new LinkedHashSet<>();
+        try {
+            while (running) {
+                WatchKey key = watcher.take();
+                while (key != null) {
+                    collect(key, changed);
+                    key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                for (String path : changed) {
+                    decoder.execute(() -> reload(path));
+                }
+                changed.clear();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException | RejectedExecutionException e) {
+            // Closed
+        }
+    }
+    
+    private void collect(WatchKey key, Set<String> changed) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                LOG.warn("Hot reload missed events in {}", dir);
+                continue;
+            }
+            
+            Path file = dir.resolve((Path) event.context());
+            if (Files.isDirectory(file)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    try {
+                        registerTree(file);
+                    } catch (IOException e) {
+                        LOG.warn("Cannot watch {} - {}", file, e.getMessage());
+                    }
+                }
+                continue;
+            }
+            changed.add("/" + root.relativize(file).toString().replace(File.separatorChar, '/'));
+        }
+        key.reset();
+    }
+    
+    /**
+     * Worker: drop the changed resource and decode it again if anything was showing it
+     */
+    private void reload(String path) {
+        Image previous = assetManager.invalidate(path);
+        if (previous == null) {
+            LOG.debug("Changed: {} (not loaded, nothing to swap)", path);
+            return;
+        }
+        
+        AssetId id = AssetId.fromPath(path);
+        Image reloaded = id != null ? assetManager.loadImage(id) : assetManager.loadImage(path);
+        if (reloaded == null) {
+            LOG.warn("Reload failed, keeping previous image: {}", path);
+            return;
+        }
+        completed.add(new Reload(path, previous, reloaded));
+        LOG.info("Reloaded {} ({}x{})", path, (long) reloaded.getWidth(), (long) reloaded.getHeight());
+    }
+    
+    /**
+     * Hand decoded reloads to the game. Call from the game loop between frames,
+     * so a sprite never changes image halfway through drawing a frame.
+     * @param listener Swaps each reloaded image into live sprites
+     * @return Number of reloads applied
+     */
+    public int applyReloads(Listener listener) {
+        int applied = 0;
+        Reload reload;
+        while ((reload = completed.poll()) != null) {
+            listener.imageReloaded(reload.path, reload.previous, reload.reloaded);
+            applied++;
+        }
+        return applied;
+    }
+    
+    public Path getDirectory() {
+        return root;
+    }
+    
+    /**
+     * Stop watching and serve resources from the jar again
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            LOG.warn("Error closing watch service - {}", e.getMessage());
+        }
+        decoder.shutdownNow();
+        assetManager.setOverrideDirectory(null);
+    }
+}
@@ -0,0 +1,98 @@
+package com.greenfarm3.assets;
+
+/**
+ * Canonical key for a numbered resource (/images/0, /images/1, ...).
+ * Ids in [0, MAX_CANONICAL) are interned, so looking one up allocates nothing
+ * and its number can index arrays directly instead of building string keys.
+ */
+public final class AssetId {
+    
+    /** Numbered resources below this get a shared instance and an array slot */
+    public static final int MAX_CANONICAL = 1024;
+    
+    private static final String NUMBERED_PREFIX = "/images/";
+    private static final AssetId[] CANONICAL = new AssetId[MAX_CANONICAL];
+    
+    static {
+        for (int i = 0; i < MAX_CANONICAL; i++) {
+            CANONICAL[i] = new AssetId(i);
+        }
+    }
+    
+    private final int number;
+    private final String path;
+    
+    private AssetId(int number) {
+        this.number = number;
+        this.path = NUMBERED_PREFIX + number;
+    }
+    
+    /**
+     * Get the id for a numbered resource
+     * @param number The number of the asset file
+     * @return Shared instance for canonical numbers, a new one otherwise
+     */
+    public static AssetId of(int number) {
+        if (isCanonical(number)) {
+            return CANONICAL[number];
+        }
+        return new AssetId(number);
+    }
+    
+    /**
+     * Get the id of a numbered resource path
+     * @param path Path such as "/images/5"
+     * @return Id, or null if the path is not a numbered resource
+     */
+    public static AssetId fromPath(String path) {
+        if (path == null || !path.startsWith(NUMBERED_PREFIX) || path.length() == NUMBERED_PREFIX.length() ||
+            path.length() > NUMBERED_PREFIX.length() + 9) {
+            return null;
+        }
+        int number = 0;
+        for (int i = NUMBERED_PREFIX.length(); i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return of(number);
+    }
+    
+    /**
+     * Check if a number has a shared instance and array slot
+     * @param number The number of the asset file
+     * @return true if 0 <= number < MAX_CANONICAL
+     */
+    public static boolean isCanonical(int number) {
+        return number >= 0 && number < MAX_CANONICAL;
+    }
+    
+    public int getNumber() {
+        return number;
+    }
+    
+    /**
+     * Get the resource path
+     * @return Path such as "/images/5"
+     */
+    public String getPath() {
+        return path;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof AssetId && ((AssetId) o).number == number);
+    }
+    
+    @Override
+    public int hashCode() {
+        return number;
+    }
+    
+    @Override
+    public String toString() {
+        return path;
+    }
+}
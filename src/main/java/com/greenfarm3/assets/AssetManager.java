@@ -1,17 +1,21 @@
 package com.greenfarm3.assets;
 
+import com.greenfarm3.logging.LogLevel;
+import com.greenfarm3.logging.Logger;
 import javafx.scene.image.Image;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import javax.imageio.ImageIO;
 
 /**
@@ -20,21 +24,82 @@ import javax.imageio.ImageIO;
  */
 public class AssetManager {
     
-    private static AssetManager instance;
-    private final Map<String, Image> images;
+    private final ImageCache images; // Decoded images (hot) and encoded file contents (warm), byte-budgeted
     private final Set<String> skippedFiles; // Track files we've already logged as skipped
-    private boolean debugMode = true;
+    private final Map<String, CompletableFuture<Image>> inFlight; // Loads running right now, by resource path
+    private final AssetMetrics metrics; // Per-strategy counters and latencies, also published over JMX
+    private final AssetPack assetPack; // Pre-decoded numbered resources baked at build time
+    private final FormatIndex formatIndex; // Remembers which decoder worked for each numbered file
+    private final Map<AssetId, SpriteBank> spriteBanks; // Every section of multi-section files, decoded lazily
+    private final Set<AssetId> notSpriteBanks; // Resources known to be missing or not pack files
+    private final Map<String, EmbeddedImageIndex> embeddedImages; // Images found inside each file, scanned once
+    private final FrameHandoff frameHandoff; // Background decode results waiting for the game loop
+    private volatile Path overrideDirectory; // Development: files here replace jar resources (see AssetHotReloader)
+    private static final Logger LOG = Logger.get(AssetManager.class);
+    
+    // Numbered files 0-19 are preloaded; the multi-hundred-KB ones are queued first
+    private static final int COMMON_ASSET_COUNT = 20;
+    private static final int[] COMMON_ASSETS_BY_SIZE = {5, 7, 11, 3};
     
     private AssetManager() {
-        this.images = new HashMap<>();
-        this.skippedFiles = new HashSet<>();
+        // Thread-safe collections: AssetPreloader workers decode and cache in parallel
+        this.images = new ImageCache();
+        this.metrics = new AssetMetrics(images);
+        this.metrics.register();
+        this.skippedFiles = ConcurrentHashMap.newKeySet();
+        this.inFlight = new ConcurrentHashMap<>();
+        this.spriteBanks = new ConcurrentHashMap<>();
+        this.notSpriteBanks = ConcurrentHashMap.newKeySet();
+        this.embeddedImages = new ConcurrentHashMap<>();
+        this.frameHandoff = new FrameHandoff();
+        this.assetPack = AssetPack.openDefault();
+        if (assetPack.isAvailable()) {
+            LOG.info("Asset pack mapped ({} entries)", assetPack.size());
+        } else {
+            LOG.info("Asset pack not available, probing formats at runtime");
+        }
+        this.formatIndex = new FormatIndex();
+        this.formatIndex.load();
+    }
+    
+    /**
+     * Lazily created on first use; the class loader guarantees exactly one instance
+     */
+    private static class Holder {
+        static final AssetManager INSTANCE = new AssetManager();
     }
     
     public static AssetManager getInstance() {
-        if (instance == null) {
-            instance = new AssetManager();
+        return Holder.INSTANCE;
+    }
+    
+    /**
+     * Run a load at most once at a time per key. The first caller decodes;
+     * callers arriving while it runs wait for its result instead of decoding again.
+     * 
+     * @param key Resource path identifying the load
+     * @param loader Performs the load (checks the cache again, then decodes)
+     * @return Loaded Image, or null if failed
+     */
+    private Image loadOnce(String key, Supplier<Image> loader) {
+        CompletableFuture<Image> own = new CompletableFuture<>();
+        CompletableFuture<Image> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            metrics.recordCoalesced();
+            LOG.debug("Waiting for load already in progress: {}", key);
+            return running.join();
+        }
+        
+        try {
+            Image image = loader.get();
+            own.complete(image);
+            return image;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
         }
-        return instance;
     }
     
     /**
@@ -43,52 +108,59 @@ public class AssetManager {
      * @return Loaded Image, or null if failed
      */
     public Image loadImage(String path) {
-        if (images.containsKey(path)) {
-            if (debugMode) {
-                System.out.println("[AssetManager] Using cached image: " + path);
-            }
-            return images.get(path);
+        Image cachedImage = images.get(path);
+        if (cachedImage != null) {
+            LOG.debug("Using cached image: {}", path);
+            return cachedImage;
         }
         
-        try {
-            InputStream is = getClass().getResourceAsStream(path);
+        return loadOnce(path, () -> {
+            // Another caller may have finished loading between the cache check and loadOnce
+            Image loaded = images.peek(path);
+            return loaded != null ? loaded : decodeImage(path);
+        });
+    }
+    
+    /**
+     * Decode an image from resources and cache it (no cache check, no single-flight)
+     */
+    private Image decodeImage(String path) {
+        try (InputStream is = openResource(path)) {
             if (is == null) {
-                if (debugMode) {
-                    System.out.println("[AssetManager] Image not found: " + path);
-                }
+                LOG.debug("Image not found: {}", path);
                 return null;
             }
             
             // If path has no extension, try to detect format
             if (!path.contains(".") || path.endsWith("/")) {
-                return loadImageFromStream(is, path);
+                Image detected = loadImageFromStream(is, path);
+                if (detected != null) {
+                    images.put(path, detected);
+                }
+                return detected;
             }
             
             // Load with known extension
+            long start = System.nanoTime();
             Image image = new Image(is);
             if (image.isError()) {
-                if (debugMode) {
-                    System.err.println("[AssetManager] Failed to load image: " + path + " - Image error");
-                }
+                metrics.recordDecode(AssetMetrics.STRATEGY_FILE, start, null);
+                LOG.debug("Failed to load image: {} - Image error", path);
                 return null;
             }
             
             // Validate image
             if (!validateImage(image, path)) {
+                metrics.recordDecode(AssetMetrics.STRATEGY_FILE, start, null);
                 return null;
             }
+            metrics.recordDecode(AssetMetrics.STRATEGY_FILE, start, image);
             
             images.put(path, image);
-            if (debugMode) {
-                System.out.println("[AssetManager] Loaded image: " + path + 
-                    " (" + (int)image.getWidth() + "x" + (int)image.getHeight() + ")");
-            }
+            LOG.debug("Loaded image: {} ({}x{})", path, (int) image.getWidth(), (int) image.getHeight());
             return image;
         } catch (Exception e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] Exception loading image: " + path + " - " + e.getMessage());
-                e.printStackTrace();
-            }
+            LOG.warn("Exception loading image: {}", path, e);
             return null;
         }
     }
@@ -107,18 +179,14 @@ public class AssetManager {
             BufferedImage bufferedImage = ImageIO.read(is);
             
             if (bufferedImage == null) {
-                if (debugMode) {
-                    System.out.println("[AssetManager] ImageIO could not read image: " + path);
-                }
+                LOG.debug("ImageIO could not read image: {}", path);
                 return null;
             }
             
             // Validate BufferedImage
             if (!ImageConverter.isValidBufferedImage(bufferedImage)) {
-                if (debugMode) {
-                    System.err.println("[AssetManager] Invalid BufferedImage: " + path + 
-                        " (width: " + bufferedImage.getWidth() + ", height: " + bufferedImage.getHeight() + ")");
-                }
+                LOG.debug("Invalid BufferedImage: {} (width: {}, height: {})", 
+                    path, bufferedImage.getWidth(), bufferedImage.getHeight());
                 return null;
             }
             
@@ -126,9 +194,7 @@ public class AssetManager {
             Image javafxImage = ImageConverter.bufferedImageToJavaFX(bufferedImage);
             
             if (javafxImage == null || javafxImage.isError()) {
-                if (debugMode) {
-                    System.err.println("[AssetManager] Failed to convert BufferedImage to JavaFX Image: " + path);
-                }
+                LOG.debug("Failed to convert BufferedImage to JavaFX Image: {}", path);
                 return null;
             }
             
@@ -148,26 +214,15 @@ public class AssetManager {
                 // Ignore format detection errors
             }
             
-            // Cache with ImageIO indicator
-            String cacheKey = path + "[ImageIO]";
-            images.put(cacheKey, javafxImage);
-            
-            if (debugMode) {
-                System.out.println("[AssetManager] Loaded image with ImageIO: " + path + 
-                    " (format: " + formatInfo + ", " + 
-                    (int)javafxImage.getWidth() + "x" + (int)javafxImage.getHeight() + ")");
-            }
+            LOG.debug("Loaded image with ImageIO: {} (format: {}, {}x{})", 
+                path, formatInfo, (int) javafxImage.getWidth(), (int) javafxImage.getHeight());
             
             return javafxImage;
         } catch (IOException e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] IOException loading with ImageIO: " + path + " - " + e.getMessage());
-            }
+            LOG.warn("IOException loading with ImageIO: {} - {}", path, e.getMessage());
             return null;
         } catch (Exception e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] Exception loading with ImageIO: " + path + " - " + e.getMessage());
-            }
+            LOG.warn("Exception loading with ImageIO: {} - {}", path, e.getMessage());
             return null;
         }
     }
@@ -181,118 +236,183 @@ public class AssetManager {
      * @return Loaded Image, or null if failed
      */
     private Image loadImageFromStream(InputStream is, String path) {
+        try {
+            return loadImageFromBytes(is.readAllBytes(), path, null);
+        } catch (IOException e) {
+            LOG.warn("IOException loading image: {} - {}", path, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Load an image from file contents, trying every strategy in turn.
+     * 
+     * @param imageData File contents
+     * @param path Path for caching and logging
+     * @param resolved If not null, filled in with the strategy that succeeded (for the format index)
+     * @return Loaded Image, or null if failed
+     */
+    private Image loadImageFromBytes(byte[] imageData, String path, FormatIndex.Entry resolved) {
         // Strategy 1: Try ImageIO first (best compatibility, can handle many formats)
         try {
-            // Need to read stream to byte array first (ImageIO needs to read it, and we may need it again)
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            byte[] data = new byte[8192];
-            int nRead;
-            while ((nRead = is.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
-            }
-            byte[] imageData = buffer.toByteArray();
+            // Every strategy below works on views of this one array
+            ByteBuffer imageBuffer = ByteBuffer.wrap(imageData).asReadOnlyBuffer();
             
             // Try ImageIO
+            long start = System.nanoTime();
             Image imageIO = loadImageWithImageIO(new ByteArrayInputStream(imageData), path);
+            metrics.recordDecode(FormatIndex.STRATEGY_IMAGEIO, start, imageIO);
             if (imageIO != null) {
+                setStrategy(resolved, FormatIndex.STRATEGY_IMAGEIO);
                 return imageIO; // Success with ImageIO
             }
             
             // Strategy 2: Try format detection and JavaFX direct load
+            start = System.nanoTime();
             String format = FileTypeDetector.detectImageFormat(new ByteArrayInputStream(imageData));
             
             if (format != null) {
-                if (debugMode) {
-                    System.out.println("[AssetManager] Detected format: " + format + " for " + path + 
-                        " (fallback after ImageIO failed)");
-                }
+                LOG.debug("Detected format: {} for {} (fallback after ImageIO failed)", format, path);
                 
                 // Try JavaFX Image direct load
                 Image image = new Image(new ByteArrayInputStream(imageData));
                 
                 if (!image.isError() && validateImage(image, path)) {
-                    // Cache with detected format
-                    String cacheKey = path + "[" + format + "]";
-                    images.put(cacheKey, image);
-                    
-                    if (debugMode) {
-                        System.out.println("[AssetManager] Loaded image with JavaFX: " + path + 
-                            " (format: " + format + ", " + 
-                            (int)image.getWidth() + "x" + (int)image.getHeight() + ")");
+                    metrics.recordDecode(FormatIndex.STRATEGY_DETECTED, start, image);
+                    LOG.debug("Loaded image with JavaFX: {} (format: {}, {}x{})", 
+                        path, format, (int) image.getWidth(), (int) image.getHeight());
+                    setStrategy(resolved, FormatIndex.STRATEGY_DETECTED);
+                    if (resolved != null) {
+                        resolved.format = format;
                     }
                     return image;
                 }
             }
+            metrics.recordDecode(FormatIndex.STRATEGY_DETECTED, start, null);
             
-            // Strategy 3: NEW - Try J2ME custom format parser (for numbered resource files)
-            Image j2meImage = loadJ2MEFormat(imageData, path);
+            // Strategy 3: Sprite section of a numbered pack file, decoded from its header
+            start = System.nanoTime();
+            J2MEResourceParser.PackTable packTable = J2MEResourceParser.parsePackTable(imageBuffer);
+            Image spriteImage = packTable != null ? loadPackSprite(imageBuffer, packTable, path, resolved) : null;
+            metrics.recordDecode(FormatIndex.STRATEGY_SPRITE, start, spriteImage);
+            if (spriteImage != null) {
+                return spriteImage;
+            }
+            if (packTable != null) {
+                // A pack file's other entries (maps, text, tables) are not pixels; guessing
+                // dimensions from their bytes only produces garbage, so it is not a drawable image
+                if (skippedFiles.add(path)) {
+                    LOG.debug("Skipping pack file without a sprite: {} (entries: {})", path, packTable.getEntryCount());
+                }
+                return null;
+            }
+            
+            // Strategy 4: Try J2ME custom format parser (raw RGB sections of an offset table)
+            start = System.nanoTime();
+            Image j2meImage = loadJ2MEFormat(imageBuffer, path, resolved);
+            metrics.recordDecode(FormatIndex.STRATEGY_J2ME, start, j2meImage);
             if (j2meImage != null) {
                 return j2meImage; // Success with J2ME format
             }
             
-            // Strategy 4: Try deep signature search + extract (for custom formats with headers)
-            Image extractedImage = extractImageFromCustomFormat(imageData, path);
+            // Strategy 5: Try deep signature search + extract (for custom formats with headers)
+            start = System.nanoTime();
+            Image extractedImage = extractImageFromCustomFormat(imageData, path, resolved);
+            metrics.recordDecode(FormatIndex.STRATEGY_EXTRACTED, start, extractedImage);
             if (extractedImage != null) {
                 return extractedImage; // Success with extraction
             }
             
-            // Strategy 5: Try JavaFX direct load without format detection (last resort)
+            // Strategy 6: Try JavaFX direct load without format detection (last resort)
+            start = System.nanoTime();
             Image directImage = new Image(new ByteArrayInputStream(imageData));
             if (!directImage.isError() && validateImage(directImage, path)) {
-                String cacheKey = path + "[Direct]";
-                images.put(cacheKey, directImage);
-                
-                if (debugMode) {
-                    System.out.println("[AssetManager] Loaded image with direct JavaFX: " + path + 
-                        " (" + (int)directImage.getWidth() + "x" + (int)directImage.getHeight() + ")");
-                }
+                metrics.recordDecode(FormatIndex.STRATEGY_DIRECT, start, directImage);
+                LOG.debug("Loaded image with direct JavaFX: {} ({}x{})", 
+                    path, (int) directImage.getWidth(), (int) directImage.getHeight());
+                setStrategy(resolved, FormatIndex.STRATEGY_DIRECT);
                 return directImage;
             }
+            metrics.recordDecode(FormatIndex.STRATEGY_DIRECT, start, null);
             
             // All strategies failed - only log once per file
-            if (!skippedFiles.contains(path)) {
-                skippedFiles.add(path);
-                if (debugMode) {
-                    String hex = bytesToHex(imageData, 0, Math.min(16, imageData.length));
-                    System.out.println("[AssetManager] Skipping non-image file: " + path + 
-                        " (size: " + imageData.length + " bytes, first bytes: " + hex + 
-                        " - tried ImageIO, format detection, deep scan/extract, and direct load)");
-                }
+            if (skippedFiles.add(path) && LOG.isDebugEnabled()) {
+                LOG.debug("Skipping non-image file: {} (size: {} bytes, first bytes: {}" + 
+                    " - tried ImageIO, format detection, deep scan/extract, and direct load)", 
+                    path, imageData.length, bytesToHex(imageData, 0, Math.min(16, imageData.length)));
             }
             return null;
             
-        } catch (IOException e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] IOException loading image: " + path + " - " + e.getMessage());
-            }
-            return null;
         } catch (Exception e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] Exception loading image: " + path + " - " + e.getMessage());
-                e.printStackTrace();
-            }
+            LOG.warn("Exception loading image: {}", path, e);
             return null;
         }
     }
     
+    private static void setStrategy(FormatIndex.Entry resolved, String strategy) {
+        if (resolved != null) {
+            resolved.strategy = strategy;
+        }
+    }
+    
+    /**
+     * Load the first sprite section of a numbered pack file.
+     * The section header gives each module's size and pixel encoding, so the
+     * image is decoded once with no dimension guessing (see J2MESpriteParser).
+     * 
+     * @param data File contents
+     * @param table Pack table of the file
+     * @param path Path for caching and logging
+     * @param resolved If not null, filled in with the section and dimensions that worked
+     * @return Loaded Image, or null if no entry is a sprite
+     */
+    private Image loadPackSprite(ByteBuffer data, J2MEResourceParser.PackTable table, String path,
+                                 FormatIndex.Entry resolved) {
+        for (int section = 0; section < table.getEntryCount(); section++) {
+            Image image = decodePackSprite(data, table, section, path);
+            if (image == null) {
+                continue;
+            }
+            
+            LOG.debug("Loaded sprite: {} (section: {}, {}x{})", 
+                path, section, (int) image.getWidth(), (int) image.getHeight());
+            if (resolved != null) {
+                resolved.strategy = FormatIndex.STRATEGY_SPRITE;
+                resolved.section = section;
+                resolved.width = (int) image.getWidth();
+                resolved.height = (int) image.getHeight();
+            }
+            return image;
+        }
+        return null;
+    }
+    
+    /**
+     * Decode one known sprite section of a pack file.
+     */
+    private Image decodePackSprite(ByteBuffer data, J2MEResourceParser.PackTable table, int section, String path) {
+        Image image = J2MESpriteParser.decodeSection(J2MEResourceParser.readPackEntry(data, table, section));
+        return image != null && validateImage(image, path) ? image : null;
+    }
+    
     /**
      * Load image from J2ME custom binary format.
      * Parses offset table and extracts RGB image data.
+     * Sections are read-only slices of the input buffer, never copies.
      * 
-     * @param data Byte array containing J2ME format data
+     * @param data Buffer containing J2ME format data
      * @param path Path for caching and logging
+     * @param resolved If not null, filled in with the section and dimensions that worked
      * @return Loaded Image, or null if failed
      */
-    private Image loadJ2MEFormat(byte[] data, String path) {
-        if (data == null || data.length < 6) {
+    private Image loadJ2MEFormat(ByteBuffer data, String path, FormatIndex.Entry resolved) {
+        if (data == null || data.remaining() < 6) {
             return null;
         }
         
         // Check if it's J2ME format
         if (!J2MEResourceParser.isJ2MEFormat(data)) {
-            if (debugMode) {
-                System.out.println("[AssetManager] File does not appear to be J2ME format: " + path);
-            }
+            LOG.debug("File does not appear to be J2ME format: {}", path);
             return null;
         }
         
@@ -300,30 +420,22 @@ public class AssetManager {
             // Parse offset table
             int[] offsets = J2MEResourceParser.parseOffsetTable(data);
             if (offsets == null || offsets.length < 2) {
-                if (debugMode) {
-                    System.out.println("[AssetManager] Could not parse offset table: " + path);
-                }
+                LOG.debug("Could not parse offset table: {}", path);
                 return null;
             }
             
             int sectionCount = offsets.length - 1;
-            if (debugMode) {
-                System.out.println("[AssetManager] J2ME format detected: " + path + 
-                    " (sections: " + sectionCount + ")");
-            }
+            LOG.debug("J2ME format detected: {} (sections: {})", path, sectionCount);
             
             // Try to load first section as image (most numbered files have single image)
             // If that fails, try other sections
             for (int sectionIndex = 0; sectionIndex < sectionCount; sectionIndex++) {
-                byte[] sectionData = J2MEResourceParser.readDataSection(data, offsets, sectionIndex);
-                if (sectionData == null || sectionData.length == 0) {
+                ByteBuffer sectionData = J2MEResourceParser.readDataSection(data, offsets, sectionIndex);
+                if (sectionData == null || !sectionData.hasRemaining()) {
                     continue;
                 }
                 
-                if (debugMode) {
-                    System.out.println("[AssetManager] Trying section " + sectionIndex + 
-                        " (size: " + sectionData.length + " bytes)");
-                }
+                LOG.debug("Trying section {} (size: {} bytes)", sectionIndex, sectionData.remaining());
                 
                 // Try to parse as RGB image with auto-detected dimensions
                 RGBImageParser.RGBImageData rgbData = 
@@ -342,93 +454,116 @@ public class AssetManager {
                     if (javafxImage != null && !javafxImage.isError() && 
                         validateImage(javafxImage, path)) {
                         
-                        // Cache with J2ME format indicator
-                        String cacheKey = path + "[J2ME-section" + sectionIndex + "]";
-                        images.put(cacheKey, javafxImage);
+                        LOG.debug("Loaded J2ME image: {} (section: {}, {}x{})", 
+                            path, sectionIndex, rgbData.width, rgbData.height);
                         
-                        if (debugMode) {
-                            System.out.println("[AssetManager] Loaded J2ME image: " + path + 
-                                " (section: " + sectionIndex + ", " + 
-                                rgbData.width + "x" + rgbData.height + ")");
+                        if (resolved != null) {
+                            resolved.strategy = FormatIndex.STRATEGY_J2ME;
+                            resolved.section = sectionIndex;
+                            resolved.width = rgbData.width;
+                            resolved.height = rgbData.height;
                         }
-                        
                         return javafxImage;
                     }
                 }
             }
             
-            if (debugMode) {
-                System.out.println("[AssetManager] Could not parse any section as RGB image: " + path);
-            }
+            LOG.debug("Could not parse any section as RGB image: {}", path);
             return null;
             
         } catch (Exception e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] Exception loading J2ME format: " + path + 
-                    " - " + e.getMessage());
-                e.printStackTrace();
-            }
+            LOG.warn("Exception loading J2ME format: {}", path, e);
             return null;
         }
     }
     
     /**
-     * Extract image from custom format by finding PNG/JPEG signature in file data.
+     * Extract images from custom format by finding PNG/JPEG/GIF/BMP signatures in file data.
      * This handles files with custom headers where image data starts at an offset.
+     * Each embedded image is decoded from exactly its own bytes (see EmbeddedImageIndex).
+     * Only images up to the first one that decodes are decoded here; that one is also
+     * cached under getEmbeddedImageKey(path, index), and the rest are decoded on
+     * demand by getEmbeddedImage.
      * 
      * @param data Byte array containing file data (may have custom header)
      * @param path Path for caching and logging
-     * @return Loaded Image, or null if failed
+     * @param resolved If not null, filled in with the signature offset and format that worked
+     * @return First embedded image that decodes, or null if failed
      */
-    private Image extractImageFromCustomFormat(byte[] data, String path) {
+    private Image extractImageFromCustomFormat(byte[] data, String path, FormatIndex.Entry resolved) {
         if (data == null || data.length < 3) {
             return null;
         }
         
-        // Find image signature in file
-        int signatureOffset = FileTypeDetector.findImageSignatureInFile(data);
-        
-        if (signatureOffset < 0) {
-            // No signature found
-            if (debugMode) {
-                System.out.println("[AssetManager] No image signature found in file: " + path);
-            }
+        // Find image signatures anywhere in the file
+        EmbeddedImageIndex index = indexEmbeddedImages(path, data);
+        if (index.isEmpty()) {
+            LOG.debug("No image signature found in file: {}", path);
             return null;
         }
         
-        // Detect format at offset
-        String format = FileTypeDetector.detectFormatAtOffset(data, signatureOffset);
-        if (format == null) {
-            if (debugMode) {
-                System.out.println("[AssetManager] Could not detect format at offset " + signatureOffset + " for: " + path);
+        for (int i = 0; i < index.size(); i++) {
+            EmbeddedImageIndex.Entry embedded = index.get(i);
+            LOG.debug("Found {} signature in: {} at offset {}", embedded.format, path, embedded.offset);
+            
+            Image image = loadExtractedImage(data, embedded.offset, embedded.getLength(), embedded.format, path);
+            if (image != null) {
+                images.put(getEmbeddedImageKey(path, i), image);
+                if (resolved != null) {
+                    resolved.strategy = FormatIndex.STRATEGY_EXTRACTED;
+                    resolved.offset = embedded.offset;
+                    resolved.format = embedded.format;
+                }
+                return image;
             }
+        }
+        return null;
+    }
+    
+    /**
+     * Decode the embedded image the format index recorded, from its exact bounds,
+     * and cache it under its embedded image key as extractImageFromCustomFormat does
+     * @return Loaded Image, or null if the file no longer has an image at that offset
+     */
+    private Image loadIndexedImage(byte[] data, String path, FormatIndex.Entry known) {
+        EmbeddedImageIndex index = indexEmbeddedImages(path, data);
+        int i = index.indexOfOffset(known.offset);
+        EmbeddedImageIndex.Entry embedded = index.get(i);
+        if (embedded == null) {
             return null;
         }
         
-        if (debugMode) {
-            System.out.println("[AssetManager] Found " + format + " signature at offset " + signatureOffset + " in: " + path);
+        Image image = loadExtractedImage(data, embedded.offset, embedded.getLength(), embedded.format, path);
+        if (image != null) {
+            images.put(getEmbeddedImageKey(path, i), image);
         }
-        
-        // Extract image data from signature offset to end of file
-        byte[] extractedData = Arrays.copyOfRange(data, signatureOffset, data.length);
-        
-        // Try to load with ImageIO
+        return image;
+    }
+    
+    /**
+     * Decode an image embedded at a known offset (signature already located).
+     * The bytes are read in place, without the copy ImageIO.read(InputStream) makes.
+     * 
+     * @param data Byte array containing file data
+     * @param signatureOffset Offset of the image signature
+     * @param length Image length, from EmbeddedImageIndex
+     * @param format Format name for caching and logging
+     * @param path Path for caching and logging
+     * @return Loaded Image, or null if failed
+     */
+    private Image loadExtractedImage(byte[] data, int signatureOffset, int length, String format, String path) {
         try {
-            BufferedImage bufferedImage = ImageIO.read(new ByteArrayInputStream(extractedData));
+            BufferedImage bufferedImage = ByteSliceImageInputStream.decode(data, signatureOffset, length);
             
             if (bufferedImage == null) {
-                if (debugMode) {
-                    System.err.println("[AssetManager] ImageIO could not read extracted image: " + path);
-                }
+                LOG.debug("ImageIO could not read extracted image: {}", path);
                 return null;
             }
             
             // Validate BufferedImage
             if (!ImageConverter.isValidBufferedImage(bufferedImage)) {
-                if (debugMode) {
-                    System.err.println("[AssetManager] Invalid extracted BufferedImage: " + path + 
-                        " (width: " + bufferedImage.getWidth() + ", height: " + bufferedImage.getHeight() + ")");
-                }
+                LOG.debug("Invalid extracted BufferedImage: {} (width: {}, height: {})", 
+                    path, bufferedImage.getWidth(), bufferedImage.getHeight());
                 return null;
             }
             
@@ -436,9 +571,7 @@ public class AssetManager {
             Image javafxImage = ImageConverter.bufferedImageToJavaFX(bufferedImage);
             
             if (javafxImage == null || javafxImage.isError()) {
-                if (debugMode) {
-                    System.err.println("[AssetManager] Failed to convert extracted image to JavaFX Image: " + path);
-                }
+                LOG.debug("Failed to convert extracted image to JavaFX Image: {}", path);
                 return null;
             }
             
@@ -447,26 +580,14 @@ public class AssetManager {
                 return null;
             }
             
-            // Cache with extracted format indicator
-            String cacheKey = path + "[Extracted-" + format + "@" + signatureOffset + "]";
-            images.put(cacheKey, javafxImage);
-            
-            if (debugMode) {
-                System.out.println("[AssetManager] Extracted and loaded image: " + path + 
-                    " (format: " + format + ", offset: " + signatureOffset + ", " + 
-                    (int)javafxImage.getWidth() + "x" + (int)javafxImage.getHeight() + ")");
-            }
+            LOG.debug("Extracted and loaded image: {} (format: {}, offset: {})", path, format, signatureOffset);
             
             return javafxImage;
         } catch (IOException e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] IOException extracting image: " + path + " - " + e.getMessage());
-            }
+            LOG.warn("IOException extracting image: {} - {}", path, e.getMessage());
             return null;
         } catch (Exception e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] Exception extracting image: " + path + " - " + e.getMessage());
-            }
+            LOG.warn("Exception extracting image: {} - {}", path, e.getMessage());
             return null;
         }
     }
@@ -499,10 +620,7 @@ public class AssetManager {
         double height = image.getHeight();
         
         if (width <= 0 || height <= 0 || Double.isNaN(width) || Double.isNaN(height)) {
-            if (debugMode) {
-                System.err.println("[AssetManager] Invalid image: " + path + 
-                    " (width: " + width + ", height: " + height + ")");
-            }
+            LOG.debug("Invalid image: {} (width: {}, height: {})", path, width, height);
             return false;
         }
         
@@ -511,91 +629,260 @@ public class AssetManager {
     
     /**
      * Load an image by number (for numbered asset files like 0, 1, 2, etc.)
-     * Uses ImageIO first (best compatibility), then falls back to format detection and direct load.
+     * Uses the baked asset pack if available, then the format index, and only
+     * probes formats (ImageIO, format detection, J2ME, extraction, direct load)
+     * for resources the index does not know yet.
      * Skips non-image files with warning.
      * 
      * @param number The number of the asset file
      * @return Loaded Image, or null if failed
      */
     public Image loadImageByNumber(int number) {
-        String basePath = "/images/" + number;
-        
-        // Check cache first (with all possible format keys)
-        Image cached = getImageByNumber(number);
+        return loadImage(AssetId.of(number));
+    }
+    
+    /**
+     * Load a numbered image (see loadImageByNumber).
+     * A cache hit is a single array read and allocates nothing.
+     * 
+     * @param id Numbered resource
+     * @return Loaded Image, or null if failed
+     */
+    public Image loadImage(AssetId id) {
+        Image cached = images.get(id);
         if (cached != null) {
-            if (debugMode) {
-                System.out.println("[AssetManager] Using cached image for number: " + number);
-            }
             return cached;
         }
         
-        // Strategy 1: Try ImageIO first (can handle many formats including custom ones)
-        try {
-            InputStream is = getClass().getResourceAsStream(basePath);
-            if (is != null) {
-                Image imageIO = loadImageWithImageIO(is, basePath);
-                if (imageIO != null) {
-                    if (debugMode) {
-                        System.out.println("[AssetManager] Successfully loaded image #" + number + " with ImageIO");
-                    }
-                    return imageIO;
-                }
-                is.close();
+        return loadOnce(id.getPath(), () -> {
+            // Another caller may have finished loading between the cache check and loadOnce
+            Image loaded = images.peek(id);
+            if (loaded != null) {
+                return loaded;
             }
-        } catch (IOException e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] IOException with ImageIO for file: " + basePath + " - " + e.getMessage());
+            Image image = decodeImageByNumber(id);
+            if (image != null) {
+                images.put(id, image);
+            }
+            return image;
+        });
+    }
+    
+    /**
+     * Decode a numbered image (no cache check, no single-flight)
+     */
+    private Image decodeImageByNumber(AssetId id) {
+        int number = id.getNumber();
+        String basePath = id.getPath();
+        
+        // Baked asset pack: format already resolved at build time, just slice the pixels.
+        // An entry without pixels (older packs wrote one for files the builder could not
+        // decode) proves nothing, so those files go through the normal probing below.
+        if (assetPack.contains(number) && getOverrideFile(basePath) == null) {
+            long start = System.nanoTime();
+            Image packed = assetPack.getImage(number);
+            if (packed != null) {
+                metrics.recordDecode(AssetMetrics.STRATEGY_PACK, start, packed);
+                LOG.debug("Loaded image #{} from asset pack ({}x{})", 
+                    number, (int) packed.getWidth(), (int) packed.getHeight());
+                return packed;
             }
         }
         
-        // Strategy 2: Try loadImageFromStream (uses format detection + deep scan + JavaFX direct load)
-        try {
-            InputStream is = getClass().getResourceAsStream(basePath);
-            if (is != null) {
-                Image image = loadImageFromStream(is, basePath);
-                if (image != null) {
-                    if (debugMode) {
-                        System.out.println("[AssetManager] Successfully loaded image #" + number + 
-                            " with format detection/deep scan/JavaFX");
-                    }
-                    return image;
+        // Read the file once; the format index and every strategy work on these bytes
+        byte[] data = readResource(basePath);
+        long contentHash = data != null ? FormatIndex.hash(data) : FormatIndex.NO_CONTENT;
+        
+        // Format index: go straight to the decoder that worked last time
+        FormatIndex.Entry known = formatIndex.lookup(number, contentHash);
+        if (known != null) {
+            if (FormatIndex.STRATEGY_NONE.equals(known.strategy)) {
+                if (skippedFiles.add(basePath)) {
+                    LOG.debug("Skipping non-image file: {} (per format index)", basePath);
                 }
+                return null;
             }
-        } catch (Exception e) {
-            if (debugMode) {
-                System.err.println("[AssetManager] Exception loading file: " + basePath + " - " + e.getMessage());
+            
+            Image image = loadWithKnownFormat(data, basePath, known);
+            if (image != null) {
+                LOG.debug("Loaded image #{} via format index ({})", number, known.strategy);
+                return image;
             }
+            
+            // Recorded decoder no longer works, probe again
+            formatIndex.invalidate(number);
         }
         
-        // Strategy 3: Fallback - Try common extensions if file not found or all strategies failed
+        FormatIndex.Entry resolved = new FormatIndex.Entry(contentHash, FormatIndex.STRATEGY_NONE);
+        
+        // Strategy 1: ImageIO, format detection, J2ME, deep scan/extract and JavaFX direct load
+        if (data != null) {
+            Image image = loadImageFromBytes(data, basePath, resolved);
+            if (image != null) {
+                formatIndex.record(number, resolved);
+                LOG.debug("Successfully loaded image #{} ({})", number, resolved.strategy);
+                return image;
+            }
+        }
+        
+        // Strategy 2: Fallback - Try common extensions if file not found or all strategies failed
         String[] extensions = {".png", ".jpg", ".jpeg", ".gif", ".bmp"};
-        boolean triedExtensions = false;
+        long start = System.nanoTime();
         for (String ext : extensions) {
             Image image = loadImage(basePath + ext);
             if (image != null) {
-                if (debugMode) {
-                    System.out.println("[AssetManager] Successfully loaded image #" + number + " with extension: " + ext);
-                }
+                metrics.record(FormatIndex.STRATEGY_EXTENSION, start, true);
+                resolved.strategy = FormatIndex.STRATEGY_EXTENSION;
+                resolved.format = ext;
+                formatIndex.record(number, resolved);
+                LOG.debug("Successfully loaded image #{} with extension: {}", number, ext);
                 return image;
             }
-            triedExtensions = true;
         }
         
+        metrics.record(FormatIndex.STRATEGY_EXTENSION, start, false);
+        
+        // Remember that this resource is not an image so the next start skips it at once
+        resolved.strategy = FormatIndex.STRATEGY_NONE;
+        formatIndex.record(number, resolved);
+        
         // Only log failure once per file
-        if (!skippedFiles.contains(basePath)) {
-            skippedFiles.add(basePath);
-            if (debugMode) {
-                String triedMethods = triedExtensions ? 
-                    "ImageIO, format detection/JavaFX, deep scan/extract, and extensions: .png, .jpg, .jpeg, .gif, .bmp" :
-                    "ImageIO, format detection/JavaFX, and deep scan/extract";
-                System.out.println("[AssetManager] Could not load image by number: " + number + 
-                    " (tried: " + triedMethods + ")");
-            }
+        if (skippedFiles.add(basePath)) {
+            LOG.debug("Could not load image by number: {} (tried: ImageIO, format detection/JavaFX, J2ME, " + 
+                "deep scan/extract, and extensions: .png, .jpg, .jpeg, .gif, .bmp)", number);
         }
         
         return null;
     }
     
+    /**
+     * Read a resource fully, from the warm cache tier if possible, else from the jar
+     * @param path Resource path
+     * @return File contents, or null if the resource does not exist or cannot be read
+     */
+    private byte[] readResource(String path) {
+        byte[] cachedData = images.getEncoded(path);
+        if (cachedData != null) {
+            return cachedData;
+        }
+        
+        try (InputStream is = openResource(path)) {
+            if (is == null) {
+                return null;
+            }
+            byte[] data = is.readAllBytes();
+            metrics.recordRead(data.length);
+            images.putEncoded(path, data);
+            return data;
+        } catch (IOException e) {
+            LOG.warn("IOException reading file: {} - {}", path, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Open a resource, preferring a file in the override directory if one is set
+     * @param path Resource path
+     * @return Stream, or null if the resource does not exist
+     */
+    private InputStream openResource(String path) throws IOException {
+        Path file = getOverrideFile(path);
+        return file != null ? Files.newInputStream(file) : getClass().getResourceAsStream(path);
+    }
+    
+    /**
+     * Get the file that replaces a resource in development
+     * @param path Resource path
+     * @return Existing file under the override directory, or null
+     */
+    private Path getOverrideFile(String path) {
+        Path directory = overrideDirectory;
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+        return file.startsWith(directory) && Files.isRegularFile(file) ? file : null;
+    }
+    
+    /**
+     * Decode a numbered resource with the strategy recorded in the format index,
+     * skipping every probe that failed last time.
+     * 
+     * @param data File contents (null for the extension strategy)
+     * @param path Path for caching and logging
+     * @param known Index entry for the current contents
+     * @return Loaded Image, or null if the recorded strategy did not work
+     */
+    private Image loadWithKnownFormat(byte[] data, String path, FormatIndex.Entry known) {
+        if (FormatIndex.STRATEGY_EXTENSION.equals(known.strategy)) {
+            long start = System.nanoTime();
+            Image image = known.format != null ? loadImage(path + known.format) : null;
+            metrics.record(known.strategy, start, image != null);
+            return image;
+        }
+        if (data == null) {
+            return null;
+        }
+        
+        long start = System.nanoTime();
+        Image image = decodeKnownFormat(data, path, known);
+        metrics.recordDecode(known.strategy, start, image);
+        return image;
+    }
+    
+    private Image decodeKnownFormat(byte[] data, String path, FormatIndex.Entry known) {
+        try {
+            switch (known.strategy) {
+                case FormatIndex.STRATEGY_IMAGEIO:
+                    return loadImageWithImageIO(new ByteArrayInputStream(data), path);
+                case FormatIndex.STRATEGY_DETECTED:
+                case FormatIndex.STRATEGY_DIRECT: {
+                    Image image = new Image(new ByteArrayInputStream(data));
+                    return !image.isError() && validateImage(image, path) ? image : null;
+                }
+                case FormatIndex.STRATEGY_SPRITE: {
+                    ByteBuffer buffer = ByteBuffer.wrap(data).asReadOnlyBuffer();
+                    J2MEResourceParser.PackTable table = J2MEResourceParser.parsePackTable(buffer);
+                    return table != null ? decodePackSprite(buffer, table, known.section, path) : null;
+                }
+                case FormatIndex.STRATEGY_J2ME: {
+                    // Older indexes may list a pack file here; its sections were never images
+                    ByteBuffer buffer = ByteBuffer.wrap(data).asReadOnlyBuffer();
+                    return J2MEResourceParser.parsePackTable(buffer) == null ? loadJ2MESection(buffer, path, known) : null;
+                }
+                case FormatIndex.STRATEGY_EXTRACTED:
+                    return loadIndexedImage(data, path, known);
+                default:
+                    return null;
+            }
+        } catch (Exception e) {
+            LOG.warn("Exception loading {} via format index - {}", path, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Decode one known section of a J2ME file with known dimensions.
+     */
+    private Image loadJ2MESection(ByteBuffer data, String path, FormatIndex.Entry known) {
+        int[] offsets = J2MEResourceParser.parseOffsetTable(data);
+        if (offsets == null || known.section >= offsets.length - 1) {
+            return null;
+        }
+        
+        ByteBuffer sectionData = J2MEResourceParser.readDataSection(data, offsets, known.section);
+        int[] rgb = RGBImageParser.parseRGBArray(sectionData, known.width, known.height);
+        if (rgb == null) {
+            return null;
+        }
+        
+        Image javafxImage = RGBImageParser.rgbArrayToJavaFXImage(rgb, known.width, known.height, true);
+        if (javafxImage == null || javafxImage.isError() || !validateImage(javafxImage, path)) {
+            return null;
+        }
+        return javafxImage;
+    }
+    
     /**
      * Get a cached image
      * @param path Path to image resource
@@ -611,94 +898,243 @@ public class AssetManager {
      * @return Cached Image, or null if not loaded
      */
     public Image getImageByNumber(int number) {
-        // Check all possible paths (including format-detected cache keys)
-        String basePath = "/images/" + number;
-        String[] paths = {
-            basePath,
-            basePath + ".png",
-            basePath + ".jpg",
-            basePath + ".jpeg",
-            basePath + ".gif",
-            basePath + ".bmp"
-        };
-        
-        // Check ImageIO cache key
-        String imageIOCacheKey = basePath + "[ImageIO]";
-        Image img = images.get(imageIOCacheKey);
-        if (img != null) {
-            return img;
+        return images.get(AssetId.of(number));
+    }
+    
+    /**
+     * Get a cached numbered image
+     * @param id Numbered resource
+     * @return Cached Image, or null if not loaded
+     */
+    public Image getImage(AssetId id) {
+        return images.get(id);
+    }
+    
+    /**
+     * Get the sprite bank of a numbered resource, giving access to every section
+     * of the file rather than just the first one that decodes.
+     * The pack table is parsed once; sections decode lazily on first use.
+     * Continuation files (e.g. 5.1-5.3) are read through the encoded cache tier
+     * when one of their sections is first requested.
+     * 
+     * @param number The number of the asset file
+     * @return Sprite bank, or null if the file is missing or not a pack file
+     */
+    public SpriteBank getSpriteBank(int number) {
+        return getSpriteBank(AssetId.of(number));
+    }
+    
+    /**
+     * Get the sprite bank of a numbered resource (see getSpriteBank(int))
+     * @param id Numbered resource
+     * @return Sprite bank, or null if the file is missing or not a pack file
+     */
+    public SpriteBank getSpriteBank(AssetId id) {
+        SpriteBank bank = spriteBanks.get(id);
+        if (bank != null || notSpriteBanks.contains(id)) {
+            return bank;
         }
         
-        // Check format-detected cache keys
-        String[] formats = {"PNG", "JPEG", "GIF", "BMP", "Direct"};
-        for (String format : formats) {
-            String cacheKey = basePath + "[" + format + "]";
-            img = images.get(cacheKey);
-            if (img != null) {
-                return img;
+        // computeIfAbsent runs the read once even if several threads ask at the same time.
+        // It stores no null result, so a failure is remembered in notSpriteBanks instead.
+        return spriteBanks.computeIfAbsent(id, key -> {
+            byte[] data = readResource(key.getPath());
+            SpriteBank opened = data != null ? SpriteBank.open(key.getPath(), data, this::readResource) : null;
+            if (opened != null) {
+                LOG.debug("Opened {}", opened);
+            } else {
+                notSpriteBanks.add(key);
+                LOG.debug("No sprite bank for {}", key.getPath());
             }
+            return opened;
+        });
+    }
+    
+    /**
+     * Get every PNG, JPEG, GIF and BMP image embedded in a numbered resource,
+     * with its start and end offsets. The file is scanned once; later calls
+     * return the cached index.
+     * 
+     * @param id Numbered resource
+     * @return Index of embedded images, or null if the file is missing
+     */
+    public EmbeddedImageIndex getEmbeddedImages(AssetId id) {
+        EmbeddedImageIndex index = embeddedImages.get(id.getPath());
+        if (index != null) {
+            return index;
         }
-        
-        // Check regular paths
-        for (String path : paths) {
-            img = images.get(path);
-            if (img != null) {
-                return img;
-            }
+        byte[] data = readResource(id.getPath());
+        return data != null ? indexEmbeddedImages(id.getPath(), data) : null;
+    }
+    
+    /**
+     * Get one image embedded in a numbered resource, decoding it on first use
+     * @param id Numbered resource
+     * @param index Image index within getEmbeddedImages(id)
+     * @return Decoded image, or null if the file is missing or the image does not decode
+     */
+    public Image getEmbeddedImage(AssetId id, int index) {
+        String key = getEmbeddedImageKey(id.getPath(), index);
+        Image cached = images.get(key);
+        if (cached != null) {
+            return cached;
         }
         
-        return null;
+        return loadOnce(key, () -> {
+            Image loaded = images.peek(key);
+            if (loaded != null) {
+                return loaded;
+            }
+            byte[] data = readResource(id.getPath());
+            EmbeddedImageIndex.Entry embedded = data != null ? indexEmbeddedImages(id.getPath(), data).get(index) : null;
+            if (embedded == null) {
+                return null;
+            }
+            
+            long start = System.nanoTime();
+            Image image = loadExtractedImage(data, embedded.offset, embedded.getLength(), embedded.format, key);
+            metrics.recordDecode(FormatIndex.STRATEGY_EXTRACTED, start, image);
+            if (image != null) {
+                images.put(key, image);
+            }
+            return image;
+        });
     }
     
     /**
-     * Preload commonly used images
+     * Get the cache key of an image embedded in a resource
+     * @param path Resource path
+     * @param index Image index within the resource's EmbeddedImageIndex
+     * @return Key such as "/images/12#1"
      */
-    public void preloadCommonAssets() {
-        if (debugMode) {
-            System.out.println("[AssetManager] Preloading common assets...");
-        }
+    public static String getEmbeddedImageKey(String path, int index) {
+        return path + "#" + index;
+    }
+    
+    private EmbeddedImageIndex indexEmbeddedImages(String path, byte[] data) {
+        return embeddedImages.computeIfAbsent(path, key -> {
+            EmbeddedImageIndex index = EmbeddedImageIndex.scan(data);
+            LOG.debug("Scanned {}: {}", path, index);
+            return index;
+        });
+    }
+    
+    /**
+     * Preload commonly used images in the background.
+     * Returns immediately; poll the returned preloader for progress.
+     * 
+     * @return Preloader tracking the icon and numbered files 0-19
+     */
+    public AssetPreloader preloadCommonAssetsAsync() {
+        LOG.info("Preloading common assets in background...");
         
-        int loadedCount = 0;
-        int skippedCount = 0;
+        AssetPreloader preloader = new AssetPreloader(this);
         
-        // Load icon
-        Image icon = loadImage("/images/icon.png");
-        if (icon != null) {
-            loadedCount++;
-            if (debugMode) {
-                System.out.println("[AssetManager] Preloaded icon.png");
-            }
-        } else if (debugMode) {
-            System.out.println("[AssetManager] Warning: Could not load icon.png");
-            skippedCount++;
+        // Largest resources first so they decode side by side on all cores
+        for (int number : COMMON_ASSETS_BY_SIZE) {
+            preloader.submit(number);
         }
-        
-        // Load numbered image files if they exist
-        for (int i = 0; i < 20; i++) {
-            Image img = loadImageByNumber(i);
-            if (img != null) {
-                loadedCount++;
-            } else {
-                skippedCount++;
+        preloader.submit("/images/icon.png");
+        for (int i = 0; i < COMMON_ASSET_COUNT; i++) {
+            if (!isLargeCommonAsset(i)) {
+                preloader.submit(i);
             }
         }
         
-        if (debugMode) {
-            System.out.println("[AssetManager] Preload summary: " + loadedCount + " loaded, " + 
-                              skippedCount + " skipped, " + images.size() + " total cached");
+        preloader.allDone().thenRun(() -> {
+            LOG.info("Preload summary: {} loaded, {} skipped", preloader.getLoadedCount(), 
+                preloader.getCompletedCount() - preloader.getLoadedCount());
+            LOG.info("Total cached: {}", images);
+            LOG.info("{}", metrics.snapshot());
+            preloader.shutdown();
+            formatIndex.save();
+        });
+        return preloader;
+    }
+    
+    /**
+     * Preload commonly used images and wait for them.
+     * Decodes in parallel but blocks the caller - never call from the FX thread,
+     * use preloadCommonAssetsAsync() there instead.
+     */
+    public void preloadCommonAssets() {
+        preloadCommonAssetsAsync().allDone().join();
+    }
+    
+    private static boolean isLargeCommonAsset(int number) {
+        for (int large : COMMON_ASSETS_BY_SIZE) {
+            if (large == number) {
+                return true;
+            }
         }
+        return false;
     }
     
     /**
-     * Clear all cached assets
+     * Write newly resolved formats to the on-disk index.
+     * Called after preloading and on shutdown; cheap when nothing changed.
+     */
+    public void saveFormatIndex() {
+        formatIndex.save();
+    }
+    
+    /**
+     * Clear all cached assets.
+     * The format index is kept, so reloading skips format probing.
      */
     public void clearCache() {
         int size = images.size();
         images.clear();
         skippedFiles.clear();
-        if (debugMode) {
-            System.out.println("[AssetManager] Cleared " + size + " cached images and skipped files list");
+        spriteBanks.clear();
+        notSpriteBanks.clear();
+        embeddedImages.clear();
+        LOG.info("Cleared {} cached images and skipped files list", size);
+    }
+    
+    /**
+     * Read resources from a directory before the jar (development only).
+     * The directory mirrors the resource root: dir/images/5 replaces /images/5.
+     * Resources with a file there also bypass the asset pack.
+     * @param directory Override directory, or null to read only from the jar
+     */
+    public void setOverrideDirectory(Path directory) {
+        this.overrideDirectory = directory != null ? directory.toAbsolutePath().normalize() : null;
+    }
+    
+    public Path getOverrideDirectory() {
+        return overrideDirectory;
+    }
+    
+    /**
+     * Forget one resource after its file changed, leaving every other cache entry alone:
+     * its decoded image and file contents, sprite bank, embedded image index and images.
+     * A continuation file (e.g. /images/5.1) drops the sprite bank of its base resource.
+     * The format index is keyed by content hash, so new contents are probed again.
+     * 
+     * @param path Resource path, e.g. "/images/5" or "/images/icon.png"
+     * @return Decoded image that was cached for the path, or null if it was not loaded
+     */
+    public Image invalidate(String path) {
+        AssetId id = AssetId.fromPath(path);
+        Image previous = id != null ? images.remove(id) : images.remove(path);
+        skippedFiles.remove(path);
+        
+        int dot = path.lastIndexOf('.');
+        AssetId bankId = id != null ? id : dot > 0 ? AssetId.fromPath(path.substring(0, dot)) : null;
+        if (bankId != null) {
+            spriteBanks.remove(bankId);
+            notSpriteBanks.remove(bankId);
         }
+        
+        EmbeddedImageIndex embedded = embeddedImages.remove(path);
+        if (embedded != null) {
+            for (int i = 0; i < embedded.size(); i++) {
+                images.remove(getEmbeddedImageKey(path, i));
+            }
+        }
+        LOG.debug("Invalidated {}", path);
+        return previous;
     }
     
     /**
@@ -710,10 +1146,55 @@ public class AssetManager {
     }
     
     /**
-     * Enable or disable debug logging
-     * @param enabled true to enable debug mode
+     * Get the number of loads that waited for an identical load already in progress
+     * instead of decoding the same resource again
+     * @return Coalesced load count
+     */
+    public long getCoalescedLoadCount() {
+        return metrics.getCoalescedLoadCount();
+    }
+    
+    /**
+     * Get the asset pipeline metrics: per-strategy attempts and latency histograms,
+     * cache hits/misses, bytes read, decoded and retained.
+     * The same values are published over JMX as com.greenfarm3:type=AssetMetrics.
+     * @return Live metrics (call snapshot() for a consistent copy)
+     */
+    public AssetMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Get the queue that hands background decode results to the game loop.
+     * GameEngine drains it once per frame.
+     * @return Frame handoff queue
+     */
+    public FrameHandoff getFrameHandoff() {
+        return frameHandoff;
+    }
+    
+    /**
+     * Get the image cache, for budgets and hit/miss/eviction counters
+     * @return Image cache
+     */
+    public ImageCache getImageCache() {
+        return images;
+    }
+    
+    /**
+     * Set the image cache budgets
+     * @param decodedBytes Maximum bytes of decoded images (width * height * 4 each)
+     * @param encodedBytes Maximum bytes of encoded file contents kept for re-decoding
+     */
+    public void setCacheBudget(long decodedBytes, long encodedBytes) {
+        images.setBudget(decodedBytes, encodedBytes);
+    }
+    
+    /**
+     * Enable or disable debug logging (per-load messages, cache hits)
+     * @param enabled true to log at DEBUG level, false for INFO
      */
     public void setDebugMode(boolean enabled) {
-        this.debugMode = enabled;
+        LOG.setLevel(enabled ? LogLevel.DEBUG : LogLevel.INFO);
     }
 }
@@ -0,0 +1,478 @@
+package com.greenfarm3.assets;
+
+import com.greenfarm3.logging.Logger;
+import javafx.scene.image.Image;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the asset pipeline.
+ *
+ * Every load strategy AssetManager tries (asset pack, ImageIO, magic byte
+ * detection, pack sprite, J2ME RGB, signature extraction, direct load, plain
+ * files and the extension fallback) records how often it ran, how often it
+ * produced an image and how long it took, whether it was probing or replaying
+ * the format index. Failed probes are timed too: that is where load time goes
+ * on numbered files that ImageIO cannot read.
+ *
+ * Cache hits/misses and retained bytes come from the ImageCache itself.
+ * Read everything at once with snapshot(), or over JMX (AssetMetricsMXBean).
+ * Recording is lock-free and safe from preloader and streaming workers.
+ */
+public class AssetMetrics implements AssetMetricsMXBean {
+    
+    private static final Logger LOG = Logger.get(AssetMetrics.class);
+    
+    /** JMX name the metrics are registered under */
+    public static final String OBJECT_NAME = "com.greenfarm3:type=AssetMetrics";
+    
+    /** Numbered resource served from the baked asset pack */
+    public static final String STRATEGY_PACK = "Pack";
+    /** Resource loaded by its file extension (e.g. /images/icon.png) */
+    public static final String STRATEGY_FILE = "File";
+    
+    /** Latency bucket upper bounds in microseconds; one more bucket catches everything slower */
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+        100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000
+    };
+    
+    private static final String[] STRATEGIES = {
+        STRATEGY_PACK, FormatIndex.STRATEGY_IMAGEIO, FormatIndex.STRATEGY_DETECTED, FormatIndex.STRATEGY_SPRITE,
+        FormatIndex.STRATEGY_J2ME, FormatIndex.STRATEGY_EXTRACTED, FormatIndex.STRATEGY_DIRECT,
+        STRATEGY_FILE, FormatIndex.STRATEGY_EXTENSION
+    };
+    
+    private final ImageCache images;
+    private final Map<String, Timer> timers; // Fixed at construction, read without locking
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesDecoded = new LongAdder();
+    private final LongAdder imagesDecoded = new LongAdder();
+    
+    /**
+     * Create metrics for an image cache
+     * @param images Cache whose hit/miss counters and sizes are reported
+     */
+    public AssetMetrics(ImageCache images) {
+        this.images = images;
+        Map<String, Timer> timers = new LinkedHashMap<>();
+        for (String strategy : STRATEGIES) {
+            timers.put(strategy, new Timer());
+        }
+        this.timers = Collections.unmodifiableMap(timers);
+    }
+    
+    /**
+     * Record one decode attempt and, if it succeeded, the pixel bytes it produced
+     * @param strategy Strategy name (FormatIndex.STRATEGY_* or STRATEGY_PACK/STRATEGY_FILE)
+     * @param startNanos System.nanoTime() before the attempt
+     * @param image Decoded image, or null if the attempt failed
+     */
+    public void recordDecode(String strategy, long startNanos, Image image) {
+        record(strategy, startNanos, image != null);
+        if (image != null) {
+            bytesDecoded.add(ImageCache.sizeOf(image));
+            imagesDecoded.increment();
+        }
+    }
+    
+    /**
+     * Record one attempt that does not decode by itself (e.g. the extension
+     * fallback, whose nested file load records its own bytes)
+     * @param strategy Strategy name
+     * @param startNanos System.nanoTime() before the attempt
+     * @param success Whether the attempt produced an image
+     */
+    public void record(String strategy, long startNanos, boolean success) {
+        Timer timer = timers.get(strategy);
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, success);
+        }
+    }
+    
+    /**
+     * Record encoded bytes read from the jar
+     * @param bytes Byte count
+     */
+    public void recordRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+    
+    /**
+     * Record a load that waited for an identical load already in progress
+     */
+    public void recordCoalesced() {
+        coalescedLoads.increment();
+    }
+    
+    /**
+     * Register with the platform MBean server so JMX clients can read the metrics
+     * @return true if registered (or already registered), false if JMX is unavailable
+     */
+    public boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+            return true;
+        } catch (Exception e) {
+            LOG.warn("Could not register {} - {}", OBJECT_NAME, e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Read every counter at once
+     * @return Immutable copy of the current values
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+    
+    @Override
+    public long getCacheHitCount() {
+        return images.getHitCount();
+    }
+    
+    @Override
+    public long getCacheMissCount() {
+        return images.getMissCount();
+    }
+    
+    @Override
+    public long getCacheWarmHitCount() {
+        return images.getWarmHitCount();
+    }
+    
+    @Override
+    public long getCacheEvictionCount() {
+        return images.getEvictionCount();
+    }
+    
+    @Override
+    public long getCoalescedLoadCount() {
+        return coalescedLoads.sum();
+    }
+    
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+    
+    @Override
+    public long getBytesDecoded() {
+        return bytesDecoded.sum();
+    }
+    
+    @Override
+    public long getImagesDecoded() {
+        return imagesDecoded.sum();
+    }
+    
+    @Override
+    public long getRetainedDecodedBytes() {
+        return images.getHotBytes();
+    }
+    
+    @Override
+    public long getRetainedEncodedBytes() {
+        return images.getWarmBytes();
+    }
+    
+    @Override
+    public long[] getLatencyBucketBoundsMicros() {
+        return BUCKET_BOUNDS_MICROS.clone();
+    }
+    
+    @Override
+    public List<StrategyStats> getStrategies() {
+        List<StrategyStats> stats = new ArrayList<>(timers.size());
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            stats.add(entry.getValue().stats(entry.getKey()));
+        }
+        return stats;
+    }
+    
+    /**
+     * Get one strategy's counters
+     * @param strategy Strategy name
+     * @return Stats, or null if the strategy is unknown
+     */
+    public StrategyStats getStrategy(String strategy) {
+        Timer timer = timers.get(strategy);
+        return timer != null ? timer.stats(strategy) : null;
+    }
+    
+    @Override
+    public void reset() {
+        for (Timer timer : timers.values()) {
+            timer.reset();
+        }
+        coalescedLoads.reset();
+        bytesRead.reset();
+        bytesDecoded.reset();
+        imagesDecoded.reset();
+        images.resetCounters();
+    }
+    
+    private static int bucketOf(long micros) {
+        for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+            if (micros <= BUCKET_BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MICROS.length;
+    }
+    
+    /**
+     * Live counters of one strategy
+     */
+    private static class Timer {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder successes = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+        
+        Timer() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+        
+        void record(long nanos, boolean success) {
+            attempts.increment();
+            if (success) {
+                successes.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            buckets[bucketOf(nanos / 1000)].increment();
+        }
+        
+        StrategyStats stats(String name) {
+            long[] histogram = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                histogram[i] = buckets[i].sum();
+            }
+            return new StrategyStats(name, attempts.sum(), successes.sum(),
+                totalNanos.sum() / 1000, maxNanos.get() / 1000, histogram);
+        }
+        
+        void reset() {
+            attempts.reset();
+            successes.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+    }
+    
+    /**
+     * Counters and latency histogram of one strategy at one point in time.
+     * The getters make it a JMX composite value.
+     */
+    public static class StrategyStats {
+        private final String name;
+        private final long attempts;
+        private final long successes;
+        private final long totalMicros;
+        private final long maxMicros;
+        private final long[] histogram;
+        
+        StrategyStats(String name, long attempts, long successes, long totalMicros, long maxMicros, long[] histogram) {
+            this.name = name;
+            this.attempts = attempts;
+            this.successes = successes;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+            this.histogram = histogram;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public long getAttempts() {
+            return attempts;
+        }
+        
+        public long getSuccesses() {
+            return successes;
+        }
+        
+        public long getFailures() {
+            return attempts - successes;
+        }
+        
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+        
+        public long getMeanMicros() {
+            return attempts > 0 ? totalMicros / attempts : 0;
+        }
+        
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+        
+        public long getP50Micros() {
+            return percentileMicros(0.50);
+        }
+        
+        public long getP99Micros() {
+            return percentileMicros(0.99);
+        }
+        
+        /**
+         * Attempt counts per latency bucket (see getLatencyBucketBoundsMicros)
+         * @return Copy of the histogram
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+        
+        /**
+         * Estimate a latency percentile from the histogram
+         * @param fraction Percentile as a fraction (0.5 for the median)
+         * @return Upper bound of the bucket holding that percentile, or the
+         *         maximum if it falls in the last bucket; 0 if nothing was recorded
+         */
+        public long percentileMicros(double fraction) {
+            long rank = (long) Math.ceil(attempts * fraction);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= rank && seen > 0) {
+                    return i < BUCKET_BOUNDS_MICROS.length ? Math.min(BUCKET_BOUNDS_MICROS[i], maxMicros) : maxMicros;
+                }
+            }
+            return 0;
+        }
+        
+        @Override
+        public String toString() {
+            return name + "[" + successes + "/" + attempts + " ok, " + (totalMicros / 1000) + " ms total, " +
+                   "p50 " + getP50Micros() + " us, p99 " + getP99Micros() + " us, max " + maxMicros + " us]";
+        }
+    }
+    
+    /**
+     * Every asset pipeline counter at one point in time
+     */
+    public static class Snapshot {
+        private final long cacheHits;
+        private final long cacheMisses;
+        private final long cacheWarmHits;
+        private final long cacheEvictions;
+        private final long coalescedLoads;
+        private final long bytesRead;
+        private final long bytesDecoded;
+        private final long imagesDecoded;
+        private final long retainedDecodedBytes;
+        private final long retainedEncodedBytes;
+        private final List<StrategyStats> strategies;
+        
+        private Snapshot(AssetMetrics metrics) {
+            this.cacheHits = metrics.getCacheHitCount();
+            this.cacheMisses = metrics.getCacheMissCount();
+            this.cacheWarmHits = metrics.getCacheWarmHitCount();
+            this.cacheEvictions = metrics.getCacheEvictionCount();
+            this.coalescedLoads = metrics.getCoalescedLoadCount();
+            this.bytesRead = metrics.getBytesRead();
+            this.bytesDecoded = metrics.getBytesDecoded();
+            this.imagesDecoded = metrics.getImagesDecoded();
+            this.retainedDecodedBytes = metrics.getRetainedDecodedBytes();
+            this.retainedEncodedBytes = metrics.getRetainedEncodedBytes();
+            this.strategies = Collections.unmodifiableList(metrics.getStrategies());
+        }
+        
+        public long getCacheHits() {
+            return cacheHits;
+        }
+        
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+        
+        public long getCacheWarmHits() {
+            return cacheWarmHits;
+        }
+        
+        public long getCacheEvictions() {
+            return cacheEvictions;
+        }
+        
+        public long getCoalescedLoads() {
+            return coalescedLoads;
+        }
+        
+        public long getBytesRead() {
+            return bytesRead;
+        }
+        
+        public long getBytesDecoded() {
+            return bytesDecoded;
+        }
+        
+        public long getImagesDecoded() {
+            return imagesDecoded;
+        }
+        
+        public long getRetainedDecodedBytes() {
+            return retainedDecodedBytes;
+        }
+        
+        public long getRetainedEncodedBytes() {
+            return retainedEncodedBytes;
+        }
+        
+        public List<StrategyStats> getStrategies() {
+            return strategies;
+        }
+        
+        /**
+         * Get one strategy's counters
+         * @param strategy Strategy name
+         * @return Stats, or null if the strategy is unknown
+         */
+        public StrategyStats getStrategy(String strategy) {
+            for (StrategyStats stats : strategies) {
+                if (stats.getName().equals(strategy)) {
+                    return stats;
+                }
+            }
+            return null;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("AssetMetrics[");
+            sb.append(cacheHits).append(" hits, ").append(cacheMisses).append(" misses, ")
+              .append(imagesDecoded).append(" decoded (").append(bytesDecoded / 1024).append(" KB), ")
+              .append(bytesRead / 1024).append(" KB read, ")
+              .append(retainedDecodedBytes / 1024).append(" KB + ")
+              .append(retainedEncodedBytes / 1024).append(" KB retained");
+            for (StrategyStats stats : strategies) {
+                if (stats.getAttempts() > 0) {
+                    sb.append(", ").append(stats);
+                }
+            }
+            return sb.append(']').toString();
+        }
+    }
+}
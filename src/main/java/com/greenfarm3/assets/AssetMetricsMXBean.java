@@ -0,0 +1,48 @@
+package com.greenfarm3.assets;
+
+import java.util.List;
+
+/**
+ * JMX view of the asset pipeline (see AssetMetrics).
+ * Registered as com.greenfarm3:type=AssetMetrics, so jconsole or any JMX
+ * client can see where load time goes in a running game.
+ */
+public interface AssetMetricsMXBean {
+    
+    /** Lookups answered from the decoded image tier */
+    long getCacheHitCount();
+    
+    /** Lookups that had to load */
+    long getCacheMissCount();
+    
+    /** Reads answered from the encoded file tier instead of the jar */
+    long getCacheWarmHitCount();
+    
+    long getCacheEvictionCount();
+    
+    /** Loads that waited for an identical load already in progress */
+    long getCoalescedLoadCount();
+    
+    /** Encoded bytes read from the jar */
+    long getBytesRead();
+    
+    /** Pixel bytes (width * height * 4) of every image decoded */
+    long getBytesDecoded();
+    
+    long getImagesDecoded();
+    
+    /** Decoded pixel bytes currently held by the cache */
+    long getRetainedDecodedBytes();
+    
+    /** Encoded file bytes currently held by the cache */
+    long getRetainedEncodedBytes();
+    
+    /** Upper bounds of the latency histogram buckets; the last bucket has no bound */
+    long[] getLatencyBucketBoundsMicros();
+    
+    /** Per-strategy attempts, successes and latency histograms */
+    List<AssetMetrics.StrategyStats> getStrategies();
+    
+    /** Zero the counters and histograms (cache contents are not touched) */
+    void reset();
+}
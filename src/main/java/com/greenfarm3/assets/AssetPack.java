@@ -0,0 +1,225 @@
+package com.greenfarm3.assets;
+
+import com.greenfarm3.logging.Logger;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only view of the asset pack baked at build time by AssetPackBuilder.
+ * The pack file is memory-mapped; a numbered resource is served by slicing its
+ * pre-decoded pixels, without probing formats or decoding anything at runtime.
+ *
+ * Pack layout (big-endian):
+ * - 4 bytes: magic "GFPK"
+ * - 4 bytes: version
+ * - 4 bytes: entry count
+ * - entry count * 20 bytes: index (id, offset, width, height, pixel format), sorted by id
+ * - pixel data, addressed by the index offsets
+ */
+public class AssetPack {
+    
+    public static final String DEFAULT_RESOURCE = "/packs/images.pack";
+    
+    static final int MAGIC = 0x4746504B; // "GFPK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int INDEX_ENTRY_SIZE = 20;
+    
+    /** No pixels; only older packs write it, and the loader then probes the file itself */
+    public static final int FORMAT_NONE = 0;
+    /** 32-bit premultiplied ARGB, one int per pixel */
+    public static final int FORMAT_INT_ARGB_PRE = 1;
+    
+    private static final Logger LOG = Logger.get(AssetPack.class);
+    private static final AssetPack EMPTY = new AssetPack(null, new int[0], new int[0], new int[0], new int[0], new int[0]);
+    
+    private final ByteBuffer buffer;
+    private final int[] ids;
+    private final int[] offsets;
+    private final int[] widths;
+    private final int[] heights;
+    private final int[] formats;
+    
+    private AssetPack(ByteBuffer buffer, int[] ids, int[] offsets, int[] widths, int[] heights, int[] formats) {
+        this.buffer = buffer;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.widths = widths;
+        this.heights = heights;
+        this.formats = formats;
+    }
+    
+    /**
+     * Open the pack bundled on the classpath.
+     * Returns an empty pack if it is missing or unreadable, so callers fall back to probing.
+     *
+     * @return Opened pack, never null
+     */
+    public static AssetPack openDefault() {
+        URL url = AssetPack.class.getResource(DEFAULT_RESOURCE);
+        if (url == null) {
+            return EMPTY;
+        }
+        
+        try {
+            return open(resolveMappableFile(url));
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            LOG.warn("Could not open {} - {}", DEFAULT_RESOURCE, e.getMessage());
+            return EMPTY;
+        }
+    }
+    
+    /**
+     * Open and memory-map a pack file.
+     *
+     * @param file Pack file
+     * @return Opened pack
+     * @throws IOException if the file cannot be mapped or is not a valid pack
+     */
+    public static AssetPack open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        
+        if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not an asset pack: " + file);
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw new IOException("Unsupported asset pack version " + mapped.getInt(4) + ": " + file);
+        }
+        
+        int count = mapped.getInt(8);
+        if (count < 0 || HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE > mapped.capacity()) {
+            throw new IOException("Corrupt asset pack index: " + file);
+        }
+        
+        int[] ids = new int[count];
+        int[] offsets = new int[count];
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        int[] formats = new int[count];
+        for (int i = 0; i < count; i++) {
+            int entry = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+            ids[i] = mapped.getInt(entry);
+            offsets[i] = mapped.getInt(entry + 4);
+            widths[i] = mapped.getInt(entry + 8);
+            heights[i] = mapped.getInt(entry + 12);
+            formats[i] = mapped.getInt(entry + 16);
+            
+            if (formats[i] == FORMAT_INT_ARGB_PRE &&
+                (long) offsets[i] + (long) widths[i] * heights[i] * 4 > mapped.capacity()) {
+                throw new IOException("Asset pack entry " + ids[i] + " out of bounds: " + file);
+            }
+        }
+        
+        return new AssetPack(mapped, ids, offsets, widths, heights, formats);
+    }
+    
+    /**
+     * Jar entries cannot be mapped directly, so copy them to a temp file once.
+     */
+    private static Path resolveMappableFile(URL url) throws IOException, URISyntaxException {
+        if ("file".equals(url.getProtocol())) {
+            return Paths.get(url.toURI());
+        }
+        
+        Path temp = Files.createTempFile("greenfarm3-", ".pack");
+        temp.toFile().deleteOnExit();
+        try (InputStream is = url.openStream()) {
+            Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return temp;
+    }
+    
+    /**
+     * Check if the pack has an entry for a resource. The builder only writes
+     * resources it decoded to an image; the others (non-images, and files that
+     * need the JavaFX toolkit to decode) are not in the pack.
+     * @param id Resource number
+     * @return true if the pack has this resource's image (or, in an older pack, a FORMAT_NONE entry)
+     */
+    public boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+    
+    /**
+     * Get the stored pixel format of a resource
+     * @param id Resource number
+     * @return FORMAT_* constant, or -1 if not in the pack
+     */
+    public int getFormat(int id) {
+        int index = indexOf(id);
+        return index >= 0 ? formats[index] : -1;
+    }
+    
+    /**
+     * Create an image for a resource from the mapped pixel data.
+     *
+     * @param id Resource number
+     * @return Image, or null if the resource is not in the pack or is not an image
+     */
+    public Image getImage(int id) {
+        int index = indexOf(id);
+        if (index < 0 || formats[index] != FORMAT_INT_ARGB_PRE) {
+            return null;
+        }
+        
+        int width = widths[index];
+        int height = heights[index];
+        IntBuffer pixels = slicePixels(index);
+        
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height,
+            PixelFormat.getIntArgbPreInstance(), pixels, width);
+        return image;
+    }
+    
+    /**
+     * Slice the pixels of an entry out of the mapped buffer (no copy).
+     */
+    private IntBuffer slicePixels(int index) {
+        int start = offsets[index];
+        int length = widths[index] * heights[index] * 4;
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start).limit(start + length);
+        return slice.slice().asIntBuffer();
+    }
+    
+    private int indexOf(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? index : -1;
+    }
+    
+    /**
+     * Get the number of entries in the pack
+     * @return Entry count (0 if no pack is available)
+     */
+    public int size() {
+        return ids.length;
+    }
+    
+    /**
+     * Check if a pack was found and mapped
+     * @return true if the pack has entries
+     */
+    public boolean isAvailable() {
+        return ids.length > 0;
+    }
+}
@@ -0,0 +1,186 @@
+package com.greenfarm3.assets;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Build-time tool that decodes the numbered resources once and bakes them into
+ * an asset pack (see AssetPack for the layout). Run by Maven in the process-classes phase.
+ * Does not touch the JavaFX toolkit, so it works in a headless build.
+ *
+ * Usage: AssetPackBuilder &lt;images dir&gt; &lt;output pack file&gt;
+ */
+public class AssetPackBuilder {
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPackBuilder <images dir> <output pack file>");
+            System.exit(2);
+        }
+        
+        Path sourceDir = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        build(sourceDir, output);
+    }
+    
+    /**
+     * Decode every numbered file in a directory and write the pack.
+     *
+     * @param sourceDir Directory containing numbered resource files
+     * @param output Pack file to write
+     * @throws IOException if reading or writing fails
+     */
+    public static void build(Path sourceDir, Path output) throws IOException {
+        Map<Integer, RGBImageParser.RGBImageData> decoded = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(sourceDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!Files.isRegularFile(file) || !name.matches("\\d+")) {
+                    continue;
+                }
+                decoded.put(Integer.parseInt(name), decode(Files.readAllBytes(file)));
+            }
+        }
+        
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        
+        // Files the builder could not decode are left out, so the game probes them itself
+        // (with the strategies that need the JavaFX toolkit) instead of trusting the pack
+        List<Integer> ids = new ArrayList<>();
+        for (Map.Entry<Integer, RGBImageParser.RGBImageData> entry : decoded.entrySet()) {
+            if (entry.getValue() != null) {
+                ids.add(entry.getKey());
+            }
+        }
+        int dataOffset = AssetPack.HEADER_SIZE + ids.size() * AssetPack.INDEX_ENTRY_SIZE;
+        int imageCount = 0;
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(AssetPack.MAGIC);
+            out.writeInt(AssetPack.VERSION);
+            out.writeInt(ids.size());
+            
+            // Index
+            int offset = dataOffset;
+            for (int id : ids) {
+                RGBImageParser.RGBImageData image = decoded.get(id);
+                out.writeInt(id);
+                out.writeInt(offset);
+                out.writeInt(image.width);
+                out.writeInt(image.height);
+                out.writeInt(AssetPack.FORMAT_INT_ARGB_PRE);
+                offset += image.width * image.height * 4;
+            }
+            
+            // Pixel data, premultiplied so it uploads as-is
+            for (int id : ids) {
+                RGBImageParser.RGBImageData image = decoded.get(id);
+                int pixelCount = image.width * image.height;
+                for (int i = 0; i < pixelCount; i++) {
+                    out.writeInt(ImageConverter.premultiply(image.rgb[i]));
+                }
+                imageCount++;
+            }
+        }
+        
+        System.out.println("[AssetPackBuilder] Wrote " + output + " (" + imageCount + " images, " +
+                          (decoded.size() - imageCount) + " files left to runtime probing)");
+    }
+    
+    /**
+     * Decode a resource to ARGB pixels using the same strategies as AssetManager,
+     * minus the ones that need the JavaFX toolkit.
+     *
+     * @param data Resource file data
+     * @return Decoded pixels, or null if the file is not an image (e.g. a pack file without a sprite)
+     */
+    static RGBImageParser.RGBImageData decode(byte[] data) {
+        // Strategy 1: ImageIO (standard formats)
+        RGBImageParser.RGBImageData image = decodeWithImageIO(data, 0, data.length);
+        if (image != null) {
+            return image;
+        }
+        
+        // Strategy 2: sprite section of a pack file, decoded from its header
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        J2MEResourceParser.PackTable table = J2MEResourceParser.parsePackTable(buffer);
+        if (table != null) {
+            for (int section = 0; section < table.getEntryCount(); section++) {
+                image = decodeSprite(J2MEResourceParser.readPackEntry(buffer, table, section));
+                if (image != null) {
+                    return image;
+                }
+            }
+            // Its other entries are not pixels: never guess dimensions from them (see AssetManager)
+            return null;
+        }
+        
+        // Strategy 3: J2ME offset table with RGB sections
+        if (J2MEResourceParser.isJ2MEFormat(buffer)) {
+            int[] offsets = J2MEResourceParser.parseOffsetTable(buffer);
+            if (offsets != null) {
+                for (int section = 0; section < offsets.length - 1; section++) {
+                    ByteBuffer sectionData = J2MEResourceParser.readDataSection(buffer, offsets, section);
+                    if (sectionData == null || !sectionData.hasRemaining()) {
+                        continue;
+                    }
+                    image = RGBImageParser.parseRGBArrayWithAutoDimensions(sectionData, true);
+                    if (image == null) {
+                        image = RGBImageParser.parseRGBArrayWithAutoDimensions(sectionData, false);
+                    }
+                    if (image != null) {
+                        return image;
+                    }
+                }
+            }
+        }
+        
+        // Strategy 4: embedded image behind a custom header, decoded from its exact bounds
+        for (EmbeddedImageIndex.Entry embedded : EmbeddedImageIndex.scan(data).getEntries()) {
+            image = decodeWithImageIO(data, embedded.offset, embedded.getLength());
+            if (image != null) {
+                return image;
+            }
+        }
+        
+        return null;
+    }
+    
+    private static RGBImageParser.RGBImageData decodeSprite(ByteBuffer entry) {
+        if (entry == null || entry.remaining() < 2 || (entry.get(0) & 0xFF) != SpriteBank.ENTRY_SPRITE) {
+            return null;
+        }
+        entry.position(1);
+        J2MESpriteParser.SpriteHeader header = J2MESpriteParser.parseHeader(entry);
+        int module = header != null ? header.getFirstImageModule() : -1;
+        return module >= 0 ? J2MESpriteParser.decodeRGB(header, module, 0) : null;
+    }
+    
+    private static RGBImageParser.RGBImageData decodeWithImageIO(byte[] data, int offset, int length) {
+        try {
+            BufferedImage bufferedImage = ByteSliceImageInputStream.decode(data, offset, length);
+            if (!ImageConverter.isValidBufferedImage(bufferedImage)) {
+                return null;
+            }
+            int width = bufferedImage.getWidth();
+            int height = bufferedImage.getHeight();
+            int[] rgb = bufferedImage.getRGB(0, 0, width, height, null, 0, width);
+            return new RGBImageParser.RGBImageData(rgb, width, height);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
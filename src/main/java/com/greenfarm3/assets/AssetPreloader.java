@@ -0,0 +1,151 @@
+package com.greenfarm3.assets;
+
+import javafx.scene.image.Image;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes independent assets on a pool of worker threads.
+ * Each request returns a CompletableFuture handle; progress can be polled
+ * from the game loop (e.g. MenuState) without ever blocking it.
+ */
+public class AssetPreloader {
+    
+    private final AssetManager assetManager;
+    private final ExecutorService workers;
+    private final List<CompletableFuture<Image>> pending;
+    private final AtomicInteger submittedCount;
+    private final AtomicInteger completedCount;
+    private final AtomicInteger loadedCount;
+    
+    /**
+     * Create a preloader with one worker per available core
+     * @param assetManager AssetManager that performs the actual decoding
+     */
+    public AssetPreloader(AssetManager assetManager) {
+        this(assetManager, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Create a preloader with a fixed number of workers
+     * @param assetManager AssetManager that performs the actual decoding
+     * @param threadCount Number of worker threads
+     */
+    public AssetPreloader(AssetManager assetManager, int threadCount) {
+        this.assetManager = assetManager;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threadCount), new WorkerThreadFactory("asset-loader-"));
+        this.pending = Collections.synchronizedList(new ArrayList<>());
+        this.submittedCount = new AtomicInteger();
+        this.completedCount = new AtomicInteger();
+        this.loadedCount = new AtomicInteger();
+    }
+    
+    /**
+     * Queue a numbered asset file for background decoding
+     * @param number The number of the asset file
+     * @return Future completed with the Image, or with null if the file is not an image
+     */
+    public CompletableFuture<Image> submit(int number) {
+        return track(CompletableFuture.supplyAsync(() -> assetManager.loadImageByNumber(number), workers));
+    }
+    
+    /**
+     * Queue an asset path for background decoding
+     * @param path Path to image resource (e.g., "/images/icon.png")
+     * @return Future completed with the Image, or with null if loading failed
+     */
+    public CompletableFuture<Image> submit(String path) {
+        return track(CompletableFuture.supplyAsync(() -> assetManager.loadImage(path), workers));
+    }
+    
+    private CompletableFuture<Image> track(CompletableFuture<Image> future) {
+        submittedCount.incrementAndGet();
+        pending.add(future);
+        future.whenComplete((image, error) -> {
+            if (error == null && image != null) {
+                loadedCount.incrementAndGet();
+            }
+            completedCount.incrementAndGet();
+        });
+        return future;
+    }
+    
+    /**
+     * Get a future that completes once every submitted asset has finished
+     * @return Future completed when all current requests are done
+     */
+    public CompletableFuture<Void> allDone() {
+        synchronized (pending) {
+            return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+        }
+    }
+    
+    /**
+     * Get loading progress
+     * @return Fraction of submitted assets that finished (0.0 to 1.0)
+     */
+    public double getProgress() {
+        int submitted = submittedCount.get();
+        if (submitted == 0) {
+            return 1.0;
+        }
+        return (double) completedCount.get() / submitted;
+    }
+    
+    /**
+     * Check if all submitted assets have finished
+     * @return true if nothing is left to decode
+     */
+    public boolean isDone() {
+        return completedCount.get() >= submittedCount.get();
+    }
+    
+    public int getSubmittedCount() {
+        return submittedCount.get();
+    }
+    
+    public int getCompletedCount() {
+        return completedCount.get();
+    }
+    
+    /**
+     * Get the number of requests that produced an image
+     * @return Number of successfully loaded images
+     */
+    public int getLoadedCount() {
+        return loadedCount.get();
+    }
+    
+    /**
+     * Stop accepting work. Requests already running finish normally.
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+    
+    /**
+     * Daemon worker threads so a pending decode never keeps the app alive.
+     */
+    static class WorkerThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        
+        WorkerThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+        
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.greenfarm3.assets;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * ImageIO input over a range of a byte array, read in place.
+ * ImageIO.read(InputStream) wraps its input in a caching stream that copies
+ * every byte it reads; reading the array directly avoids that copy and lets
+ * a decoder see exactly one embedded image (see EmbeddedImageIndex).
+ */
+final class ByteSliceImageInputStream extends ImageInputStreamImpl {
+    
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+    
+    /**
+     * @param data Array holding the image (not copied)
+     * @param offset Start of the image
+     * @param length Image length in bytes
+     */
+    ByteSliceImageInputStream(byte[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+    
+    /**
+     * Decode an image from a range of a byte array with the first ImageIO reader that accepts it
+     * @param data Array holding the image
+     * @param offset Start of the image
+     * @param length Image length in bytes
+     * @return Decoded image, or null if no reader understands the data
+     */
+    static BufferedImage decode(byte[] data, int offset, int length) throws IOException {
+        try (ByteSliceImageInputStream stream = new ByteSliceImageInputStream(data, offset, length)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                return reader.read(0, reader.getDefaultReadParam());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    @Override
+    public int read() {
+        bitOffset = 0;
+        if (streamPos >= length) {
+            return -1;
+        }
+        return data[offset + (int) streamPos++] & 0xFF;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) {
+        bitOffset = 0;
+        if (len == 0) {
+            return 0;
+        }
+        if (streamPos >= length) {
+            return -1;
+        }
+        int count = (int) Math.min(len, length - streamPos);
+        System.arraycopy(data, offset + (int) streamPos, b, off, count);
+        streamPos += count;
+        return count;
+    }
+    
+    @Override
+    public long length() {
+        return length;
+    }
+}
@@ -0,0 +1,392 @@
+package com.greenfarm3.assets;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every PNG, JPEG, GIF and BMP image embedded in a file, with exact bounds.
+ *
+ * The whole file is scanned once, eight bytes at a time: each word is tested
+ * for the first byte of all four signatures together (SWAR zero-lane test), and
+ * only the lanes that hit are checked further. A candidate is accepted only if
+ * its structure can be walked to the end (PNG chunks to IEND, JPEG markers to
+ * EOI, GIF blocks to the trailer, BMP header file size), which gives each
+ * image's end offset and rejects stray signature bytes inside other data.
+ * Scanning resumes after each image, so thumbnails inside an image are not
+ * reported separately.
+ */
+public final class EmbeddedImageIndex {
+    
+    public static final EmbeddedImageIndex EMPTY = new EmbeddedImageIndex(new Entry[0], 0);
+    
+    private static final VarHandle WORDS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    
+    // First signature byte of each format, repeated in every byte lane
+    private static final long PNG_LANES = 0x89L * LOW_BITS;
+    private static final long JPEG_LANES = 0xFFL * LOW_BITS;
+    private static final long GIF_LANES = 'G' * LOW_BITS;
+    private static final long BMP_LANES = 'B' * LOW_BITS;
+    
+    private static final int PNG_IHDR = 0x49484452;
+    private static final int PNG_IEND = 0x49454E44;
+    
+    private final Entry[] entries;
+    private final int scannedLength;
+    
+    /**
+     * One embedded image
+     */
+    public static final class Entry {
+        /** Format name as used by FileTypeDetector ("PNG", "JPEG", "GIF", "BMP") */
+        public final String format;
+        /** Offset of the signature */
+        public final int offset;
+        /** Offset just past the last byte of the image */
+        public final int end;
+        
+        Entry(String format, int offset, int end) {
+            this.format = format;
+            this.offset = offset;
+            this.end = end;
+        }
+        
+        public int getLength() {
+            return end - offset;
+        }
+        
+        @Override
+        public String toString() {
+            return format + "[" + offset + ".." + end + ")";
+        }
+    }
+    
+    private EmbeddedImageIndex(Entry[] entries, int scannedLength) {
+        this.entries = entries;
+        this.scannedLength = scannedLength;
+    }
+    
+    /**
+     * Find every embedded image in a file
+     * @param data File contents
+     * @return Index of the images found, in file order (EMPTY if none)
+     */
+    public static EmbeddedImageIndex scan(byte[] data) {
+        if (data == null || data.length < 3) {
+            return EMPTY;
+        }
+        
+        List<Entry> found = new ArrayList<>();
+        int lastWord = data.length - Long.BYTES;
+        int i = 0;
+        while (i < data.length) {
+            if (i > lastWord) {
+                // Tail shorter than a word
+                Entry entry = match(data, i);
+                if (entry != null) {
+                    found.add(entry);
+                }
+                i = entry != null ? entry.end : i + 1;
+                continue;
+            }
+            
+            long word = (long) WORDS.get(data, i);
+            long hits = lanesEqual(word, PNG_LANES) | lanesEqual(word, JPEG_LANES) |
+                        lanesEqual(word, GIF_LANES) | lanesEqual(word, BMP_LANES);
+            int next = i + Long.BYTES;
+            while (hits != 0) {
+                int at = i + (Long.numberOfTrailingZeros(hits) >>> 3);
+                hits &= hits - 1;
+                Entry entry = match(data, at);
+                if (entry != null) {
+                    found.add(entry);
+                    next = entry.end;
+                    break;
+                }
+            }
+            i = next;
+        }
+        
+        return found.isEmpty() ? EMPTY : new EmbeddedImageIndex(found.toArray(new Entry[0]), data.length);
+    }
+    
+    /**
+     * Mark the byte lanes of a word that equal the pattern's byte.
+     * Every equal lane gets its high bit set; a lane just above an equal one may
+     * also be marked (borrow), so marked lanes are candidates, never misses.
+     */
+    private static long lanesEqual(long word, long pattern) {
+        long v = word ^ pattern;
+        return (v - LOW_BITS) & ~v & HIGH_BITS;
+    }
+    
+    /**
+     * Check for a complete image starting at an offset
+     * @return Entry with the image's bounds, or null if there is none
+     */
+    private static Entry match(byte[] data, int at) {
+        int end;
+        switch (data[at]) {
+            case (byte) 0x89:
+                end = FileTypeDetector.detectFormatAtOffset(data, at) != null ? pngEnd(data, at) : -1;
+                return end > 0 ? new Entry("PNG", at, end) : null;
+            case (byte) 0xFF:
+                end = FileTypeDetector.detectFormatAtOffset(data, at) != null ? jpegEnd(data, at) : -1;
+                return end > 0 ? new Entry("JPEG", at, end) : null;
+            case 'G':
+                end = isGIFAtOffset(data, at) ? gifEnd(data, at) : -1;
+                return end > 0 ? new Entry("GIF", at, end) : null;
+            case 'B':
+                end = at + 1 < data.length && data[at + 1] == 'M' ? bmpEnd(data, at) : -1;
+                return end > 0 ? new Entry("BMP", at, end) : null;
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Walk PNG chunks (length, type, data, CRC) from IHDR to IEND
+     */
+    private static int pngEnd(byte[] data, int at) {
+        long pos = at + 8;
+        boolean first = true;
+        while (pos + 12 <= data.length) {
+            int p = (int) pos;
+            long length = readInt(data, p) & 0xFFFFFFFFL;
+            int type = readInt(data, p + 4);
+            if (first ? type != PNG_IHDR : !isChunkType(type)) {
+                return -1;
+            }
+            first = false;
+            
+            pos += 12 + length;
+            if (type == PNG_IEND) {
+                return pos <= data.length ? (int) pos : -1;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean isChunkType(int type) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            int c = (type >>> shift) & 0xDF; // Upper-case
+            if (c < 'A' || c > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Walk JPEG marker segments to EOI, skipping entropy-coded data after each SOS
+     */
+    private static int jpegEnd(byte[] data, int at) {
+        int pos = at + 2;
+        while (pos + 1 < data.length) {
+            if (data[pos] != (byte) 0xFF) {
+                return -1;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                pos++; // Fill byte
+                continue;
+            }
+            if (marker == 0xD9) {
+                return pos + 2; // EOI
+            }
+            if (marker == 0x00 || marker == 0xD8) {
+                return -1;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                pos += 2; // Markers without a length
+                continue;
+            }
+            
+            if (pos + 4 > data.length) {
+                return -1;
+            }
+            int length = ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+            if (length < 2) {
+                return -1;
+            }
+            pos += 2 + length;
+            
+            if (marker == 0xDA) {
+                // Entropy-coded data runs to the next marker that is not a stuffed 00 or a restart
+                while (pos + 1 < data.length) {
+                    if (data[pos] == (byte) 0xFF) {
+                        int next = data[pos + 1] & 0xFF;
+                        if (next != 0x00 && (next < 0xD0 || next > 0xD7)) {
+                            break;
+                        }
+                    }
+                    pos++;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean isGIFAtOffset(byte[] data, int at) {
+        return at + 6 <= data.length && data[at + 1] == 'I' && data[at + 2] == 'F' && data[at + 3] == '8' &&
+               (data[at + 4] == '7' || data[at + 4] == '9') && data[at + 5] == 'a';
+    }
+    
+    /**
+     * Walk GIF blocks (extensions and image descriptors) to the trailer
+     */
+    private static int gifEnd(byte[] data, int at) {
+        if (at + 13 > data.length) {
+            return -1;
+        }
+        int pos = at + 13 + colorTableSize(data[at + 10]);
+        while (pos < data.length) {
+            switch (data[pos]) {
+                case 0x3B: // Trailer
+                    return pos + 1;
+                case 0x21: // Extension: introducer, label, sub-blocks
+                    pos = skipSubBlocks(data, pos + 2);
+                    break;
+                case 0x2C: // Image descriptor, local color table, LZW code size, sub-blocks
+                    if (pos + 10 > data.length) {
+                        return -1;
+                    }
+                    pos = skipSubBlocks(data, pos + 10 + colorTableSize(data[pos + 9]) + 1);
+                    break;
+                default:
+                    return -1;
+            }
+            if (pos < 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+    
+    private static int colorTableSize(byte flags) {
+        return (flags & 0x80) != 0 ? 3 << ((flags & 0x07) + 1) : 0;
+    }
+    
+    private static int skipSubBlocks(byte[] data, int pos) {
+        while (pos < data.length) {
+            int size = data[pos] & 0xFF;
+            pos += size + 1;
+            if (size == 0) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Take the BMP file size from its header, after checking the header is plausible
+     */
+    private static int bmpEnd(byte[] data, int at) {
+        if (at + 18 > data.length) {
+            return -1;
+        }
+        long size = readIntLE(data, at + 2) & 0xFFFFFFFFL;
+        int reserved = readIntLE(data, at + 6);
+        long pixelOffset = readIntLE(data, at + 10) & 0xFFFFFFFFL;
+        int infoSize = readIntLE(data, at + 14);
+        boolean knownInfo = infoSize == 12 || infoSize == 40 || infoSize == 52 ||
+                            infoSize == 56 || infoSize == 64 || infoSize == 108 || infoSize == 124;
+        if (reserved != 0 || !knownInfo || pixelOffset < 14 + infoSize || pixelOffset >= size ||
+            size > data.length - at) {
+            return -1;
+        }
+        return (int) (at + size);
+    }
+    
+    private static int readInt(byte[] data, int pos) {
+        return ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16) |
+               ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+    }
+    
+    private static int readIntLE(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8) |
+               ((data[pos + 2] & 0xFF) << 16) | ((data[pos + 3] & 0xFF) << 24);
+    }
+    
+    /**
+     * Get the number of images found
+     * @return Image count
+     */
+    public int size() {
+        return entries.length;
+    }
+    
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+    
+    /**
+     * Get an image's bounds
+     * @param index Image index, in file order
+     * @return Entry, or null if the index is invalid
+     */
+    public Entry get(int index) {
+        return index >= 0 && index < entries.length ? entries[index] : null;
+    }
+    
+    /**
+     * Find the image that starts at an offset
+     * @param offset Offset of the image's signature
+     * @return Image index, or -1 if no image starts there
+     */
+    public int indexOfOffset(int offset) {
+        int low = 0;
+        int high = entries.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int at = entries[mid].offset;
+            if (at < offset) {
+                low = mid + 1;
+            } else if (at > offset) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Get the first image of one of the given formats
+     * @param formats Format names (e.g. "PNG", "JPEG")
+     * @return First matching entry in file order, or null if there is none
+     */
+    public Entry findFirst(String... formats) {
+        for (Entry entry : entries) {
+            for (String format : formats) {
+                if (format.equals(entry.format)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+    
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(Arrays.asList(entries));
+    }
+    
+    /**
+     * Get the length of the file that was scanned
+     * @return File length in bytes (0 if nothing was found)
+     */
+    public int getScannedLength() {
+        return scannedLength;
+    }
+    
+    @Override
+    public String toString() {
+        return "EmbeddedImageIndex{" + entries.length + " images in " + scannedLength + " bytes}";
+    }
+}
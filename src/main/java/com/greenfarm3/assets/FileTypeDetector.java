@@ -179,41 +179,15 @@ public class FileTypeDetector {
     /**
      * Find PNG or JPEG signature in file data by scanning through the file.
      * This is useful for files with custom headers where the image data starts at an offset.
+     * The whole file is searched (see EmbeddedImageIndex); use EmbeddedImageIndex.scan
+     * directly to get every embedded image and its end offset.
      * 
      * @param data Byte array containing file data
-     * @return Offset where signature was found, or -1 if not found
+     * @return Offset of the first complete PNG or JPEG image, or -1 if not found
      */
     public static int findImageSignatureInFile(byte[] data) {
-        if (data == null || data.length < 3) {
-            return -1;
-        }
-        
-        // Search first 1KB thoroughly (most custom headers are small)
-        int searchLimit = Math.min(1024, data.length - 8);
-        for (int i = 0; i < searchLimit; i++) {
-            if (isPNGAtOffset(data, i)) {
-                return i;
-            }
-            if (isJPEGAtOffset(data, i)) {
-                return i;
-            }
-        }
-        
-        // For larger files, sample at specific offsets
-        // This handles cases where header might be larger than 1KB
-        int[] sampleOffsets = {100, 500, 1000, 2000, 5000, 10000, 20000, 50000};
-        for (int offset : sampleOffsets) {
-            if (offset < data.length - 8) {
-                if (isPNGAtOffset(data, offset)) {
-                    return offset;
-                }
-                if (isJPEGAtOffset(data, offset)) {
-                    return offset;
-                }
-            }
-        }
-        
-        return -1; // Not found
+        EmbeddedImageIndex.Entry entry = EmbeddedImageIndex.scan(data).findFirst("PNG", "JPEG");
+        return entry != null ? entry.offset : -1;
     }
     
     /**
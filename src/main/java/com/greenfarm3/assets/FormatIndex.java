@@ -0,0 +1,228 @@
+package com.greenfarm3.assets;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.greenfarm3.logging.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Remembers which decoding strategy worked for each numbered resource, so the
+ * next load goes straight to the right decoder instead of probing every format.
+ * Entries are keyed by resource id and validated against a content hash, so an
+ * edited resource is probed again. Stored as JSON next to the saves directory.
+ */
+public class FormatIndex {
+    
+    private static final Logger LOG = Logger.get(FormatIndex.class);
+    private static final String INDEX_DIR = "cache";
+    private static final String INDEX_FILE = "format-index.json";
+    private static final int VERSION = 2;
+    
+    /** Decoded by ImageIO from the start of the file */
+    public static final String STRATEGY_IMAGEIO = "ImageIO";
+    /** Detected by FileTypeDetector and loaded by JavaFX */
+    public static final String STRATEGY_DETECTED = "Detected";
+    /** Sprite section of a pack file, decoded from its header */
+    public static final String STRATEGY_SPRITE = "Sprite";
+    /** RGB section of a J2ME offset table */
+    public static final String STRATEGY_J2ME = "J2ME";
+    /** PNG/JPEG embedded behind a custom header */
+    public static final String STRATEGY_EXTRACTED = "Extracted";
+    /** Loaded by JavaFX without format detection */
+    public static final String STRATEGY_DIRECT = "Direct";
+    /** Base file missing, found with a file extension */
+    public static final String STRATEGY_EXTENSION = "Extension";
+    /** Not an image, skip without probing */
+    public static final String STRATEGY_NONE = "None";
+    
+    /** Hash recorded for resources whose base file does not exist */
+    public static final long NO_CONTENT = -1L;
+    
+    private final Gson gson;
+    private final Path indexPath;
+    private final Map<Integer, Entry> entries;
+    private volatile boolean dirty;
+    
+    /**
+     * Create an index stored in the default location (cache/format-index.json)
+     */
+    public FormatIndex() {
+        this(Paths.get(INDEX_DIR, INDEX_FILE));
+    }
+    
+    /**
+     * Create an index stored in a specific file
+     * @param indexPath JSON file to load from and save to
+     */
+    public FormatIndex(Path indexPath) {
+        this.gson = new GsonBuilder()
+            .setPrettyPrinting()
+            .create();
+        this.indexPath = indexPath;
+        this.entries = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Load entries from disk. A missing, outdated or corrupt file leaves the index empty.
+     */
+    public void load() {
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        
+        try {
+            String json = new String(Files.readAllBytes(indexPath), StandardCharsets.UTF_8);
+            IndexFile file = gson.fromJson(json, IndexFile.class);
+            if (file == null || file.version != VERSION || file.entries == null) {
+                return;
+            }
+            entries.putAll(file.entries);
+        } catch (IOException | JsonParseException e) {
+            LOG.warn("Could not read {} - {}", indexPath, e.getMessage());
+        }
+    }
+    
+    /**
+     * Write entries to disk if anything changed since the last save.
+     * Writes to a temp file first so a crash never leaves a half-written index.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        
+        IndexFile file = new IndexFile();
+        file.version = VERSION;
+        file.entries = new TreeMap<>(entries);
+        
+        try {
+            if (indexPath.getParent() != null) {
+                Files.createDirectories(indexPath.getParent());
+            }
+            Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+            Files.write(temp, gson.toJson(file).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            dirty = true;
+            LOG.warn("Could not write {} - {}", indexPath, e.getMessage());
+        }
+    }
+    
+    /**
+     * Look up a resource, ignoring entries recorded for different content
+     * @param id Resource number
+     * @param contentHash Hash of the current file contents (see hash())
+     * @return Matching entry, or null if the resource has to be probed
+     */
+    public Entry lookup(int id, long contentHash) {
+        Entry entry = entries.get(id);
+        if (entry == null || entry.hash != contentHash || entry.strategy == null) {
+            return null;
+        }
+        return entry;
+    }
+    
+    /**
+     * Record how a resource was resolved
+     * @param id Resource number
+     * @param entry Resolution details (hash and strategy must be set)
+     */
+    public void record(int id, Entry entry) {
+        Entry previous = entries.put(id, entry);
+        if (!entry.equals(previous)) {
+            dirty = true;
+        }
+    }
+    
+    /**
+     * Drop a stale entry, e.g. after its recorded decoder failed
+     * @param id Resource number
+     */
+    public void invalidate(int id) {
+        if (entries.remove(id) != null) {
+            dirty = true;
+        }
+    }
+    
+    /**
+     * Hash file contents for validating entries
+     * @param data File contents
+     * @return CRC32 of the data combined with its length
+     */
+    public static long hash(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return ((long) data.length << 32) | crc.getValue();
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * How a numbered resource was resolved. Fields that do not apply to the
+     * strategy are left at their defaults.
+     */
+    public static class Entry {
+        public long hash;
+        public String strategy;
+        /** J2ME/Sprite: section index */
+        public int section;
+        /** J2ME/Sprite: decoded dimensions (J2ME: bytes per pixel follow from the section size) */
+        public int width;
+        public int height;
+        /** Extracted: offset of the embedded image signature */
+        public int offset;
+        /** Detected/Extracted: format name; Extension: file extension */
+        public String format;
+        
+        public Entry() {
+        }
+        
+        public Entry(long hash, String strategy) {
+            this.hash = hash;
+            this.strategy = strategy;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return hash == other.hash && section == other.section && width == other.width &&
+                   height == other.height && offset == other.offset &&
+                   Objects.equals(strategy, other.strategy) &&
+                   Objects.equals(format, other.format);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(hash, strategy, section, width, height, offset, format);
+        }
+    }
+    
+    /**
+     * On-disk layout
+     */
+    private static class IndexFile {
+        int version;
+        Map<Integer, Entry> entries;
+    }
+}
@@ -0,0 +1,162 @@
+package com.greenfarm3.assets;
+
+import com.greenfarm3.logging.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands results of background decoding to the game loop in per-frame batches.
+ *
+ * Workers queue a completion task (many producers); the game loop runs them
+ * from drain() once per frame (one consumer) until the frame budget is spent,
+ * and leaves the rest for the next frame. When hundreds of sections finish
+ * together they become visible over a few frames instead of stalling one.
+ *
+ * The queue is bounded: a full queue makes workers wait, which slows decoding
+ * down to what the game loop takes in. If the game loop stops draining (e.g.
+ * the window is closing), a worker gives up waiting and runs its task itself.
+ */
+public class FrameHandoff {
+    
+    private static final Logger LOG = Logger.get(FrameHandoff.class);
+    
+    /** Default queue capacity in tasks */
+    public static final int DEFAULT_CAPACITY = 256;
+    /** Default time per frame spent on handed-off tasks: 2 ms of a 16.7 ms frame */
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 2_000_000L;
+    
+    // How long a worker waits for room before running its task itself
+    private static final long FULL_WAIT_MILLIS = 250;
+    
+    private final BlockingQueue<Runnable> queue;
+    private volatile long frameBudgetNanos;
+    private volatile Thread consumer; // Thread that last drained (the game loop)
+    
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private long drained;        // Game loop only
+    private long deferredFrames; // Frames that ended with tasks left over, game loop only
+    
+    public FrameHandoff() {
+        this(DEFAULT_CAPACITY, DEFAULT_FRAME_BUDGET_NANOS);
+    }
+    
+    /**
+     * Create a handoff queue
+     * @param capacity Maximum queued tasks before workers wait
+     * @param frameBudgetNanos Time per drain() after which remaining tasks wait for the next frame
+     */
+    public FrameHandoff(int capacity, long frameBudgetNanos) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+    
+    /**
+     * Queue a task for the game loop. Called from worker threads; waits while the
+     * queue is full. Called from the game loop itself, the task runs immediately.
+     * @param task Completion work (e.g. completing a future the game polls)
+     */
+    public void submit(Runnable task) {
+        submitted.incrementAndGet();
+        if (Thread.currentThread() == consumer) {
+            task.run();
+            return;
+        }
+        
+        try {
+            if (queue.offer(task, FULL_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Nobody is draining; completing off the game loop beats never completing
+        bypassed.incrementAndGet();
+        task.run();
+    }
+    
+    /**
+     * Run queued tasks until the frame budget is spent. Call once per frame from the game loop.
+     * At least one task runs per call, so the queue always makes progress.
+     * @return Number of tasks run
+     */
+    public int drain() {
+        consumer = Thread.currentThread();
+        long deadline = System.nanoTime() + frameBudgetNanos;
+        int ran = 0;
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOG.warn("Handed-off task failed", e);
+            }
+            ran++;
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        drained += ran;
+        if (!queue.isEmpty()) {
+            deferredFrames++;
+        }
+        return ran;
+    }
+    
+    /**
+     * Set the time per frame spent on handed-off tasks
+     * @param frameBudgetNanos Budget in nanoseconds
+     */
+    public void setFrameBudgetNanos(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+    
+    public long getFrameBudgetNanos() {
+        return frameBudgetNanos;
+    }
+    
+    /**
+     * Get the number of tasks waiting for the game loop
+     * @return Queued task count
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+    
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+    
+    /**
+     * Get the number of tasks run by drain() so far (read from the game loop)
+     * @return Drained task count
+     */
+    public long getDrainedCount() {
+        return drained;
+    }
+    
+    /**
+     * Get the number of frames whose budget ran out with tasks still queued (read from the game loop)
+     * @return Deferred frame count
+     */
+    public long getDeferredFrameCount() {
+        return deferredFrames;
+    }
+    
+    /**
+     * Get the number of tasks that ran on a worker because the queue stayed full
+     * @return Bypassed task count
+     */
+    public long getBypassedCount() {
+        return bypassed.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "FrameHandoff{" + getPendingCount() + " pending, " + submitted.get() + " submitted, " +
+               bypassed.get() + " bypassed}";
+    }
+}
@@ -0,0 +1,429 @@
+package com.greenfarm3.assets;
+
+import javafx.scene.image.Image;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Byte-budgeted image cache with two in-memory tiers:
+ * - hot: decoded images, charged width * height * 4 bytes each
+ * - warm: encoded file contents, charged their length, so an evicted image
+ *   can be decoded again without reading the jar
+ * The jar resource itself is the cold tier. Each tier evicts least recently
+ * used entries once its budget is exceeded.
+ * Numbered resources are keyed by AssetId; canonical ids live in an array
+ * slot instead of the map, so a hit is an array read plus an access stamp.
+ * Every hot entry carries a stamp from one counter, and eviction drops the
+ * entry with the oldest stamp, wherever it lives.
+ * All methods are synchronized; preloader workers and the FX thread share one cache.
+ */
+public class ImageCache {
+    
+    /** Default hot tier budget: 64 MB of decoded pixels */
+    public static final long DEFAULT_HOT_BUDGET = 64L * 1024 * 1024;
+    /** Default warm tier budget: 8 MB of encoded resources */
+    public static final long DEFAULT_WARM_BUDGET = 8L * 1024 * 1024;
+    
+    private final LinkedHashMap<Object, HotEntry> hot; // Keyed by path String or non-canonical AssetId
+    private final Image[] numbered; // Hot images of canonical AssetIds, by number
+    private final long[] numberedStamps; // Last access of each numbered slot
+    private int numberedCount;
+    private long clock; // Source of access stamps
+    private final LinkedHashMap<String, byte[]> warm;
+    private long hotBudget;
+    private long warmBudget;
+    private long hotBytes;
+    private long warmBytes;
+    
+    private long hits;
+    private long warmHits;
+    private long misses;
+    private long evictions;
+    
+    /**
+     * A hot map entry and its last access
+     */
+    private static class HotEntry {
+        final Image image;
+        long stamp;
+        
+        HotEntry(Image image, long stamp) {
+            this.image = image;
+            this.stamp = stamp;
+        }
+    }
+    
+    public ImageCache() {
+        this(DEFAULT_HOT_BUDGET, DEFAULT_WARM_BUDGET);
+    }
+    
+    /**
+     * Create a cache with specific budgets
+     * @param hotBudget Maximum bytes of decoded images
+     * @param warmBudget Maximum bytes of encoded resources
+     */
+    public ImageCache(long hotBudget, long warmBudget) {
+        // Access order: iteration starts at the least recently used entry (the oldest stamp)
+        this.hot = new LinkedHashMap<>(64, 0.75f, true);
+        this.numbered = new Image[AssetId.MAX_CANONICAL];
+        this.numberedStamps = new long[AssetId.MAX_CANONICAL];
+        this.warm = new LinkedHashMap<>(16, 0.75f, true);
+        this.hotBudget = hotBudget;
+        this.warmBudget = warmBudget;
+    }
+    
+    /**
+     * Get a decoded image, counting a hit or miss
+     * @param key Cache key
+     * @return Cached Image, or null if not in the hot tier
+     */
+    public synchronized Image get(String key) {
+        return count(lookup((Object) key));
+    }
+    
+    /**
+     * Get a decoded numbered image, counting a hit or miss
+     * @param id Numbered resource
+     * @return Cached Image, or null if not in the hot tier
+     */
+    public synchronized Image get(AssetId id) {
+        return count(lookup(id));
+    }
+    
+    /**
+     * Get a decoded image without counting a hit or miss
+     * (for re-checks inside a load that already missed)
+     * @param key Cache key
+     * @return Cached Image, or null if not in the hot tier
+     */
+    public synchronized Image peek(String key) {
+        return lookup((Object) key);
+    }
+    
+    /**
+     * Get a decoded numbered image without counting a hit or miss
+     * @param id Numbered resource
+     * @return Cached Image, or null if not in the hot tier
+     */
+    public synchronized Image peek(AssetId id) {
+        return lookup(id);
+    }
+    
+    private Image lookup(AssetId id) {
+        int number = id.getNumber();
+        if (!AssetId.isCanonical(number)) {
+            return lookup((Object) id);
+        }
+        Image image = numbered[number];
+        if (image != null) {
+            numberedStamps[number] = ++clock;
+        }
+        return image;
+    }
+    
+    private Image lookup(Object key) {
+        HotEntry entry = hot.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.stamp = ++clock;
+        return entry.image;
+    }
+    
+    private Image count(Image image) {
+        if (image != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return image;
+    }
+    
+    public synchronized boolean containsKey(String key) {
+        return hot.containsKey(key);
+    }
+    
+    /**
+     * Add a decoded image, evicting least recently used images if over budget.
+     * Images larger than the whole budget are not cached.
+     * @param key Cache key
+     * @param image Decoded image
+     */
+    public synchronized void put(String key, Image image) {
+        putHot(key, image);
+    }
+    
+    /**
+     * Add a decoded numbered image, evicting least recently used images if over budget
+     * @param id Numbered resource
+     * @param image Decoded image
+     */
+    public synchronized void put(AssetId id, Image image) {
+        int number = id.getNumber();
+        if (!AssetId.isCanonical(number)) {
+            putHot(id, image);
+            return;
+        }
+        
+        long size = sizeOf(image);
+        if (size > hotBudget) {
+            return;
+        }
+        Image previous = numbered[number];
+        if (previous != null) {
+            hotBytes -= sizeOf(previous);
+        } else {
+            numberedCount++;
+        }
+        numbered[number] = image;
+        numberedStamps[number] = ++clock;
+        hotBytes += size;
+        evictHot(id);
+    }
+    
+    private void putHot(Object key, Image image) {
+        long size = sizeOf(image);
+        if (size > hotBudget) {
+            return;
+        }
+        
+        HotEntry previous = hot.put(key, new HotEntry(image, ++clock));
+        if (previous != null) {
+            hotBytes -= sizeOf(previous.image);
+        }
+        hotBytes += size;
+        evictHot(key);
+    }
+    
+    /**
+     * Get encoded file contents from the warm tier
+     * @param key Resource path
+     * @return File contents, or null if not cached
+     */
+    public synchronized byte[] getEncoded(String key) {
+        byte[] data = warm.get(key);
+        if (data != null) {
+            warmHits++;
+        }
+        return data;
+    }
+    
+    /**
+     * Keep encoded file contents in the warm tier, evicting least recently used if over budget
+     * @param key Resource path
+     * @param data File contents (not copied, must not be modified afterwards)
+     */
+    public synchronized void putEncoded(String key, byte[] data) {
+        if (data.length > warmBudget) {
+            return;
+        }
+        
+        byte[] previous = warm.put(key, data);
+        if (previous != null) {
+            warmBytes -= previous.length;
+        }
+        warmBytes += data.length;
+        evictWarm(key);
+    }
+    
+    /**
+     * Change the budgets, evicting immediately if the cache is now over them
+     * @param hotBudget Maximum bytes of decoded images
+     * @param warmBudget Maximum bytes of encoded resources
+     */
+    public synchronized void setBudget(long hotBudget, long warmBudget) {
+        this.hotBudget = hotBudget;
+        this.warmBudget = warmBudget;
+        evictHot(null);
+        evictWarm(null);
+    }
+    
+    /**
+     * Drop least recently used images until the hot tier fits its budget
+     * @param keep Key that was just added and must stay (may be null)
+     */
+    private void evictHot(Object keep) {
+        Iterator<Map.Entry<Object, HotEntry>> it = hot.entrySet().iterator();
+        Map.Entry<Object, HotEntry> eldest = null;
+        while (hotBytes > hotBudget) {
+            if (eldest == null && it.hasNext()) {
+                eldest = it.next();
+                if (eldest.getKey().equals(keep)) {
+                    eldest = null;
+                    continue;
+                }
+            }
+            
+            int slot = oldestSlot(keep);
+            if (eldest != null && (slot < 0 || eldest.getValue().stamp < numberedStamps[slot])) {
+                hotBytes -= sizeOf(eldest.getValue().image);
+                it.remove();
+                eldest = null;
+            } else if (slot >= 0) {
+                hotBytes -= sizeOf(numbered[slot]);
+                clearSlot(slot);
+            } else {
+                break;
+            }
+            evictions++;
+        }
+    }
+    
+    /**
+     * Find the numbered slot with the oldest access (a scan, but only while evicting)
+     * @param keep Key that must stay (may be null)
+     * @return Slot number, or -1 if no other slot is filled
+     */
+    private int oldestSlot(Object keep) {
+        int keepNumber = keep instanceof AssetId ? ((AssetId) keep).getNumber() : -1;
+        int oldest = -1;
+        for (int i = 0; i < numbered.length && numberedCount > 0; i++) {
+            if (numbered[i] != null && i != keepNumber && (oldest < 0 || numberedStamps[i] < numberedStamps[oldest])) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+    
+    private Image clearSlot(int number) {
+        Image previous = numbered[number];
+        if (previous != null) {
+            numbered[number] = null;
+            numberedCount--;
+        }
+        return previous;
+    }
+    
+    /**
+     * Drop least recently used encoded resources until the warm tier fits its budget
+     * @param keep Key that was just added and must stay (may be null)
+     */
+    private void evictWarm(String keep) {
+        Iterator<Map.Entry<String, byte[]>> it = warm.entrySet().iterator();
+        while (warmBytes > warmBudget && it.hasNext()) {
+            Map.Entry<String, byte[]> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            warmBytes -= eldest.getValue().length;
+            it.remove();
+            evictions++;
+        }
+    }
+    
+    /**
+     * Drop one resource from both tiers (e.g. after its file changed)
+     * @param key Resource path
+     * @return Decoded image that was cached, or null
+     */
+    public synchronized Image remove(String key) {
+        removeEncoded(key);
+        return removeHot(key);
+    }
+    
+    /**
+     * Drop one numbered resource from both tiers
+     * @param id Numbered resource
+     * @return Decoded image that was cached, or null
+     */
+    public synchronized Image remove(AssetId id) {
+        removeEncoded(id.getPath());
+        if (!AssetId.isCanonical(id.getNumber())) {
+            return removeHot(id);
+        }
+        Image previous = clearSlot(id.getNumber());
+        if (previous != null) {
+            hotBytes -= sizeOf(previous);
+        }
+        return previous;
+    }
+    
+    private Image removeHot(Object key) {
+        HotEntry previous = hot.remove(key);
+        if (previous == null) {
+            return null;
+        }
+        hotBytes -= sizeOf(previous.image);
+        return previous.image;
+    }
+    
+    private void removeEncoded(String key) {
+        byte[] previous = warm.remove(key);
+        if (previous != null) {
+            warmBytes -= previous.length;
+        }
+    }
+    
+    /**
+     * Clear both tiers. Counters are kept.
+     */
+    public synchronized void clear() {
+        hot.clear();
+        Arrays.fill(numbered, null);
+        numberedCount = 0;
+        warm.clear();
+        hotBytes = 0;
+        warmBytes = 0;
+    }
+    
+    /**
+     * Zero the hit, miss and eviction counters. Cached entries are kept.
+     */
+    public synchronized void resetCounters() {
+        hits = 0;
+        warmHits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+    
+    /**
+     * Get the number of decoded images cached
+     * @return Hot tier entry count
+     */
+    public synchronized int size() {
+        return hot.size() + numberedCount;
+    }
+    
+    /**
+     * Bytes charged for a decoded image
+     * @param image Image
+     * @return width * height * 4
+     */
+    static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4L;
+    }
+    
+    public synchronized long getHotBytes() {
+        return hotBytes;
+    }
+    
+    public synchronized long getWarmBytes() {
+        return warmBytes;
+    }
+    
+    public synchronized long getHitCount() {
+        return hits;
+    }
+    
+    public synchronized long getWarmHitCount() {
+        return warmHits;
+    }
+    
+    public synchronized long getMissCount() {
+        return misses;
+    }
+    
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "ImageCache[" + size() + " images, " + (hotBytes / 1024) + "/" + (hotBudget / 1024) + " KB hot, " +
+               warm.size() + " encoded, " + (warmBytes / 1024) + "/" + (warmBudget / 1024) + " KB warm, " +
+               hits + " hits, " + warmHits + " warm hits, " + misses + " misses, " + evictions + " evictions]";
+    }
+}
@@ -1,12 +1,14 @@
 package com.greenfarm3.assets;
 
+import com.greenfarm3.logging.Logger;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import javax.imageio.ImageIO;
+import java.awt.image.DataBufferInt;
+import java.nio.IntBuffer;
 
 /**
  * Utility class for converting between BufferedImage (AWT) and JavaFX Image.
@@ -14,47 +16,109 @@ import javax.imageio.ImageIO;
  */
 public class ImageConverter {
     
+    private static final Logger LOG = Logger.get(ImageConverter.class);
+    
     /**
      * Convert BufferedImage (from ImageIO) to JavaFX Image.
-     * Uses PNG encoding for lossless conversion.
+     * Copies the pixels straight into a WritableImage, no intermediate encode.
      * 
      * @param bufferedImage BufferedImage to convert
      * @return JavaFX Image, or null if conversion failed
      */
     public static Image bufferedImageToJavaFX(BufferedImage bufferedImage) {
-        if (bufferedImage == null) {
+        if (!isValidBufferedImage(bufferedImage)) {
             return null;
         }
         
-        return bufferedImageToJavaFXViaPNG(bufferedImage);
+        int width = bufferedImage.getWidth();
+        int height = bufferedImage.getHeight();
+        
+        // INT_ARGB_PRE already matches the JavaFX pixel layout - upload the raster as is
+        if (bufferedImage.getType() == BufferedImage.TYPE_INT_ARGB_PRE && 
+            bufferedImage.getRaster().getDataBuffer() instanceof DataBufferInt) {
+            int[] pixels = ((DataBufferInt) bufferedImage.getRaster().getDataBuffer()).getData();
+            WritableImage image = new WritableImage(width, height);
+            image.getPixelWriter().setPixels(0, 0, width, height, 
+                PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+            return image;
+        }
+        
+        // getRGB returns non-premultiplied ARGB for every image type
+        int[] argb = bufferedImage.getRGB(0, 0, width, height, null, 0, width);
+        return argbToJavaFX(argb, width, height, bufferedImage.getColorModel().hasAlpha());
     }
     
     /**
-     * Convert BufferedImage to JavaFX Image via PNG encoding.
-     * This method uses PNG encoding (lossless) to convert BufferedImage to JavaFX Image.
+     * Convert an ARGB int array straight into a JavaFX Image.
+     * Pixels are premultiplied row by row and written through a PixelWriter;
+     * fully opaque images are written in a single call. The source array is not modified.
      * 
-     * @param bufferedImage BufferedImage to convert
-     * @return JavaFX Image, or null if conversion failed
+     * @param argb Pixels in non-premultiplied ARGB format, row-major
+     * @param width Image width
+     * @param height Image height
+     * @param processAlpha Whether to keep the alpha channel (false forces opaque pixels)
+     * @return JavaFX Image, or null if the input is invalid
      */
-    private static Image bufferedImageToJavaFXViaPNG(BufferedImage bufferedImage) {
-        try {
-            // Write BufferedImage to PNG bytes
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(bufferedImage, "png", baos);
-            byte[] pngBytes = baos.toByteArray();
-            
-            // Load PNG bytes as JavaFX Image
-            Image javafxImage = new Image(new ByteArrayInputStream(pngBytes));
-            
-            if (javafxImage.isError()) {
-                return null;
-            }
-            
-            return javafxImage;
-        } catch (IOException e) {
-            System.err.println("[ImageConverter] Failed to convert via PNG: " + e.getMessage());
+    public static Image argbToJavaFX(int[] argb, int width, int height, boolean processAlpha) {
+        if (argb == null || width <= 0 || height <= 0 || argb.length < width * height) {
             return null;
         }
+        
+        WritableImage image = new WritableImage(width, height);
+        PixelWriter writer = image.getPixelWriter();
+        PixelFormat<IntBuffer> format = PixelFormat.getIntArgbPreInstance();
+        
+        // Opaque pixels are identical premultiplied or not
+        if (processAlpha && isOpaque(argb, width * height)) {
+            writer.setPixels(0, 0, width, height, format, argb, 0, width);
+            return image;
+        }
+        
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            if (processAlpha) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = premultiply(argb[offset + x]);
+                }
+            } else {
+                for (int x = 0; x < width; x++) {
+                    row[x] = argb[offset + x] | 0xFF000000;
+                }
+            }
+            writer.setPixels(0, y, width, 1, format, row, 0, width);
+        }
+        
+        return image;
+    }
+    
+    /**
+     * Check if every pixel has alpha = 255.
+     */
+    private static boolean isOpaque(int[] argb, int pixelCount) {
+        for (int i = 0; i < pixelCount; i++) {
+            if ((argb[i] >>> 24) != 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Convert one non-premultiplied ARGB pixel to premultiplied ARGB.
+     */
+    static int premultiply(int argb) {
+        int a = argb >>> 24;
+        if (a == 0xFF) {
+            return argb;
+        }
+        if (a == 0) {
+            return 0;
+        }
+        int r = ((argb >> 16) & 0xFF) * a + 127;
+        int g = ((argb >> 8) & 0xFF) * a + 127;
+        int b = (argb & 0xFF) * a + 127;
+        return (a << 24) | ((r + (r >> 8)) >> 8 << 16) | ((g + (g >> 8)) >> 8 << 8) | ((b + (b >> 8)) >> 8);
     }
     
     /**
@@ -73,10 +137,10 @@ public class ImageConverter {
             // Read pixel data from JavaFX Image and create BufferedImage
             // This is a simplified approach - for full implementation, would need to read pixels
             // For now, return null as this is not critical for image loading
-            System.out.println("[ImageConverter] javaFXImageToBufferedImage not fully implemented (not needed for loading)");
+            LOG.debug("javaFXImageToBufferedImage not fully implemented (not needed for loading)");
             return null;
         } catch (Exception e) {
-            System.err.println("[ImageConverter] Failed to convert JavaFX Image to BufferedImage: " + e.getMessage());
+            LOG.warn("Failed to convert JavaFX Image to BufferedImage: {}", e.getMessage());
             return null;
         }
     }
@@ -3,6 +3,12 @@ package com.greenfarm3.assets;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Parser for J2ME custom binary resource format.
@@ -12,6 +18,12 @@ import java.io.InputStream;
  * - 2 bytes: count (little-endian short)
  * - 4*count bytes: offset table (little-endian ints)
  * - Data sections starting after offset table
+ * 
+ * Each operation has a byte[] variant and a ByteBuffer variant. The ByteBuffer
+ * variants never copy: sections are returned as read-only slices of the input.
+ * 
+ * The numbered files shipped with the game use the pack layout instead
+ * (see parsePackTable), which SpriteBank reads.
  */
 public class J2MEResourceParser {
     
@@ -180,4 +192,310 @@ public class J2MEResourceParser {
         
         return count;
     }
+    
+    // ===== ByteBuffer variants (zero-copy) =====
+    
+    /**
+     * Memory-map a resource file for use with the ByteBuffer variants.
+     * 
+     * @param file File to map
+     * @return Read-only mapped buffer
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedByteBuffer mapFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+    
+    /**
+     * Parse offset table from J2ME resource data.
+     * Reads with absolute little-endian getShort/getInt; the buffer position is not changed.
+     * 
+     * @param data File data (position 0 = start of file)
+     * @return Array of offsets, or null if invalid
+     */
+    public static int[] parseOffsetTable(ByteBuffer data) {
+        if (data == null || data.remaining() < 2) {
+            return null;
+        }
+        
+        ByteBuffer le = littleEndian(data);
+        int length = le.remaining();
+        int count = le.getShort(0) & 0xFFFF;
+        
+        if (count > 10000) {
+            return null;
+        }
+        
+        int requiredSize = 2 + 4 * (count + 1);
+        if (length < requiredSize) {
+            return null;
+        }
+        
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i <= count; i++) {
+            offsets[i] = le.getInt(2 + i * 4);
+            
+            if (offsets[i] < 0 || offsets[i] > length) {
+                return null;
+            }
+        }
+        
+        return offsets;
+    }
+    
+    /**
+     * Get data section at given index as a read-only slice (no copy).
+     * 
+     * @param data Full file data
+     * @param offsets Offset table (from parseOffsetTable, has count+1 entries)
+     * @param index Index into offset table (0-based)
+     * @return Read-only little-endian slice of the section, or null if invalid index
+     */
+    public static ByteBuffer readDataSection(ByteBuffer data, int[] offsets, int index) {
+        if (data == null || offsets == null || index < 0 || index >= offsets.length - 1) {
+            return null;
+        }
+        
+        int headerSize = 2 + 4 * (offsets.length - 1);
+        int actualStart = headerSize + offsets[index];
+        int actualEnd = headerSize + offsets[index + 1];
+        
+        if (actualStart < 0 || actualEnd > data.remaining() || actualStart >= actualEnd) {
+            return null;
+        }
+        
+        ByteBuffer section = data.duplicate();
+        section.position(data.position() + actualStart).limit(data.position() + actualEnd);
+        return section.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     * Detect if data appears to be J2ME resource format.
+     * 
+     * @param data File data
+     * @return true if appears to be J2ME format
+     */
+    public static boolean isJ2MEFormat(ByteBuffer data) {
+        if (data == null || data.remaining() < 6) {
+            return false;
+        }
+        
+        ByteBuffer le = littleEndian(data);
+        int count = le.getShort(0) & 0xFFFF;
+        if (count > 10000 || le.remaining() < 2 + 4 * (count + 1)) {
+            return false;
+        }
+        
+        int firstOffset = le.getInt(2);
+        return firstOffset >= 0 && firstOffset <= le.remaining();
+    }
+    
+    /**
+     * Get the number of data sections in the file.
+     * 
+     * @param data File data
+     * @return Number of sections, or -1 if invalid format
+     */
+    public static int getSectionCount(ByteBuffer data) {
+        if (data == null || data.remaining() < 2) {
+            return -1;
+        }
+        
+        int count = littleEndian(data).getShort(0) & 0xFFFF;
+        return count > 10000 ? -1 : count;
+    }
+    
+    // ===== Pack tables (numbered resource files) =====
+    
+    /**
+     * Parse the pack table at the start of a numbered resource file.
+     * A resource's entries can be split over several pack files (e.g. 5, 5.1, 5.2, 5.3);
+     * the base file starts with the header and lists only its own entries:
+     * - 2 bytes: total entry count over all packs
+     * - 2 bytes: pack count
+     * - 2*packCount bytes: global index of the first entry of each pack
+     * - 4*(n+1) bytes: absolute file offsets of this file's n entries, plus the end offset
+     * The continuation files hold the other packs (see parsePartTable).
+     * Based on g.java in the original game. All values little-endian.
+     * 
+     * @param data File data (position 0 = start of file)
+     * @return Parsed table, or null if the data is not a pack file
+     */
+    public static PackTable parsePackTable(ByteBuffer data) {
+        if (data == null || data.remaining() < 4) {
+            return null;
+        }
+        
+        ByteBuffer le = littleEndian(data);
+        int length = le.remaining();
+        int total = le.getShort(0) & 0xFFFF;
+        int packCount = le.getShort(2) & 0xFFFF;
+        if (packCount == 0 || packCount > 64 || length < 4 + 2 * packCount) {
+            return null;
+        }
+        
+        int[] packStarts = new int[packCount];
+        for (int i = 0; i < packCount; i++) {
+            packStarts[i] = le.getShort(4 + 2 * i) & 0xFFFF;
+        }
+        
+        // The table describes the first pack; the others live in continuation files
+        int count = (packCount > 1 ? packStarts[1] : total) - packStarts[0];
+        int tableStart = 4 + 2 * packCount;
+        if (count <= 0 || count > total || length < tableStart + 4 * (count + 1)) {
+            return null;
+        }
+        
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i <= count; i++) {
+            offsets[i] = le.getInt(tableStart + 4 * i);
+            if (offsets[i] < 0 || offsets[i] > length || (i > 0 && offsets[i] < offsets[i - 1])) {
+                return null;
+            }
+        }
+        
+        // Entries start right after the table and the last one ends at end of file
+        if (offsets[0] != tableStart + 4 * (count + 1) || offsets[count] != length) {
+            return null;
+        }
+        
+        return new PackTable(total, packStarts, offsets);
+    }
+    
+    /**
+     * Parse the offset table of a continuation pack file (<n>.1, <n>.2, ...).
+     * These files have no header of their own: they start directly with the
+     * 4*(n+1) byte offset table of the pack's n entries (the count comes from
+     * the base file's header), followed by the entries.
+     * 
+     * @param data Continuation file data (position 0 = start of file)
+     * @param base Table of the resource's base file
+     * @param pack Pack index (1 for <n>.1)
+     * @return Table of the continuation file, or null if it does not match the base header
+     */
+    public static PackTable parsePartTable(ByteBuffer data, PackTable base, int pack) {
+        if (data == null || base == null || pack <= 0 || pack >= base.getPackCount()) {
+            return null;
+        }
+        
+        ByteBuffer le = littleEndian(data);
+        int length = le.remaining();
+        int count = base.getPackSize(pack);
+        if (count <= 0 || length < 4 * (count + 1)) {
+            return null;
+        }
+        
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i <= count; i++) {
+            offsets[i] = le.getInt(4 * i);
+            if (offsets[i] < 0 || offsets[i] > length || (i > 0 && offsets[i] < offsets[i - 1])) {
+                return null;
+            }
+        }
+        if (offsets[0] != 4 * (count + 1) || offsets[count] != length) {
+            return null;
+        }
+        
+        return new PackTable(base.totalCount, base.packStarts, offsets, pack);
+    }
+    
+    /**
+     * Get the resource path of one pack of a numbered resource
+     * @param basePath Path of the base file (e.g. "/images/5")
+     * @param pack Pack index
+     * @return basePath for pack 0, else basePath + "." + pack (as g.java builds it)
+     */
+    public static String getPackPath(String basePath, int pack) {
+        return pack == 0 ? basePath : basePath + "." + pack;
+    }
+    
+    /**
+     * Get one entry of a pack file as a read-only slice (no copy).
+     * 
+     * @param data Full file data
+     * @param table Pack table (from parsePackTable)
+     * @param index Entry index within this file (0-based)
+     * @return Read-only little-endian slice of the entry, or null if invalid index
+     */
+    public static ByteBuffer readPackEntry(ByteBuffer data, PackTable table, int index) {
+        if (data == null || table == null || index < 0 || index >= table.getEntryCount()) {
+            return null;
+        }
+        
+        ByteBuffer entry = data.duplicate();
+        entry.position(data.position() + table.offsets[index]).limit(data.position() + table.offsets[index + 1]);
+        return entry.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     * Header of a numbered resource pack file.
+     */
+    public static class PackTable {
+        /** Entry count over all packs of the resource */
+        public final int totalCount;
+        /** Global index of the first entry of each pack */
+        public final int[] packStarts;
+        /** Absolute offsets of this file's entries, plus the end offset */
+        public final int[] offsets;
+        /** Pack held by this file (0 for the base file) */
+        public final int pack;
+        
+        public PackTable(int totalCount, int[] packStarts, int[] offsets) {
+            this(totalCount, packStarts, offsets, 0);
+        }
+        
+        public PackTable(int totalCount, int[] packStarts, int[] offsets, int pack) {
+            this.totalCount = totalCount;
+            this.packStarts = packStarts;
+            this.offsets = offsets;
+            this.pack = pack;
+        }
+        
+        public int getPackCount() {
+            return packStarts.length;
+        }
+        
+        /**
+         * Get the number of entries in one pack
+         * @param pack Pack index
+         * @return Entry count
+         */
+        public int getPackSize(int pack) {
+            int end = pack + 1 < packStarts.length ? packStarts[pack + 1] : totalCount;
+            return end - packStarts[pack];
+        }
+        
+        /**
+         * Find the pack holding a global entry index
+         * @param index Global entry index
+         * @return Pack index, or -1 if out of range
+         */
+        public int findPack(int index) {
+            if (index < 0 || index >= totalCount) {
+                return -1;
+            }
+            int pack = packStarts.length - 1;
+            while (pack > 0 && packStarts[pack] > index) {
+                pack--;
+            }
+            return pack;
+        }
+        
+        /**
+         * Get the number of entries stored in this file
+         * @return Entry count
+         */
+        public int getEntryCount() {
+            return offsets.length - 1;
+        }
+    }
+    
+    /**
+     * Little-endian view of the remaining bytes, indexed from 0 (shares content, no copy).
+     */
+    private static ByteBuffer littleEndian(ByteBuffer data) {
+        return data.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
 }
@@ -0,0 +1,697 @@
+package com.greenfarm3.assets;
+
+import javafx.scene.image.Image;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Parser for the sprite sections of numbered resource files.
+ * Based on e.java in the original game (the sprite class), which loads these sections.
+ *
+ * Unlike RGBImageParser.detectDimensions, nothing is guessed: the section header
+ * lists every module (sub-image) with its width and height, the palettes and the
+ * pixel encoding, so each module is decoded exactly once, straight into a
+ * caller-supplied int[] (see SpriteHeader.decodeModule).
+ *
+ * Section layout (all values little-endian, sizes depend on the flags):
+ * - 2 bytes: version
+ * - 4 bytes: flags
+ * - modules: count, then per module a type byte, type-specific fields and width/height
+ * - frame modules, frame rects, frames, animation frames, animations (skipped here)
+ * - if FLAG_IMAGE_DATA: pixel format, palettes, data format, then one pixel stream per module
+ */
+public class J2MESpriteParser {
+    
+    // Header flags (from e.java)
+    static final int FLAG_MODULE_PALETTE = 0x4;
+    static final int FLAG_MODULE_SIZE_SHORT = 0x10;
+    static final int FLAG_DATA_LENGTH_INT = 0x80;
+    static final int FLAG_OFFSET_SHORT = 0x400;
+    static final int FLAG_FRAME_COUNT_SHORT = 0x800;
+    static final int FLAG_NO_FRAME_BOUNDS = 0x1000;
+    static final int FLAG_FRAME_RECTS = 0x8000;
+    static final int FLAG_AFRAME_OFFSET_SHORT = 0x40000;
+    static final int FLAG_MODULE_INDEX_SHORT = 0x100000;
+    static final int FLAG_IMAGE_DATA = 0x1000000;
+    static final int FLAG_PALETTE_GROUPS = 0x40000000;
+    
+    // Palette color formats
+    public static final int PIXEL_ARGB1555 = 0x5515;
+    public static final int PIXEL_RGB565 = 0x6505;
+    public static final int PIXEL_RGB888 = 0x8808;
+    
+    // Pixel stream encodings
+    /** Run-length: low bits are the color index, high bits the repeat count - 1 */
+    public static final int ENCODE_RLE = 0x64F0;
+    /** Run-length: byte > 127 is a run of (byte - 128) copies of the next index, else a single index */
+    public static final int ENCODE_I127_RLE = 0x27F1;
+    /** Run-length: signed byte < 0 is a literal run of (byte + 128) indices, else a run of one index */
+    public static final int ENCODE_I256_RLE = 0x56F2;
+    /** One byte per pixel */
+    public static final int ENCODE_I256 = 0x5602;
+    /** Two pixels per byte, high nibble first */
+    public static final int ENCODE_I16 = 0x1600;
+    /** Four pixels per byte, high bits first */
+    public static final int ENCODE_I4 = 0x0400;
+    /** Eight pixels per byte, high bit first */
+    public static final int ENCODE_I2 = 0x0200;
+    
+    /** Module type byte of image modules (other types are shapes drawn in code) */
+    public static final int MODULE_IMAGE = 0;
+    
+    private static final int MAX_MODULES = 4096;
+    private static final int MAX_MODULE_SIZE = 2048;
+    
+    /** Magenta is the transparent color key in all palette formats */
+    private static final int COLOR_KEY = 0xFF00FF;
+    
+    /** Per-thread decode buffers for decodeImage and decodeModule, grown as needed and never shrunk */
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[64 * 64]);
+    private static final ThreadLocal<byte[]> INDEX_SCRATCH = ThreadLocal.withInitial(() -> new byte[64 * 64]);
+    
+    /**
+     * Parse the header of a sprite section.
+     * Only the header is read; pixel streams are located but not decoded.
+     *
+     * @param data Sprite data (from position to limit, entry type byte already skipped); not moved
+     * @return Parsed header, or null if the data is not a sprite with image data
+     */
+    public static SpriteHeader parseHeader(ByteBuffer data) {
+        if (data == null || data.remaining() < 8) {
+            return null;
+        }
+        
+        ByteBuffer le = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return new Reader(le).readHeader();
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated section
+            return null;
+        }
+    }
+    
+    /**
+     * Decode the first image module of a sprite entry into a JavaFX Image.
+     * Usable as a SpriteBank.SectionDecoder.
+     *
+     * @param entry Entry slice: entry type byte followed by the sprite data
+     * @return Image, or null if the entry is not a sprite with an image module
+     */
+    public static Image decodeSection(ByteBuffer entry) {
+        if (entry == null || entry.remaining() < 2 || (entry.get(entry.position()) & 0xFF) != SpriteBank.ENTRY_SPRITE) {
+            return null;
+        }
+        
+        ByteBuffer payload = entry.duplicate();
+        payload.position(payload.position() + 1);
+        
+        SpriteHeader header = parseHeader(payload);
+        int module = header != null ? header.getFirstImageModule() : -1;
+        return module >= 0 ? decodeImage(header, module, 0) : null;
+    }
+    
+    /**
+     * Decode one module into a JavaFX Image, through a reused per-thread buffer.
+     *
+     * @param header Parsed header
+     * @param module Module index
+     * @param palette Palette index within the module's palette group
+     * @return Image, or null if the module could not be decoded
+     */
+    public static Image decodeImage(SpriteHeader header, int module, int palette) {
+        int pixelCount = header.getModulePixelCount(module);
+        if (pixelCount <= 0) {
+            return null;
+        }
+        
+        int[] scratch = SCRATCH.get();
+        if (scratch.length < pixelCount) {
+            scratch = new int[pixelCount];
+            SCRATCH.set(scratch);
+        }
+        
+        if (!header.decodeModule(module, palette, scratch, 0)) {
+            return null;
+        }
+        // argbToJavaFX copies the pixels, so the buffer can be reused right away
+        return ImageConverter.argbToJavaFX(scratch, header.getModuleWidth(module), header.getModuleHeight(module), true);
+    }
+    
+    /**
+     * Decode one module into a new pixel array of exactly its size.
+     *
+     * @param header Parsed header
+     * @param module Module index
+     * @param palette Palette index within the module's palette group
+     * @return Pixels with dimensions, or null if the module could not be decoded
+     */
+    public static RGBImageParser.RGBImageData decodeRGB(SpriteHeader header, int module, int palette) {
+        int pixelCount = header.getModulePixelCount(module);
+        if (pixelCount <= 0) {
+            return null;
+        }
+        
+        int[] rgb = new int[pixelCount];
+        if (!header.decodeModule(module, palette, rgb, 0)) {
+            return null;
+        }
+        return new RGBImageParser.RGBImageData(rgb, header.getModuleWidth(module), header.getModuleHeight(module));
+    }
+    
+    /**
+     * Decode one module as a paletted sprite (one index byte per pixel plus the
+     * palettes of its group), for recoloring at draw time.
+     *
+     * @param header Parsed header
+     * @param module Module index
+     * @return Paletted sprite, or null if the module could not be decoded
+     */
+    public static PalettedSprite decodePaletted(SpriteHeader header, int module) {
+        int pixelCount = header.getModulePixelCount(module);
+        if (pixelCount <= 0) {
+            return null;
+        }
+        
+        byte[] indices = new byte[pixelCount];
+        if (!header.decodeModuleIndices(module, indices, 0)) {
+            return null;
+        }
+        
+        int[][] palettes = new int[header.getPaletteCount(module)][];
+        for (int i = 0; i < palettes.length; i++) {
+            palettes[i] = header.getPalette(module, i);
+        }
+        return new PalettedSprite(header.getModuleWidth(module), header.getModuleHeight(module), indices, palettes);
+    }
+    
+    /**
+     * Parsed sprite header. Holds a view of the section data (no copy) so that
+     * modules can be decoded later, one at a time.
+     */
+    public static class SpriteHeader {
+        private final ByteBuffer data;
+        private final int flags;
+        private final int[] moduleTypes;
+        private final int[] moduleWidths;
+        private final int[] moduleHeights;
+        private final int[] moduleGroups;
+        private final int pixelFormat;
+        private final int[][][] palettes;
+        private final int encoding;
+        private final int[] runMasks;
+        private final int[] runShifts;
+        private final int[] dataOffsets;
+        private final int[] dataLengths;
+        
+        SpriteHeader(ByteBuffer data, int flags, int[] moduleTypes, int[] moduleWidths, int[] moduleHeights,
+                     int[] moduleGroups, int pixelFormat, int[][][] palettes, int encoding,
+                     int[] dataOffsets, int[] dataLengths) {
+            this.data = data;
+            this.flags = flags;
+            this.moduleTypes = moduleTypes;
+            this.moduleWidths = moduleWidths;
+            this.moduleHeights = moduleHeights;
+            this.moduleGroups = moduleGroups;
+            this.pixelFormat = pixelFormat;
+            this.palettes = palettes;
+            this.encoding = encoding;
+            this.dataOffsets = dataOffsets;
+            this.dataLengths = dataLengths;
+            
+            // ENCODE_RLE splits each byte into index and count by the palette size
+            this.runMasks = new int[palettes.length];
+            this.runShifts = new int[palettes.length];
+            for (int group = 0; group < palettes.length; group++) {
+                int colors = palettes[group].length > 0 ? palettes[group][0].length : 0;
+                int bits = 32 - Integer.numberOfLeadingZeros(Math.max(colors - 1, 0));
+                runMasks[group] = (1 << bits) - 1;
+                runShifts[group] = bits;
+            }
+        }
+        
+        /**
+         * Decode one module's pixel stream into ARGB pixels, row-major.
+         * Exactly width * height pixels are written; nothing is allocated
+         * beyond a per-thread index buffer.
+         *
+         * @param module Module index
+         * @param palette Palette index within the module's palette group
+         * @param dst Destination pixels
+         * @param dstOffset Index of the first destination pixel
+         * @return true if decoded, false if the module has no pixels or its stream is malformed
+         */
+        public boolean decodeModule(int module, int palette, int[] dst, int dstOffset) {
+            int pixelCount = getModulePixelCount(module);
+            int[] colors = getPalette(module, palette);
+            if (pixelCount <= 0 || colors == null || dst == null || dstOffset < 0 || dst.length - dstOffset < pixelCount) {
+                return false;
+            }
+            
+            byte[] indices = INDEX_SCRATCH.get();
+            if (indices.length < pixelCount) {
+                indices = new byte[pixelCount];
+                INDEX_SCRATCH.set(indices);
+            }
+            if (!decodeModuleIndices(module, indices, 0)) {
+                return false;
+            }
+            
+            PalettedSprite.expand(indices, 0, colors, dst, dstOffset, pixelCount);
+            return true;
+        }
+        
+        /**
+         * Decode one module's pixel stream into palette indices, row-major.
+         * Exactly width * height indices are written, each below getColorCount(module).
+         *
+         * @param module Module index
+         * @param dst Destination indices
+         * @param dstOffset Index of the first destination pixel
+         * @return true if decoded, false if the module has no pixels or its stream is malformed
+         */
+        public boolean decodeModuleIndices(int module, byte[] dst, int dstOffset) {
+            int pixelCount = getModulePixelCount(module);
+            int colorCount = getColorCount(module);
+            if (pixelCount <= 0 || colorCount <= 0 || dst == null || dstOffset < 0 ||
+                dst.length - dstOffset < pixelCount) {
+                return false;
+            }
+            
+            int src = dataOffsets[module];
+            int srcEnd = src + dataLengths[module];
+            try {
+                int written = decodeStream(moduleGroups[module], src, srcEnd, dst, dstOffset, pixelCount);
+                if (written != pixelCount) {
+                    return false;
+                }
+            } catch (IndexOutOfBoundsException e) {
+                // Stream overrun
+                return false;
+            }
+            
+            // Every index must resolve in every palette of the group
+            if (colorCount < 256) {
+                for (int i = dstOffset, end = dstOffset + pixelCount; i < end; i++) {
+                    if ((dst[i] & 0xFF) >= colorCount) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Expand a pixel stream into palette indices, stopping at pixelCount
+         * (trailing runs and padding nibbles are clipped).
+         * @return Number of pixels written
+         */
+        private int decodeStream(int group, int src, int srcEnd, byte[] dst, int dstOffset, int pixelCount) {
+            ByteBuffer in = data;
+            int d = dstOffset;
+            int end = dstOffset + pixelCount;
+            
+            switch (encoding) {
+                case ENCODE_RLE: {
+                    int mask = runMasks[group];
+                    int shift = runShifts[group];
+                    while (d < end && src < srcEnd) {
+                        int b = in.get(src++) & 0xFF;
+                        int runEnd = Math.min(end, d + (b >> shift) + 1);
+                        Arrays.fill(dst, d, runEnd, (byte) (b & mask));
+                        d = runEnd;
+                    }
+                    break;
+                }
+                case ENCODE_I127_RLE: {
+                    while (d < end && src < srcEnd) {
+                        byte b = in.get(src++);
+                        if ((b & 0xFF) > 127) {
+                            int runEnd = Math.min(end, d + (b & 0xFF) - 128);
+                            Arrays.fill(dst, d, runEnd, in.get(src++));
+                            d = runEnd;
+                        } else {
+                            dst[d++] = b;
+                        }
+                    }
+                    break;
+                }
+                case ENCODE_I256_RLE: {
+                    while (d < end && src < srcEnd) {
+                        int b = in.get(src++);
+                        if (b < 0) {
+                            // Literal run (at least one pixel)
+                            int count = Math.min(end - d, Math.max(b + 128, 1));
+                            in.get(src, dst, d, count);
+                            src += count;
+                            d += count;
+                        } else {
+                            int runEnd = Math.min(end, d + Math.max(b, 1));
+                            Arrays.fill(dst, d, runEnd, in.get(src++));
+                            d = runEnd;
+                        }
+                    }
+                    break;
+                }
+                case ENCODE_I256: {
+                    int count = Math.min(end - d, srcEnd - src);
+                    in.get(src, dst, d, count);
+                    d += count;
+                    break;
+                }
+                case ENCODE_I16:
+                case ENCODE_I4:
+                case ENCODE_I2: {
+                    int bits = encoding == ENCODE_I16 ? 4 : encoding == ENCODE_I4 ? 2 : 1;
+                    int mask = (1 << bits) - 1;
+                    while (d < end && src < srcEnd) {
+                        int b = in.get(src++) & 0xFF;
+                        for (int shift = 8 - bits; shift >= 0 && d < end; shift -= bits) {
+                            dst[d++] = (byte) ((b >> shift) & mask);
+                        }
+                    }
+                    break;
+                }
+                default:
+                    return 0;
+            }
+            return d - dstOffset;
+        }
+        
+        /**
+         * Get the first module that carries pixels
+         * @return Module index, or -1 if none
+         */
+        public int getFirstImageModule() {
+            for (int i = 0; i < moduleTypes.length; i++) {
+                if (getModulePixelCount(i) > 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Get the number of pixels a module decodes to
+         * @param module Module index
+         * @return width * height, or 0 if the module is not an image module with pixel data
+         */
+        public int getModulePixelCount(int module) {
+            if (module < 0 || module >= moduleTypes.length || moduleTypes[module] != MODULE_IMAGE ||
+                dataLengths[module] <= 0) {
+                return 0;
+            }
+            return moduleWidths[module] * moduleHeights[module];
+        }
+        
+        public int getModuleCount() {
+            return moduleTypes.length;
+        }
+        
+        public int getModuleType(int module) {
+            return moduleTypes[module];
+        }
+        
+        public int getModuleWidth(int module) {
+            return moduleWidths[module];
+        }
+        
+        public int getModuleHeight(int module) {
+            return moduleHeights[module];
+        }
+        
+        /**
+         * Get the number of palettes available to a module
+         * @param module Module index
+         * @return Palette count of the module's palette group
+         */
+        public int getPaletteCount(int module) {
+            int group = moduleGroups[module];
+            return group < palettes.length ? palettes[group].length : 0;
+        }
+        
+        /**
+         * Get the number of colors in each palette of a module's group
+         * @param module Module index
+         * @return Color count, or 0 if the module has no palettes
+         */
+        public int getColorCount(int module) {
+            return getPaletteCount(module) > 0 ? palettes[moduleGroups[module]][0].length : 0;
+        }
+        
+        /**
+         * Get one of a module's palettes (shared, must not be modified)
+         * @param module Module index
+         * @param palette Palette index within the module's palette group
+         * @return ARGB colors, or null if invalid
+         */
+        public int[] getPalette(int module, int palette) {
+            if (module < 0 || module >= moduleGroups.length || palette < 0 || palette >= getPaletteCount(module)) {
+                return null;
+            }
+            return palettes[moduleGroups[module]][palette];
+        }
+        
+        public int getFlags() {
+            return flags;
+        }
+        
+        public int getPixelFormat() {
+            return pixelFormat;
+        }
+        
+        public int getEncoding() {
+            return encoding;
+        }
+    }
+    
+    /**
+     * Sequential little-endian reader over a section, mirroring the field order of e.java.
+     * Out-of-range reads throw IndexOutOfBoundsException (truncated data).
+     */
+    private static class Reader {
+        private final ByteBuffer in;
+        private int pos;
+        
+        Reader(ByteBuffer in) {
+            this.in = in;
+        }
+        
+        int u8() {
+            return in.get(pos++) & 0xFF;
+        }
+        
+        int u16() {
+            int value = in.getShort(pos) & 0xFFFF;
+            pos += 2;
+            return value;
+        }
+        
+        int s32() {
+            int value = in.getInt(pos);
+            pos += 4;
+            return value;
+        }
+        
+        void skip(int count) {
+            if (count < 0 || pos + count > in.limit()) {
+                throw new IndexOutOfBoundsException();
+            }
+            pos += count;
+        }
+        
+        SpriteHeader readHeader() {
+            pos = 2; // Version
+            int flags = s32();
+            
+            int moduleCount = u16();
+            if (moduleCount == 0 || moduleCount > MAX_MODULES || (flags & FLAG_IMAGE_DATA) == 0) {
+                return null;
+            }
+            
+            int[] types = new int[moduleCount];
+            int[] widths = new int[moduleCount];
+            int[] heights = new int[moduleCount];
+            int[] groups = new int[moduleCount];
+            for (int i = 0; i < moduleCount; i++) {
+                if (!readModule(flags, i, types, widths, heights, groups)) {
+                    return null;
+                }
+            }
+            
+            skipFrameData(flags);
+            
+            // Palettes
+            int pixelFormat = u16();
+            int bytesPerColor = pixelFormat == PIXEL_RGB888 ? 3 :
+                                pixelFormat == PIXEL_ARGB1555 || pixelFormat == PIXEL_RGB565 ? 2 : 0;
+            if (bytesPerColor == 0) {
+                return null;
+            }
+            
+            int groupCount = (flags & FLAG_PALETTE_GROUPS) != 0 ? u8() : 1;
+            if (groupCount == 0) {
+                return null;
+            }
+            int[][][] palettes = new int[groupCount][][];
+            for (int group = 0; group < groupCount; group++) {
+                int paletteCount = u8();
+                int colorCount = u8();
+                if (colorCount == 0) {
+                    colorCount = 256;
+                }
+                palettes[group] = new int[paletteCount][];
+                for (int p = 0; p < paletteCount; p++) {
+                    palettes[group][p] = readPalette(pixelFormat, colorCount);
+                }
+            }
+            
+            int encoding = u16();
+            if (!isKnownEncoding(encoding)) {
+                return null;
+            }
+            
+            // One length-prefixed pixel stream per module (empty for shape modules)
+            int[] offsets = new int[moduleCount];
+            int[] lengths = new int[moduleCount];
+            for (int i = 0; i < moduleCount; i++) {
+                lengths[i] = (flags & FLAG_DATA_LENGTH_INT) != 0 ? s32() : u16();
+                offsets[i] = pos;
+                skip(lengths[i]);
+            }
+            
+            return new SpriteHeader(in.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN), flags, types,
+                                    widths, heights, groups, pixelFormat, palettes, encoding, offsets, lengths);
+        }
+        
+        /**
+         * Read one module entry. Image modules (type 0) have only a size; the other
+         * types are shapes with a color and extra parameters.
+         */
+        private boolean readModule(int flags, int i, int[] types, int[] widths, int[] heights, int[] groups) {
+            int marker = u8();
+            boolean hasColor = true;
+            boolean hasSize = true;
+            int extraBytes = 0;
+            
+            switch (marker) {
+                case 0:
+                    types[i] = MODULE_IMAGE;
+                    hasColor = false;
+                    if ((flags & FLAG_MODULE_PALETTE) != 0) {
+                        groups[i] = u8();
+                    }
+                    break;
+                case 255: types[i] = 1; break;
+                case 254: types[i] = 2; break;
+                case 253: types[i] = 5; hasColor = false; break;
+                case 252: types[i] = 3; extraBytes = 4; break;
+                case 251: types[i] = 4; extraBytes = 4; break;
+                case 250: types[i] = 6; hasSize = false; extraBytes = 8; break;
+                case 249: types[i] = 7; hasSize = false; extraBytes = 8; break;
+                case 248: types[i] = 8; break;
+                case 247: types[i] = 9; extraBytes = 5; break;
+                default:
+                    return false;
+            }
+            
+            if (hasColor) {
+                skip(4);
+            }
+            // Type 9 stores its extra int + byte before the size, the others after it
+            if (types[i] == 9) {
+                skip(extraBytes);
+                extraBytes = 0;
+            }
+            if (hasSize) {
+                if ((flags & FLAG_MODULE_SIZE_SHORT) != 0) {
+                    widths[i] = u16();
+                    heights[i] = u16();
+                } else {
+                    widths[i] = u8();
+                    heights[i] = u8();
+                }
+                if (widths[i] > MAX_MODULE_SIZE || heights[i] > MAX_MODULE_SIZE) {
+                    return false;
+                }
+            }
+            skip(extraBytes);
+            return true;
+        }
+        
+        /**
+         * Skip frame modules, frame rects, frames, animation frames and animations.
+         */
+        private void skipFrameData(int flags) {
+            int offsetSize = (flags & FLAG_OFFSET_SHORT) != 0 ? 2 : 1;
+            
+            int frameModules = u16();
+            skip(frameModules * (((flags & FLAG_MODULE_INDEX_SHORT) != 0 ? 2 : 1) + 2 * offsetSize + 1));
+            
+            if ((flags & FLAG_FRAME_RECTS) != 0) {
+                skip(u16() * 4 * offsetSize);
+            }
+            
+            int frames = u16();
+            if (frames > 0) {
+                int frameSize = ((flags & FLAG_FRAME_COUNT_SHORT) != 0 ? 2 : 1) + 2 +
+                                ((flags & FLAG_FRAME_RECTS) != 0 ? 1 : 0);
+                skip(frames * frameSize);
+                if ((flags & FLAG_NO_FRAME_BOUNDS) == 0) {
+                    skip(frames * 4 * offsetSize);
+                }
+            }
+            
+            int animFrames = u16();
+            skip(animFrames * (2 + ((flags & FLAG_AFRAME_OFFSET_SHORT) != 0 ? 4 : 2) + 1));
+            
+            int anims = u16();
+            skip(anims * 3);
+        }
+        
+        /**
+         * Read a palette as non-premultiplied ARGB. Transparent entries
+         * (alpha bit clear, or the magenta color key) get alpha 0.
+         */
+        private int[] readPalette(int pixelFormat, int colorCount) {
+            int[] colors = new int[colorCount];
+            for (int c = 0; c < colorCount; c++) {
+                int argb;
+                if (pixelFormat == PIXEL_ARGB1555) {
+                    int v = u16();
+                    int alpha = (v & 0x8000) != 0 ? 0xFF000000 : 0;
+                    argb = alpha | (v & 0x7C00) << 9 | (v & 0x3E0) << 6 | (v & 0x1F) << 3;
+                } else if (pixelFormat == PIXEL_RGB565) {
+                    int v = u16();
+                    int alpha = v == 0xF81F ? 0 : 0xFF000000;
+                    argb = alpha | (v & 0xF800) << 8 | (v & 0x7E0) << 5 | (v & 0x1F) << 3;
+                } else {
+                    int v = u8() | u8() << 8 | u8() << 16;
+                    argb = v == COLOR_KEY ? v : v | 0xFF000000;
+                }
+                if (argb == 0xF800F8) {
+                    // Transparent magenta from 5-bit channels
+                    argb = COLOR_KEY;
+                }
+                colors[c] = argb;
+            }
+            return colors;
+        }
+        
+        private static boolean isKnownEncoding(int encoding) {
+            switch (encoding) {
+                case ENCODE_RLE:
+                case ENCODE_I127_RLE:
+                case ENCODE_I256_RLE:
+                case ENCODE_I256:
+                case ENCODE_I16:
+                case ENCODE_I4:
+                case ENCODE_I2:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.greenfarm3.assets;
+
+import javafx.scene.image.Image;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A sprite stored the way the original game stores it: one palette index per
+ * pixel plus a few small palettes, instead of one ARGB int per pixel.
+ *
+ * Recolored variants (seasons, crop ripeness, shop highlights) are produced by
+ * expanding the indices through another palette. Each variant that is drawn
+ * becomes a full ARGB Image (width * height * 4 bytes), so only the indices
+ * and palettes are compact. Variants of all sprites share one byte budget and
+ * the least recently used ones are dropped once it is exceeded; a dropped
+ * variant is expanded again the next time it is drawn.
+ *
+ * Variants are separate Images rather than one image re-expanded in place,
+ * because the Renderer may record a draw and play it back later in the frame.
+ */
+public class PalettedSprite {
+    
+    /** Default budget for the variants of all sprites together: 4 MB of ARGB pixels */
+    public static final long DEFAULT_VARIANT_BUDGET = 4L * 1024 * 1024;
+    
+    // Variants of every sprite, least recently used first; guarded by VARIANT_LOCK
+    private static final Object VARIANT_LOCK = new Object();
+    private static final LinkedHashMap<Variant, Variant> ALL_VARIANTS = new LinkedHashMap<>(64, 0.75f, true);
+    private static long variantBudget = DEFAULT_VARIANT_BUDGET;
+    private static long variantBytes;
+    
+    private final int width;
+    private final int height;
+    private final byte[] indices;
+    private final int[][] palettes;
+    private final Map<int[], Variant> variants; // By palette array identity, guarded by VARIANT_LOCK
+    
+    /**
+     * One expanded Image of a sprite
+     */
+    private static class Variant {
+        final PalettedSprite sprite;
+        final int[] palette;
+        final Image image;
+        
+        Variant(PalettedSprite sprite, int[] palette, Image image) {
+            this.sprite = sprite;
+            this.palette = palette;
+            this.image = image;
+        }
+    }
+    
+    /**
+     * Create a paletted sprite
+     * @param width Sprite width
+     * @param height Sprite height
+     * @param indices One palette index per pixel, row-major (not copied)
+     * @param palettes Built-in ARGB palettes, all with the same color count (not copied)
+     */
+    public PalettedSprite(int width, int height, byte[] indices, int[][] palettes) {
+        if (width <= 0 || height <= 0 || indices.length < width * height || palettes.length == 0) {
+            throw new IllegalArgumentException("Invalid paletted sprite " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.indices = indices;
+        this.palettes = palettes;
+        // Keyed by array identity: a caller-built palette hits the cache as long as it reuses the array
+        this.variants = new IdentityHashMap<>(4);
+    }
+    
+    /**
+     * Get the sprite with one of its built-in palettes
+     * @param palette Palette index
+     * @return Image, or null if the palette index is invalid
+     */
+    public Image getImage(int palette) {
+        if (palette < 0 || palette >= palettes.length) {
+            return null;
+        }
+        return getImage(palettes[palette]);
+    }
+    
+    /**
+     * Get the sprite recolored with a custom palette (e.g. from derivePalette).
+     * Variants are cached by palette array, so keep and reuse the array rather
+     * than rebuilding it each frame; modifying it after use leaves a stale variant.
+     *
+     * @param palette ARGB colors, at least getColorCount() entries
+     * @return Image, or null if the palette is too short
+     */
+    public Image getImage(int[] palette) {
+        if (palette == null || palette.length < getColorCount()) {
+            return null;
+        }
+        
+        synchronized (VARIANT_LOCK) {
+            Variant variant = variants.get(palette);
+            if (variant != null) {
+                ALL_VARIANTS.get(variant); // Mark most recently used
+                return variant.image;
+            }
+            
+            int pixelCount = width * height;
+            int[] argb = new int[pixelCount];
+            expand(indices, 0, palette, argb, 0, pixelCount);
+            Image image = ImageConverter.argbToJavaFX(argb, width, height, true);
+            long size = getVariantSize();
+            if (image != null && size <= variantBudget) {
+                variant = new Variant(this, palette, image);
+                variants.put(palette, variant);
+                ALL_VARIANTS.put(variant, variant);
+                variantBytes += size;
+                evictVariants(variant);
+            }
+            return image;
+        }
+    }
+    
+    /**
+     * Drop least recently used variants of any sprite until they fit the budget
+     * @param keep Variant that was just added and must stay (may be null)
+     */
+    private static void evictVariants(Variant keep) {
+        Iterator<Variant> it = ALL_VARIANTS.keySet().iterator();
+        while (variantBytes > variantBudget && it.hasNext()) {
+            Variant eldest = it.next();
+            if (eldest == keep) {
+                continue;
+            }
+            eldest.sprite.variants.remove(eldest.palette);
+            variantBytes -= eldest.sprite.getVariantSize();
+            it.remove();
+        }
+    }
+    
+    /**
+     * Set the byte budget shared by the variants of all sprites, evicting immediately if over it
+     * @param budget Maximum bytes of expanded ARGB pixels
+     */
+    public static void setVariantBudget(long budget) {
+        synchronized (VARIANT_LOCK) {
+            variantBudget = budget;
+            evictVariants(null);
+        }
+    }
+    
+    /**
+     * Get the bytes held by the variants of all sprites
+     * @return Size in bytes (width * height * 4 per variant)
+     */
+    public static long getVariantBytes() {
+        synchronized (VARIANT_LOCK) {
+            return variantBytes;
+        }
+    }
+    
+    private long getVariantSize() {
+        return (long) width * height * 4;
+    }
+    
+    /**
+     * Copy a built-in palette for recoloring
+     * @param palette Palette index
+     * @return New ARGB array the caller may modify, or null if the index is invalid
+     */
+    public int[] derivePalette(int palette) {
+        if (palette < 0 || palette >= palettes.length) {
+            return null;
+        }
+        return palettes[palette].clone();
+    }
+    
+    /**
+     * Drop the cached variants (the indices and palettes are kept)
+     */
+    public void clearVariants() {
+        synchronized (VARIANT_LOCK) {
+            for (Variant variant : variants.values()) {
+                ALL_VARIANTS.remove(variant);
+                variantBytes -= getVariantSize();
+            }
+            variants.clear();
+        }
+    }
+    
+    /**
+     * Map palette indices to ARGB colors
+     * @param indices Source indices
+     * @param srcOffset Index of the first source pixel
+     * @param palette ARGB colors covering every index used
+     * @param dst Destination pixels
+     * @param dstOffset Index of the first destination pixel
+     * @param pixelCount Number of pixels to convert
+     */
+    static void expand(byte[] indices, int srcOffset, int[] palette, int[] dst, int dstOffset, int pixelCount) {
+        for (int i = 0; i < pixelCount; i++) {
+            dst[dstOffset + i] = palette[indices[srcOffset + i] & 0xFF];
+        }
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public int getPaletteCount() {
+        return palettes.length;
+    }
+    
+    public int getColorCount() {
+        return palettes[0].length;
+    }
+    
+    /**
+     * Get the memory held by the pixel data and palettes (cached variants excluded)
+     * @return Size in bytes
+     */
+    public long getByteSize() {
+        return indices.length + (long) palettes.length * getColorCount() * 4;
+    }
+    
+    /**
+     * Get the number of recolored Images currently cached
+     * @return Variant count
+     */
+    public int getVariantCount() {
+        synchronized (VARIANT_LOCK) {
+            return variants.size();
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "PalettedSprite{" + width + "x" + height + ", " + getPaletteCount() + " palettes, " +
+               getColorCount() + " colors, " + getVariantCount() + " variants}";
+    }
+}
@@ -2,13 +2,26 @@ package com.greenfarm3.assets;
 
 import javafx.scene.image.Image;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * Parser for RGB image data from J2ME format.
  * Converts RGB int arrays to JavaFX Images, similar to J2ME's Image.createRGBImage().
+ * 
+ * Pixel conversion goes through bulk kernels (convertARGB8888, convertRGB888)
+ * that write straight into a caller-supplied int[]: ARGB uses a big-endian
+ * IntBuffer view (one bulk copy), RGB888 an unrolled loop without branches.
  */
 public class RGBImageParser {
     
+    /** Pixels copied per bulk get when the source buffer has no accessible array */
+    private static final int CHUNK_PIXELS = 1024;
+    
+    /** Per-thread staging buffer for convertRGB888 on read-only and direct buffers */
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[CHUNK_PIXELS * 3]);
+    
     /**
      * Parse RGB array from byte data.
      * Supports ARGB format (4 bytes per pixel: Alpha, Red, Green, Blue).
@@ -34,18 +47,9 @@ public class RGBImageParser {
             return null;
         }
         
-        int[] rgb = new int[pixelCount];
-        int offset = 0;
-        
         // Parse ARGB format (4 bytes per pixel)
-        for (int i = 0; i < pixelCount; i++) {
-            int a = data[offset++] & 0xFF;
-            int r = data[offset++] & 0xFF;
-            int g = data[offset++] & 0xFF;
-            int b = data[offset++] & 0xFF;
-            rgb[i] = (a << 24) | (r << 16) | (g << 8) | b;
-        }
-        
+        int[] rgb = new int[pixelCount];
+        convertARGB8888(ByteBuffer.wrap(data), rgb, 0, pixelCount);
         return rgb;
     }
     
@@ -58,19 +62,133 @@ public class RGBImageParser {
      * @return RGB int array with alpha=255, or null if invalid
      */
     private static int[] parseRGBArray3Bytes(byte[] data, int width, int height) {
+        // Parse RGB format (3 bytes per pixel, alpha = 255)
         int pixelCount = width * height;
         int[] rgb = new int[pixelCount];
-        int offset = 0;
+        convertRGB888(data, 0, rgb, 0, pixelCount);
+        return rgb;
+    }
+    
+    /**
+     * Parse RGB array from a ByteBuffer (e.g. a section slice from J2MEResourceParser).
+     * Reads with absolute gets, so the buffer is neither copied nor moved.
+     * 
+     * @param data Buffer containing RGB data (from position to limit)
+     * @param width Image width
+     * @param height Image height
+     * @return RGB int array, or null if invalid
+     */
+    public static int[] parseRGBArray(ByteBuffer data, int width, int height) {
+        if (data == null || width <= 0 || height <= 0) {
+            return null;
+        }
         
-        // Parse RGB format (3 bytes per pixel, alpha = 255)
-        for (int i = 0; i < pixelCount; i++) {
-            int r = data[offset++] & 0xFF;
-            int g = data[offset++] & 0xFF;
-            int b = data[offset++] & 0xFF;
-            rgb[i] = (0xFF << 24) | (r << 16) | (g << 8) | b; // Alpha = 255
+        int[] rgb = new int[width * height];
+        return parseRGBArrayInto(data, width, height, rgb, 0) ? rgb : null;
+    }
+    
+    /**
+     * Parse RGB data straight into an existing pixel buffer (e.g. a reused
+     * scratch array or a BufferedImage's DataBufferInt).
+     * ARGB (4 bytes per pixel) is used if the data is large enough, else RGB (3 bytes, alpha = 255).
+     * 
+     * @param data Buffer containing RGB data (from position to limit); not moved
+     * @param width Image width
+     * @param height Image height
+     * @param dst Destination pixels (ARGB)
+     * @param dstOffset Index of the first destination pixel
+     * @return true if parsed, false if the data is too short or dst too small
+     */
+    public static boolean parseRGBArrayInto(ByteBuffer data, int width, int height, int[] dst, int dstOffset) {
+        if (data == null || dst == null || width <= 0 || height <= 0) {
+            return false;
         }
         
-        return rgb;
+        int pixelCount = width * height;
+        if (dstOffset < 0 || dst.length - dstOffset < pixelCount) {
+            return false;
+        }
+        
+        int length = data.remaining();
+        if (length >= pixelCount * 4) {
+            convertARGB8888(data, dst, dstOffset, pixelCount);
+        } else if (length >= pixelCount * 3) {
+            convertRGB888(data, dst, dstOffset, pixelCount);
+        } else {
+            return false;
+        }
+        return true;
+    }
+    
+    // ===== Bulk conversion kernels =====
+    
+    /**
+     * Convert big-endian ARGB8888 bytes to ARGB ints with a single bulk copy
+     * through an IntBuffer view (byte-swapped by the JDK where needed).
+     * 
+     * @param src Source bytes (from position; not moved), at least 4 * pixelCount remaining
+     * @param dst Destination pixels
+     * @param dstOffset Index of the first destination pixel
+     * @param pixelCount Number of pixels to convert
+     */
+    public static void convertARGB8888(ByteBuffer src, int[] dst, int dstOffset, int pixelCount) {
+        src.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(dst, dstOffset, pixelCount);
+    }
+    
+    /**
+     * Convert RGB888 bytes to opaque ARGB ints.
+     * Heap buffers use the array kernel directly. Read-only and direct buffers
+     * (every internal slice is read-only) are bulk-copied in fixed-size chunks
+     * into a reused per-thread array, and each chunk runs the same kernel.
+     * 
+     * @param src Source bytes (from position; not moved), at least 3 * pixelCount remaining
+     * @param dst Destination pixels
+     * @param dstOffset Index of the first destination pixel
+     * @param pixelCount Number of pixels to convert
+     */
+    public static void convertRGB888(ByteBuffer src, int[] dst, int dstOffset, int pixelCount) {
+        if (src.hasArray()) {
+            convertRGB888(src.array(), src.arrayOffset() + src.position(), dst, dstOffset, pixelCount);
+            return;
+        }
+        
+        byte[] chunk = CHUNK.get();
+        int s = src.position();
+        for (int done = 0; done < pixelCount; ) {
+            int count = Math.min(CHUNK_PIXELS, pixelCount - done);
+            src.get(s, chunk, 0, count * 3);
+            convertRGB888(chunk, 0, dst, dstOffset + done, count);
+            s += count * 3;
+            done += count;
+        }
+    }
+    
+    /**
+     * Convert RGB888 bytes to opaque ARGB ints.
+     * Unrolled by four pixels with no branches in the loop body, so the JIT can
+     * drop bounds checks and keep the pipeline full.
+     * 
+     * @param src Source bytes
+     * @param srcOffset Index of the first source byte
+     * @param dst Destination pixels
+     * @param dstOffset Index of the first destination pixel
+     * @param pixelCount Number of pixels to convert
+     */
+    public static void convertRGB888(byte[] src, int srcOffset, int[] dst, int dstOffset, int pixelCount) {
+        int s = srcOffset;
+        int d = dstOffset;
+        int end = dstOffset + pixelCount;
+        int unrolledEnd = end - 3;
+        
+        for (; d < unrolledEnd; d += 4, s += 12) {
+            dst[d]     = 0xFF000000 | (src[s] & 0xFF) << 16 | (src[s + 1] & 0xFF) << 8 | (src[s + 2] & 0xFF);
+            dst[d + 1] = 0xFF000000 | (src[s + 3] & 0xFF) << 16 | (src[s + 4] & 0xFF) << 8 | (src[s + 5] & 0xFF);
+            dst[d + 2] = 0xFF000000 | (src[s + 6] & 0xFF) << 16 | (src[s + 7] & 0xFF) << 8 | (src[s + 8] & 0xFF);
+            dst[d + 3] = 0xFF000000 | (src[s + 9] & 0xFF) << 16 | (src[s + 10] & 0xFF) << 8 | (src[s + 11] & 0xFF);
+        }
+        for (; d < end; d++, s += 3) {
+            dst[d] = 0xFF000000 | (src[s] & 0xFF) << 16 | (src[s + 1] & 0xFF) << 8 | (src[s + 2] & 0xFF);
+        }
     }
     
     /**
@@ -91,14 +209,17 @@ public class RGBImageParser {
         int type = processAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
         BufferedImage bufferedImage = new BufferedImage(width, height, type);
         
-        // Set RGB data
-        bufferedImage.setRGB(0, 0, width, height, rgb, 0, width);
+        // Copy straight into the raster: both types store one ARGB/xRGB int per pixel,
+        // so the per-pixel color model conversion of setRGB is not needed
+        int[] pixels = ((DataBufferInt) bufferedImage.getRaster().getDataBuffer()).getData();
+        System.arraycopy(rgb, 0, pixels, 0, width * height);
         
         return bufferedImage;
     }
     
     /**
      * Convert RGB array to JavaFX Image.
+     * Writes the pixels directly into a WritableImage (no BufferedImage or PNG round trip).
      * 
      * @param rgb RGB int array (ARGB format)
      * @param width Image width
@@ -107,17 +228,14 @@ public class RGBImageParser {
      * @return JavaFX Image, or null if invalid
      */
     public static Image rgbArrayToJavaFXImage(int[] rgb, int width, int height, boolean processAlpha) {
-        BufferedImage bufferedImage = rgbArrayToBufferedImage(rgb, width, height, processAlpha);
-        if (bufferedImage == null) {
-            return null;
-        }
-        
-        return ImageConverter.bufferedImageToJavaFX(bufferedImage);
+        return ImageConverter.argbToJavaFX(rgb, width, height, processAlpha);
     }
     
     /**
      * Try to detect width and height from RGB data size.
      * Uses heuristics: assumes square or common aspect ratios.
+     * Only meant for raw RGB sections; sprite sections carry their dimensions
+     * in a header and are decoded by J2MESpriteParser instead.
      * 
      * @param dataSize Size of RGB data in bytes
      * @param hasAlpha Whether data includes alpha channel
@@ -200,6 +318,31 @@ public class RGBImageParser {
         return new RGBImageData(rgb, width, height);
     }
     
+    /**
+     * Parse RGB data from a ByteBuffer and try to auto-detect dimensions.
+     * 
+     * @param data Buffer containing RGB data
+     * @param hasAlpha Whether data includes alpha channel
+     * @return Parsed image data, or null if cannot parse
+     */
+    public static RGBImageData parseRGBArrayWithAutoDimensions(ByteBuffer data, boolean hasAlpha) {
+        if (data == null || !data.hasRemaining()) {
+            return null;
+        }
+        
+        int[] dimensions = detectDimensions(data.remaining(), hasAlpha);
+        if (dimensions == null) {
+            return null;
+        }
+        
+        int[] rgb = parseRGBArray(data, dimensions[0], dimensions[1]);
+        if (rgb == null) {
+            return null;
+        }
+        
+        return new RGBImageData(rgb, dimensions[0], dimensions[1]);
+    }
+    
     /**
      * Data class for RGB image with dimensions.
      */
@@ -0,0 +1,272 @@
+package com.greenfarm3.assets;
+
+import javafx.scene.image.Image;
+
+import java.nio.ByteBuffer;
+
+/**
+ * All sections of one numbered resource, addressable by index.
+ * The pack table is parsed once when the bank is opened; each section is
+ * decoded the first time it is requested (normally the first time it is drawn),
+ * so a file with hundreds of sprites only costs what the game actually shows.
+ * 
+ * Large resources are split over continuation files (5 holds sections 0-19,
+ * 5.1 holds 20-88, ...). Sections are addressed by their index over the whole
+ * resource; a continuation file is only read once one of its sections is
+ * requested, and its bytes are fetched through the PackSource each time
+ * (AssetManager's byte-budgeted warm cache) rather than pinned by the bank.
+ */
+public class SpriteBank {
+    
+    /** Entry type byte of sprite sections */
+    public static final int ENTRY_SPRITE = 2;
+    
+    private final String path;
+    private final ByteBuffer data;
+    private final J2MEResourceParser.PackTable table;
+    private final J2MEResourceParser.PackTable[] packs; // Parsed on first use, [0] = table
+    private final boolean[] missingPacks;
+    private final PackSource packSource;
+    private final SectionDecoder decoder;
+    private final Image[] images;
+    private final PalettedSprite[] paletted;
+    private final boolean[] failed;
+    private final boolean[] palettedFailed;
+    private int decodedCount;
+    
+    /**
+     * Decodes one section of a bank into an image.
+     */
+    public interface SectionDecoder {
+        /**
+         * @param entry Read-only slice of the section: entry type byte followed by its payload
+         * @return Decoded image, or null if the section is not a drawable image
+         */
+        Image decode(ByteBuffer entry);
+    }
+    
+    /**
+     * Reads the continuation files of a resource.
+     */
+    public interface PackSource {
+        /**
+         * @param path Resource path of the continuation file (e.g. "/images/5.1")
+         * @return File contents, or null if it does not exist
+         */
+        byte[] read(String path);
+    }
+    
+    private SpriteBank(String path, ByteBuffer data, J2MEResourceParser.PackTable table, 
+                       PackSource packSource, SectionDecoder decoder) {
+        this.path = path;
+        this.data = data;
+        this.table = table;
+        this.packs = new J2MEResourceParser.PackTable[table.getPackCount()];
+        this.packs[0] = table;
+        this.missingPacks = new boolean[table.getPackCount()];
+        this.packSource = packSource;
+        this.decoder = decoder;
+        this.images = new Image[table.totalCount];
+        this.paletted = new PalettedSprite[table.totalCount];
+        this.failed = new boolean[table.totalCount];
+        this.palettedFailed = new boolean[table.totalCount];
+    }
+    
+    /**
+     * Open a bank over the contents of a numbered resource file, decoding each
+     * sprite section from its header (see J2MESpriteParser.decodeSection)
+     * @param path Resource path of the base file (continuation files are path.1, path.2, ...)
+     * @param data File contents (not copied, must not be modified afterwards)
+     * @param packSource Reads continuation files when their sections are first needed
+     * @return Bank, or null if the file is not a pack file
+     */
+    public static SpriteBank open(String path, byte[] data, PackSource packSource) {
+        return open(path, data, packSource, J2MESpriteParser::decodeSection);
+    }
+    
+    /**
+     * Open a bank over the contents of a numbered resource file
+     * @param path Resource path of the base file (continuation files are path.1, path.2, ...)
+     * @param data File contents (not copied, must not be modified afterwards)
+     * @param packSource Reads continuation files when their sections are first needed
+     * @param decoder Decoder used for each section
+     * @return Bank, or null if the file is not a pack file
+     */
+    public static SpriteBank open(String path, byte[] data, PackSource packSource, SectionDecoder decoder) {
+        ByteBuffer buffer = ByteBuffer.wrap(data).asReadOnlyBuffer();
+        J2MEResourceParser.PackTable table = J2MEResourceParser.parsePackTable(buffer);
+        if (table == null) {
+            return null;
+        }
+        return new SpriteBank(path, buffer, table, packSource, decoder);
+    }
+    
+    /**
+     * Get a section's image, decoding it on first use
+     * @param index Section index over the whole resource
+     * @return Image, or null if the index is invalid or the section is not an image
+     */
+    public synchronized Image getImage(int index) {
+        if (index < 0 || index >= images.length || failed[index]) {
+            return null;
+        }
+        
+        Image image = images[index];
+        if (image == null) {
+            ByteBuffer section = getSectionData(index);
+            image = section != null ? decoder.decode(section) : null;
+            if (image == null) {
+                failed[index] = true;
+                return null;
+            }
+            images[index] = image;
+            decodedCount++;
+        }
+        return image;
+    }
+    
+    /**
+     * Get a section's first image module as a paletted sprite, decoding it on first use.
+     * Use this for sprites drawn in several color variants: the sprite keeps one
+     * index per pixel, and each variant drawn is expanded into an ARGB Image kept
+     * within PalettedSprite's shared variant budget. This is separate from
+     * getImage, which keeps its own decoded ARGB Image of the section.
+     * @param index Section index over the whole resource
+     * @return Paletted sprite, or null if the index is invalid or the section is not a sprite
+     */
+    public synchronized PalettedSprite getPalettedSprite(int index) {
+        if (index < 0 || index >= paletted.length || palettedFailed[index]) {
+            return null;
+        }
+        
+        PalettedSprite sprite = paletted[index];
+        if (sprite == null) {
+            ByteBuffer payload = getSectionData(index);
+            if (payload != null && payload.remaining() > 0 && (payload.get(0) & 0xFF) == ENTRY_SPRITE) {
+                payload.position(1);
+                J2MESpriteParser.SpriteHeader header = J2MESpriteParser.parseHeader(payload);
+                int module = header != null ? header.getFirstImageModule() : -1;
+                sprite = module >= 0 ? J2MESpriteParser.decodePaletted(header, module) : null;
+            }
+            if (sprite == null) {
+                palettedFailed[index] = true;
+                return null;
+            }
+            paletted[index] = sprite;
+        }
+        return sprite;
+    }
+    
+    /**
+     * Get the raw bytes of a section, reading its continuation file if needed
+     * @param index Section index over the whole resource
+     * @return Read-only little-endian slice (entry type byte first), or null if the
+     *         index is invalid or its continuation file is missing
+     */
+    public ByteBuffer getSectionData(int index) {
+        int pack = table.findPack(index);
+        if (pack < 0) {
+            return null;
+        }
+        if (pack == 0) {
+            return J2MEResourceParser.readPackEntry(data, table, index);
+        }
+        
+        String packPath = J2MEResourceParser.getPackPath(path, pack);
+        byte[] packData = packSource != null && !isPackMissing(pack) ? packSource.read(packPath) : null;
+        if (packData == null) {
+            markPackMissing(pack);
+            return null;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(packData).asReadOnlyBuffer();
+        J2MEResourceParser.PackTable packTable = getPackTable(pack, buffer);
+        if (packTable == null) {
+            return null;
+        }
+        return J2MEResourceParser.readPackEntry(buffer, packTable, index - table.packStarts[pack]);
+    }
+    
+    private synchronized J2MEResourceParser.PackTable getPackTable(int pack, ByteBuffer buffer) {
+        if (packs[pack] == null && !missingPacks[pack]) {
+            packs[pack] = J2MEResourceParser.parsePartTable(buffer, table, pack);
+            missingPacks[pack] = packs[pack] == null;
+        }
+        return packs[pack];
+    }
+    
+    private synchronized boolean isPackMissing(int pack) {
+        return missingPacks[pack];
+    }
+    
+    private synchronized void markPackMissing(int pack) {
+        missingPacks[pack] = true;
+    }
+    
+    /**
+     * Get the entry type byte of a section
+     * @param index Section index over the whole resource
+     * @return Type (ENTRY_SPRITE for sprites), or -1 if invalid index or empty
+     */
+    public int getSectionType(int index) {
+        ByteBuffer section = getSectionData(index);
+        return section != null && section.remaining() > 0 ? section.get(0) & 0xFF : -1;
+    }
+    
+    /**
+     * Get the number of sections of the resource over all of its pack files
+     * @return Section count (e.g. 159 for resource 5, whose base file holds 20)
+     */
+    public int getSectionCount() {
+        return table.totalCount;
+    }
+    
+    /**
+     * Get the number of files the resource is split over
+     * @return Pack count (1 if there are no continuation files)
+     */
+    public int getPackCount() {
+        return table.getPackCount();
+    }
+    
+    /**
+     * Get the number of packs whose file has been read so far
+     * @return Loaded pack count, including the base file
+     */
+    public synchronized int getLoadedPackCount() {
+        int loaded = 0;
+        for (J2MEResourceParser.PackTable pack : packs) {
+            if (pack != null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+    
+    /**
+     * Check if a section has been decoded
+     * @param index Section index over the whole resource
+     * @return true if its image is ready
+     */
+    public synchronized boolean isDecoded(int index) {
+        return index >= 0 && index < images.length && images[index] != null;
+    }
+    
+    /**
+     * Get the number of sections decoded so far
+     * @return Decoded section count
+     */
+    public synchronized int getDecodedCount() {
+        return decodedCount;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    @Override
+    public String toString() {
+        return "SpriteBank{" + path + ", " + getSectionCount() + " sections in " + getPackCount() + 
+               " packs (" + getLoadedPackCount() + " loaded), " + getDecodedCount() + " decoded}";
+    }
+}
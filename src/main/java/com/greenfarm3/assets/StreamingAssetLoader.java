@@ -0,0 +1,262 @@
+package com.greenfarm3.assets;
+
+import javafx.scene.image.Image;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads numbered assets in the background in order of on-screen need.
+ *
+ * Requests carry a priority (visible, margin ring around the view, background).
+ * Workers always take the most urgent queued request, so whatever the camera
+ * shows decodes first and the rest fills in behind it.
+ *
+ * View-driven requests are refreshed every frame between beginFrame() and
+ * endFrame(); one that was not refreshed has scrolled out of view and is
+ * cancelled if it has not started yet (or falls back to background priority
+ * if it was also requested as background work).
+ *
+ * Futures are completed through the AssetManager's FrameHandoff, i.e. on the
+ * game loop at the start of a frame and at most a frame budget's worth at a
+ * time, so a burst of finished decodes does not land in a single frame.
+ * 
+ * All methods are cheap and non-blocking, so they can be called from the game loop.
+ */
+public class StreamingAssetLoader {
+    
+    /** Used by something inside the camera view */
+    public static final int PRIORITY_VISIBLE = 0;
+    /** Used just outside the view (likely visible after a short scroll) */
+    public static final int PRIORITY_MARGIN = 1;
+    /** Not needed on screen yet */
+    public static final int PRIORITY_BACKGROUND = 2;
+    
+    private final AssetManager assetManager;
+    private final ExecutorService workers;
+    private final FrameHandoff handoff;
+    private final PriorityQueue<Request> queue;        // Guarded by this
+    private final Map<AssetId, Request> requests;      // Queued or running, guarded by this
+    private long sequence;                             // FIFO order within a priority
+    private int frame;
+    private int loadedCount;
+    private int cancelledCount;
+    private final List<Request> expired = new ArrayList<>(); // endFrame() scratch list, game loop only
+    private boolean shutdown;
+    
+    /**
+     * Create a loader with one worker per core, minus one for the game loop
+     * @param assetManager AssetManager that performs the actual decoding
+     */
+    public StreamingAssetLoader(AssetManager assetManager) {
+        this(assetManager, Runtime.getRuntime().availableProcessors() - 1);
+    }
+    
+    /**
+     * Create a loader with a fixed number of workers
+     * @param assetManager AssetManager that performs the actual decoding
+     * @param threadCount Number of worker threads
+     */
+    public StreamingAssetLoader(AssetManager assetManager, int threadCount) {
+        this.assetManager = assetManager;
+        this.handoff = assetManager.getFrameHandoff();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threadCount),
+            new AssetPreloader.WorkerThreadFactory("asset-streamer-"));
+        this.queue = new PriorityQueue<>((a, b) -> a.priority != b.priority ?
+            Integer.compare(a.priority, b.priority) : Long.compare(a.sequence, b.sequence));
+        this.requests = new HashMap<>();
+    }
+    
+    /**
+     * Request a numbered asset
+     * @param number The number of the asset file
+     * @param priority PRIORITY_VISIBLE, PRIORITY_MARGIN or PRIORITY_BACKGROUND
+     * @return Future completed with the Image (null if not an image), or cancelled if it left the view first
+     */
+    public CompletableFuture<Image> request(int number, int priority) {
+        return request(AssetId.of(number), priority);
+    }
+    
+    /**
+     * Request a numbered asset. Requesting an asset that is already queued
+     * returns the same future and raises its priority if needed.
+     * @param id Numbered resource
+     * @param priority PRIORITY_VISIBLE, PRIORITY_MARGIN or PRIORITY_BACKGROUND
+     * @return Future completed with the Image (null if not an image), or cancelled if it left the view first
+     */
+    public CompletableFuture<Image> request(AssetId id, int priority) {
+        Image cached = assetManager.getImage(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        Request request;
+        synchronized (this) {
+            if (shutdown) {
+                CompletableFuture<Image> rejected = new CompletableFuture<>();
+                rejected.cancel(false);
+                return rejected;
+            }
+            request = requests.get(id);
+            if (request != null) {
+                if (priority == PRIORITY_BACKGROUND) {
+                    request.background = true;
+                }
+                // The first request of a frame replaces last frame's priority; later ones can only raise it
+                int newPriority = request.frame != frame ? priority : Math.min(priority, request.priority);
+                request.frame = frame;
+                if (!request.started && newPriority != request.priority) {
+                    queue.remove(request);
+                    request.priority = newPriority;
+                    queue.add(request);
+                }
+                return request.future;
+            }
+            
+            request = new Request(id, priority, sequence++, frame);
+            requests.put(id, request);
+            queue.add(request);
+        }
+        
+        // Each task runs whichever request is most urgent when a worker frees up
+        workers.execute(this::runNext);
+        return request.future;
+    }
+    
+    /**
+     * Start a frame of view-driven requests
+     */
+    public synchronized void beginFrame() {
+        frame++;
+    }
+    
+    /**
+     * End a frame: cancel queued view requests that were not refreshed since beginFrame()
+     */
+    public void endFrame() {
+        synchronized (this) {
+            if (requests.isEmpty()) {
+                return; // Nothing in flight, nothing to cancel
+            }
+            for (Request request : requests.values()) {
+                if (request.started || request.frame == frame || request.priority == PRIORITY_BACKGROUND) {
+                    continue;
+                }
+                queue.remove(request);
+                if (request.background) {
+                    request.priority = PRIORITY_BACKGROUND;
+                    queue.add(request);
+                } else {
+                    expired.add(request);
+                }
+            }
+            for (Request request : expired) {
+                requests.remove(request.id);
+            }
+            cancelledCount += expired.size();
+        }
+        
+        // Complete outside the lock: callbacks may request again
+        for (Request request : expired) {
+            request.future.cancel(false);
+        }
+        expired.clear();
+    }
+    
+    private void runNext() {
+        Request request;
+        synchronized (this) {
+            request = queue.poll();
+            if (request == null) {
+                return; // Its request was cancelled
+            }
+            request.started = true;
+        }
+        
+        Image image = null;
+        try {
+            image = assetManager.loadImage(request.id);
+        } finally {
+            synchronized (this) {
+                requests.remove(request.id);
+                if (image != null) {
+                    loadedCount++;
+                }
+            }
+            Image loaded = image;
+            handoff.submit(() -> request.future.complete(loaded));
+        }
+    }
+    
+    /**
+     * Get the number of requests waiting for a worker
+     * @return Queued request count
+     */
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+    
+    /**
+     * Get the number of requests that produced an image
+     * @return Loaded image count
+     */
+    public synchronized int getLoadedCount() {
+        return loadedCount;
+    }
+    
+    /**
+     * Get the number of requests cancelled because they left the view before starting
+     * @return Cancelled request count
+     */
+    public synchronized int getCancelledCount() {
+        return cancelledCount;
+    }
+    
+    /**
+     * Cancel everything still queued and stop the workers.
+     * Decodes already running finish normally; later requests come back cancelled.
+     */
+    public void shutdown() {
+        List<Request> cancelled;
+        synchronized (this) {
+            shutdown = true;
+            cancelled = new ArrayList<>(queue);
+            queue.clear();
+            for (Request request : cancelled) {
+                requests.remove(request.id);
+            }
+        }
+        for (Request request : cancelled) {
+            request.future.cancel(false);
+        }
+        workers.shutdown();
+    }
+    
+    /**
+     * One queued or running asset
+     */
+    private static class Request {
+        final AssetId id;
+        final CompletableFuture<Image> future;
+        final long sequence;
+        int priority;
+        int frame;           // Last frame it was requested in
+        boolean background;  // Also wanted regardless of the view
+        boolean started;
+        
+        Request(AssetId id, int priority, long sequence, int frame) {
+            this.id = id;
+            this.future = new CompletableFuture<>();
+            this.sequence = sequence;
+            this.priority = priority;
+            this.frame = frame;
+            this.background = priority == PRIORITY_BACKGROUND;
+        }
+    }
+}
@@ -125,23 +125,91 @@ public class Camera {
     }
     
     /**
-     * Convert world coordinates to screen/viewport coordinates
+     * Convert world coordinates to screen/viewport coordinates.
+     * Allocates; per-frame code uses worldToScreenX/Y or the bulk variant.
      * @param worldX World X coordinate
      * @param worldY World Y coordinate
      * @return Array with [screenX, screenY]
      */
     public int[] worldToScreen(int worldX, int worldY) {
-        return new int[]{worldX - x, worldY - y};
+        return new int[]{worldToScreenX(worldX), worldToScreenY(worldY)};
     }
     
     /**
-     * Convert screen/viewport coordinates to world coordinates
+     * Convert a world X coordinate to screen/viewport X
+     * @param worldX World X coordinate
+     * @return Screen X coordinate
+     */
+    public int worldToScreenX(int worldX) {
+        return worldX - x;
+    }
+    
+    /**
+     * Convert a world Y coordinate to screen/viewport Y
+     * @param worldY World Y coordinate
+     * @return Screen Y coordinate
+     */
+    public int worldToScreenY(int worldY) {
+        return worldY - y;
+    }
+    
+    /**
+     * Convert points from world to screen coordinates into a caller's array
+     * @param world Points as [x0, y0, x1, y1, ...]
+     * @param worldOffset Index of the first point's X
+     * @param screen Receives the converted points (may be the same array)
+     * @param screenOffset Index to write the first point's X
+     * @param count Number of points
+     */
+    public void worldToScreen(int[] world, int worldOffset, int[] screen, int screenOffset, int count) {
+        for (int i = 0; i < count * 2; i += 2) {
+            screen[screenOffset + i] = world[worldOffset + i] - x;
+            screen[screenOffset + i + 1] = world[worldOffset + i + 1] - y;
+        }
+    }
+    
+    /**
+     * Convert screen/viewport coordinates to world coordinates.
+     * Allocates; per-frame code uses screenToWorldX/Y or the bulk variant.
      * @param screenX Screen X coordinate
      * @param screenY Screen Y coordinate
      * @return Array with [worldX, worldY]
      */
     public int[] screenToWorld(int screenX, int screenY) {
-        return new int[]{screenX + x, screenY + y};
+        return new int[]{screenToWorldX(screenX), screenToWorldY(screenY)};
+    }
+    
+    /**
+     * Convert a screen/viewport X coordinate to world X
+     * @param screenX Screen X coordinate
+     * @return World X coordinate
+     */
+    public int screenToWorldX(int screenX) {
+        return screenX + x;
+    }
+    
+    /**
+     * Convert a screen/viewport Y coordinate to world Y
+     * @param screenY Screen Y coordinate
+     * @return World Y coordinate
+     */
+    public int screenToWorldY(int screenY) {
+        return screenY + y;
+    }
+    
+    /**
+     * Convert points from screen to world coordinates into a caller's array
+     * @param screen Points as [x0, y0, x1, y1, ...]
+     * @param screenOffset Index of the first point's X
+     * @param world Receives the converted points (may be the same array)
+     * @param worldOffset Index to write the first point's X
+     * @param count Number of points
+     */
+    public void screenToWorld(int[] screen, int screenOffset, int[] world, int worldOffset, int count) {
+        for (int i = 0; i < count * 2; i += 2) {
+            world[worldOffset + i] = screen[screenOffset + i] + x;
+            world[worldOffset + i + 1] = screen[screenOffset + i + 1] + y;
+        }
     }
     
     /**
@@ -0,0 +1,170 @@
+package com.greenfarm3.game;
+
+/**
+ * Screen areas that changed since the last frame (in game coordinates).
+ *
+ * States add what they changed; the engine redraws only those areas, or skips
+ * the frame when nothing was added. Overlapping rectangles are merged, and once
+ * MAX_RECTS would be exceeded the two rectangles whose union wastes the least
+ * area are merged, so the list stays short however many changes come in.
+ */
+public class DamageTracker {
+    
+    /** Most rectangles kept before merging */
+    public static final int MAX_RECTS = 8;
+    
+    private final int[] rects = new int[MAX_RECTS * 4]; // {x, y, width, height} per rectangle
+    private int count;
+    private boolean full;
+    
+    /**
+     * Mark the whole screen changed
+     */
+    public void addFull() {
+        full = true;
+        count = 0;
+    }
+    
+    /**
+     * Mark a rectangle changed
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @param width Width (nothing is added if not positive)
+     * @param height Height (nothing is added if not positive)
+     */
+    public void add(int x, int y, int width, int height) {
+        if (full || width <= 0 || height <= 0) {
+            return;
+        }
+        
+        // Absorb every rectangle the new one touches, repeating as it grows
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < count; i++) {
+                int o = i * 4;
+                if (x <= rects[o] + rects[o + 2] && rects[o] <= x + width &&
+                    y <= rects[o + 1] + rects[o + 3] && rects[o + 1] <= y + height) {
+                    int right = Math.max(x + width, rects[o] + rects[o + 2]);
+                    int bottom = Math.max(y + height, rects[o + 1] + rects[o + 3]);
+                    x = Math.min(x, rects[o]);
+                    y = Math.min(y, rects[o + 1]);
+                    width = right - x;
+                    height = bottom - y;
+                    remove(i);
+                    merged = true;
+                    break;
+                }
+            }
+        }
+        
+        if (count == MAX_RECTS) {
+            mergeCheapestPair();
+        }
+        int o = count * 4;
+        rects[o] = x;
+        rects[o + 1] = y;
+        rects[o + 2] = width;
+        rects[o + 3] = height;
+        count++;
+    }
+    
+    private void remove(int index) {
+        count--;
+        System.arraycopy(rects, (index + 1) * 4, rects, index * 4, (count - index) * 4);
+    }
+    
+    /**
+     * Merge the two rectangles whose bounding box adds the least uncovered area
+     */
+    private void mergeCheapestPair() {
+        int bestA = 0;
+        int bestB = 1;
+        long bestWaste = Long.MAX_VALUE;
+        for (int a = 0; a < count; a++) {
+            for (int b = a + 1; b < count; b++) {
+                long waste = unionArea(a, b) - area(a) - area(b);
+                if (waste < bestWaste) {
+                    bestWaste = waste;
+                    bestA = a;
+                    bestB = b;
+                }
+            }
+        }
+        
+        int oa = bestA * 4;
+        int ob = bestB * 4;
+        int right = Math.max(rects[oa] + rects[oa + 2], rects[ob] + rects[ob + 2]);
+        int bottom = Math.max(rects[oa + 1] + rects[oa + 3], rects[ob + 1] + rects[ob + 3]);
+        rects[oa] = Math.min(rects[oa], rects[ob]);
+        rects[oa + 1] = Math.min(rects[oa + 1], rects[ob + 1]);
+        rects[oa + 2] = right - rects[oa];
+        rects[oa + 3] = bottom - rects[oa + 1];
+        remove(bestB);
+    }
+    
+    private long area(int index) {
+        return (long) rects[index * 4 + 2] * rects[index * 4 + 3];
+    }
+    
+    private long unionArea(int a, int b) {
+        int oa = a * 4;
+        int ob = b * 4;
+        long width = Math.max(rects[oa] + rects[oa + 2], rects[ob] + rects[ob + 2]) - Math.min(rects[oa], rects[ob]);
+        long height = Math.max(rects[oa + 1] + rects[oa + 3], rects[ob + 1] + rects[ob + 3]) - Math.min(rects[oa + 1], rects[ob + 1]);
+        return width * height;
+    }
+    
+    /**
+     * Forget all damage (after the frame is drawn)
+     */
+    public void clear() {
+        full = false;
+        count = 0;
+    }
+    
+    /**
+     * Check if nothing changed, so the frame can be skipped
+     * @return true if no damage was added
+     */
+    public boolean isEmpty() {
+        return !full && count == 0;
+    }
+    
+    /**
+     * Check if the whole screen has to be redrawn
+     * @return true if addFull() was called
+     */
+    public boolean isFull() {
+        return full;
+    }
+    
+    /**
+     * Get the number of damaged rectangles (0 when full)
+     * @return Rectangle count
+     */
+    public int getRectCount() {
+        return count;
+    }
+    
+    public int getX(int index) {
+        return rects[index * 4];
+    }
+    
+    public int getY(int index) {
+        return rects[index * 4 + 1];
+    }
+    
+    public int getWidth(int index) {
+        return rects[index * 4 + 2];
+    }
+    
+    public int getHeight(int index) {
+        return rects[index * 4 + 3];
+    }
+    
+    @Override
+    public String toString() {
+        return full ? "DamageTracker{full}" : "DamageTracker{" + count + " rects}";
+    }
+}
@@ -1,20 +1,31 @@
 package com.greenfarm3.game;
 
+import com.greenfarm3.assets.AssetHotReloader;
+import com.greenfarm3.assets.AssetManager;
+import com.greenfarm3.assets.AssetPreloader;
+import com.greenfarm3.assets.FrameHandoff;
 import com.greenfarm3.game.states.InventoryState;
 import com.greenfarm3.game.states.MenuState;
 import com.greenfarm3.game.states.PlayState;
 import com.greenfarm3.game.states.SettingsState;
 import com.greenfarm3.game.states.ShopState;
 import com.greenfarm3.storage.SaveManager;
+import com.greenfarm3.ui.RenderCommandBuffer;
 import com.greenfarm3.ui.Renderer;
 import javafx.animation.AnimationTimer;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 
 /**
  * Main game engine. Manages game loop, state, and rendering.
  * Replaces the J2ME Canvas game loop.
+ * 
+ * The loop still updates every frame, but only redraws what the current state
+ * reports as damaged (see GameState.invalidate), clipped to those areas. A frame
+ * with no damage is skipped, so an idle menu or farm leaves the canvas alone and
+ * JavaFX has nothing to repaint.
  */
 public class GameEngine {
     
@@ -25,9 +36,14 @@ public class GameEngine {
     private GameState currentState;
     private PlayState playState; // Reference to play state for UI transitions
     private SaveManager saveManager;
+    private AssetPreloader assetPreloader;
+    private AssetHotReloader hotReloader; // Only with -Dgreenfarm3.assets.dir (development)
+    private FrameHandoff frameHandoff; // Background decode results, drained once per frame
     
     private boolean running = false;
     private long lastFrameTime = 0;
+    private long renderedFrames = 0;
+    private long skippedFrames = 0;
     private static final long TARGET_FPS = 60;
     private static final long FRAME_TIME_NS = 1_000_000_000 / TARGET_FPS;
     private static final int SCALE = 2;
@@ -36,13 +52,18 @@ public class GameEngine {
         this.canvas = canvas;
         this.gc = gc;
         this.renderer = new Renderer(gc, SCALE);
+        this.renderer.setCommandBuffer(new RenderCommandBuffer(gc)); // Sorted and drawn once per frame by render()
         this.saveManager = new SaveManager();
     }
     
     public void initialize() {
+        // Start decoding common assets on worker threads; the menu shows progress
+        assetPreloader = AssetManager.getInstance().preloadCommonAssetsAsync();
+        hotReloader = AssetHotReloader.startFromProperty(AssetManager.getInstance());
+        frameHandoff = AssetManager.getInstance().getFrameHandoff();
+        
         // Initialize with menu state
-        MenuState menuState = new MenuState(renderer);
-        menuState.setStateChangeCallback(this::handleStateChange);
+        MenuState menuState = createMenuState();
         currentState = menuState;
         currentState.initialize();
         
@@ -55,6 +76,15 @@ public class GameEngine {
                     return;
                 }
                 
+                // Frame boundary: take in decoded assets (within the frame budget) and reloads
+                int arrived = frameHandoff.drain();
+                if (hotReloader != null) {
+                    arrived += hotReloader.applyReloads(GameEngine.this::replaceImage);
+                }
+                if (arrived > 0) {
+                    invalidate(); // Anything on screen may be waiting for these
+                }
+                
                 long deltaTime = now - lastFrameTime;
                 
                 // Cap frame time to prevent large jumps
@@ -83,6 +113,23 @@ public class GameEngine {
             running = false;
             gameLoop.stop();
         }
+        if (hotReloader != null) {
+            hotReloader.close();
+            hotReloader = null;
+        }
+        AssetManager.getInstance().saveFormatIndex();
+    }
+    
+    /**
+     * Swap a reloaded image into the current state and the play state behind it
+     */
+    private void replaceImage(String path, Image oldImage, Image newImage) {
+        if (currentState != null) {
+            currentState.replaceImage(oldImage, newImage);
+        }
+        if (playState != null && playState != currentState) {
+            playState.replaceImage(oldImage, newImage);
+        }
     }
     
     private void update(double deltaTime) {
@@ -92,30 +139,67 @@ public class GameEngine {
     }
     
     private void render() {
-        // Clear canvas
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        DamageTracker damage = currentState != null ? currentState.getDamage() : null;
+        if (damage == null || damage.isEmpty()) {
+            skippedFrames++;
+            return;
+        }
+        renderedFrames++;
         
-        // Render current state
-        if (currentState != null) {
+        if (damage.isFull()) {
+            // Clear canvas
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
             currentState.render(gc);
+            renderer.flush();
+        } else {
+            // Clear and redraw only the damaged rectangles
+            gc.save();
+            gc.beginPath();
+            for (int i = 0; i < damage.getRectCount(); i++) {
+                gc.rect(damage.getX(i) * SCALE, damage.getY(i) * SCALE, 
+                        damage.getWidth(i) * SCALE, damage.getHeight(i) * SCALE);
+            }
+            gc.clip();
+            for (int i = 0; i < damage.getRectCount(); i++) {
+                gc.clearRect(damage.getX(i) * SCALE, damage.getY(i) * SCALE, 
+                             damage.getWidth(i) * SCALE, damage.getHeight(i) * SCALE);
+            }
+            currentState.render(gc);
+            renderer.flush();
+            gc.restore();
+        }
+        damage.clear();
+    }
+    
+    /**
+     * Redraw the whole current state on the next frame
+     */
+    public void invalidate() {
+        if (currentState != null) {
+            currentState.invalidate();
         }
     }
     
+    // Input may change anything on screen, so it always redraws the state
+    
     public void handleClick(int x, int y) {
         if (currentState != null) {
             currentState.handleClick(x, y);
+            invalidate();
         }
     }
     
     public void handleKeyPress(KeyCode keyCode) {
         if (currentState != null) {
             currentState.handleKeyPress(keyCode);
+            invalidate();
         }
     }
     
     public void handleKeyRelease(KeyCode keyCode) {
         if (currentState != null) {
             currentState.handleKeyRelease(keyCode);
+            invalidate();
         }
     }
     
@@ -188,9 +272,7 @@ public class GameEngine {
                 break;
             case "quit_to_menu":
                 // Return to main menu
-                MenuState menuState = new MenuState(renderer);
-                menuState.setStateChangeCallback(this::handleStateChange);
-                setState(menuState);
+                setState(createMenuState());
                 playState = null; // Clear reference
                 break;
             case "back":
@@ -203,6 +285,16 @@ public class GameEngine {
         }
     }
     
+    /**
+     * Create the main menu wired to engine callbacks and asset loading progress
+     */
+    private MenuState createMenuState() {
+        MenuState menuState = new MenuState(renderer);
+        menuState.setStateChangeCallback(this::handleStateChange);
+        menuState.setAssetPreloader(assetPreloader);
+        return menuState;
+    }
+    
     /**
      * Open inventory screen
      */
@@ -249,4 +341,20 @@ public class GameEngine {
     public GameState getCurrentState() {
         return currentState;
     }
+    
+    /**
+     * Get the number of frames drawn since the engine was created
+     * @return Rendered frame count
+     */
+    public long getRenderedFrameCount() {
+        return renderedFrames;
+    }
+    
+    /**
+     * Get the number of frames skipped because nothing changed
+     * @return Skipped frame count
+     */
+    public long getSkippedFrameCount() {
+        return skippedFrames;
+    }
 }
@@ -1,21 +1,56 @@
 package com.greenfarm3.game;
 
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 
 /**
  * Base class for game states (menu, gameplay, pause, etc.)
  * Implements state pattern for game flow management.
+ * 
+ * A state is only redrawn when something changed: it reports what with
+ * invalidate(), and the engine skips the frame when nothing was reported.
+ * Input, newly loaded assets and state changes already invalidate the whole
+ * state; a state calls invalidate() itself for changes it makes on its own in
+ * update() (animation, movement, progress).
  */
 public abstract class GameState {
     
     protected boolean initialized = false;
+    private final DamageTracker damage = new DamageTracker();
     
     /**
      * Initialize the game state
      */
     public void initialize() {
         initialized = true;
+        invalidate();
+    }
+    
+    /**
+     * Redraw the whole state on the next frame
+     */
+    public void invalidate() {
+        damage.addFull();
+    }
+    
+    /**
+     * Redraw part of the state on the next frame
+     * @param x X coordinate (in game coordinates)
+     * @param y Y coordinate (in game coordinates)
+     * @param width Width (in game coordinates)
+     * @param height Height (in game coordinates)
+     */
+    public void invalidate(int x, int y, int width, int height) {
+        damage.add(x, y, width, height);
+    }
+    
+    /**
+     * Get what changed since the last frame was drawn (cleared by the engine after drawing)
+     * @return Damage of this state
+     */
+    public DamageTracker getDamage() {
+        return damage;
     }
     
     /**
@@ -25,7 +60,8 @@ public abstract class GameState {
     public abstract void update(double deltaTime);
     
     /**
-     * Render the game state
+     * Render the game state. Drawing is clipped to the damaged area, so a state
+     * can always draw everything.
      * @param gc GraphicsContext for drawing
      */
     public abstract void render(GraphicsContext gc);
@@ -55,6 +91,16 @@ public abstract class GameState {
         // Override in subclasses
     }
     
+    /**
+     * Swap a reloaded image into this state's sprites (development hot reload).
+     * Called between frames.
+     * @param oldImage Image that was replaced
+     * @param newImage Replacement image
+     */
+    public void replaceImage(Image oldImage, Image newImage) {
+        // Override in subclasses that hold sprites
+    }
+    
     /**
      * Cleanup when leaving this state
      */
@@ -14,6 +14,9 @@ public class Sprite {
     private int height;
     private int x;
     private int y;
+    private Image atlasImage; // Atlas page holding a copy of image, or null to draw image itself
+    private int atlasX;
+    private int atlasY;
     
     /**
      * Create a sprite from an image
@@ -55,6 +58,59 @@ public class Sprite {
         return image;
     }
     
+    /**
+     * Swap in a reloaded image if this sprite shows the old one (see AssetHotReloader).
+     * Size follows the new image; position is kept.
+     * @param oldImage Image that was replaced
+     * @param newImage Replacement image
+     * @return true if this sprite now shows newImage
+     */
+    public boolean replaceImage(Image oldImage, Image newImage) {
+        if (image != oldImage || newImage == null) {
+            return false;
+        }
+        this.image = newImage;
+        this.width = (int) newImage.getWidth();
+        this.height = (int) newImage.getHeight();
+        clearAtlasRegion(); // The atlas holds the old pixels
+        return true;
+    }
+    
+    /**
+     * Draw this sprite from a region of an atlas page (see TextureAtlas)
+     * @param atlas Atlas page holding a copy of the image
+     * @param x Left of the region in the page
+     * @param y Top of the region in the page
+     */
+    public void setAtlasRegion(Image atlas, int x, int y) {
+        this.atlasImage = atlas;
+        this.atlasX = x;
+        this.atlasY = y;
+    }
+    
+    /**
+     * Draw this sprite from its own image again
+     */
+    public void clearAtlasRegion() {
+        this.atlasImage = null;
+    }
+    
+    /**
+     * Get the atlas page this sprite is drawn from
+     * @return Atlas page, or null if the sprite draws its own image
+     */
+    public Image getAtlasImage() {
+        return atlasImage;
+    }
+    
+    public int getAtlasX() {
+        return atlasX;
+    }
+    
+    public int getAtlasY() {
+        return atlasY;
+    }
+    
     /**
      * Get sprite name
      * @return Name of the sprite
@@ -0,0 +1,296 @@
+package com.greenfarm3.game;
+
+import com.greenfarm3.logging.Logger;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.image.WritablePixelFormat;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs sprite images into a few large pages so that sprites are
+ * drawn as regions of a shared image instead of one texture each.
+ *
+ * Each page is packed with a skyline (bottom-left) packer: the top edge of
+ * what is placed so far is kept as a list of horizontal segments, and a new
+ * image goes wherever it ends up lowest. Images are added as they finish
+ * loading; a page that is full is left alone and a new one is started, up to
+ * the page limit. Every image gets a 1 pixel border copied from its own edge
+ * pixels, so scaled drawing never samples a neighbour.
+ *
+ * Packing copies pixels, so it belongs at load time (when a sprite is
+ * created), never inside render().
+ */
+public class TextureAtlas {
+    
+    private static final Logger LOG = Logger.get(TextureAtlas.class);
+    
+    /** Default page width and height */
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+    /** Default maximum number of pages */
+    public static final int DEFAULT_MAX_PAGES = 4;
+    /** Default largest sprite side packed; bigger images gain little from sharing a texture */
+    public static final int DEFAULT_MAX_SPRITE_SIZE = 256;
+    
+    private static final int PADDING = 1;
+    
+    private final int pageSize;
+    private final int maxPages;
+    private final int maxSpriteSize;
+    private final List<Page> pages;
+    private final Map<Image, Region> regions; // Images already packed, shared by every sprite showing them
+    
+    public TextureAtlas() {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, DEFAULT_MAX_SPRITE_SIZE);
+    }
+    
+    /**
+     * Create an empty atlas
+     * @param pageSize Page width and height in pixels
+     * @param maxPages Maximum number of pages
+     * @param maxSpriteSize Images wider or taller than this are not packed
+     */
+    public TextureAtlas(int pageSize, int maxPages, int maxSpriteSize) {
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.maxSpriteSize = Math.min(maxSpriteSize, pageSize - 2 * PADDING);
+        this.pages = new ArrayList<>();
+        this.regions = new IdentityHashMap<>();
+    }
+    
+    /**
+     * Where one image was packed
+     */
+    private static class Region {
+        final WritableImage page;
+        final int x;
+        final int y;
+        
+        Region(WritableImage page, int x, int y) {
+            this.page = page;
+            this.x = x;
+            this.y = y;
+        }
+    }
+    
+    /**
+     * Pack a sprite's image and point the sprite at its region.
+     * A sprite whose image is already packed just gets the existing region.
+     * @param sprite Sprite to pack
+     * @return true if the sprite now draws from the atlas; false if its image is
+     *         too large, cannot be read, or no page has room (it keeps drawing its own image)
+     */
+    public boolean add(Sprite sprite) {
+        if (sprite == null || !sprite.isValid()) {
+            return false;
+        }
+        
+        Image image = sprite.getImage();
+        Region region = regions.get(image);
+        if (region == null) {
+            region = pack(image, sprite.getWidth(), sprite.getHeight());
+            if (region == null) {
+                return false;
+            }
+            regions.put(image, region);
+        }
+        sprite.setAtlasRegion(region.page, region.x, region.y);
+        return true;
+    }
+    
+    private Region pack(Image image, int width, int height) {
+        PixelReader reader = image.getPixelReader();
+        if (reader == null || width > maxSpriteSize || height > maxSpriteSize) {
+            return null;
+        }
+        
+        int cellWidth = width + 2 * PADDING;
+        int cellHeight = height + 2 * PADDING;
+        for (Page page : pages) {
+            int[] position = page.skyline.place(cellWidth, cellHeight);
+            if (position != null) {
+                return copy(reader, page.image, position[0] + PADDING, position[1] + PADDING, width, height);
+            }
+        }
+        if (pages.size() >= maxPages) {
+            LOG.debug("Atlas full, drawing {}x{} image on its own", width, height);
+            return null;
+        }
+        
+        Page page = new Page(pageSize);
+        pages.add(page);
+        LOG.debug("Atlas page {} created ({}x{})", pages.size(), pageSize, pageSize);
+        int[] position = page.skyline.place(cellWidth, cellHeight);
+        return copy(reader, page.image, position[0] + PADDING, position[1] + PADDING, width, height);
+    }
+    
+    /**
+     * Copy an image into a page and extrude its edge pixels into the padding
+     */
+    private static Region copy(PixelReader reader, WritableImage page, int x, int y, int width, int height) {
+        WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbPreInstance();
+        int[] pixels = new int[width * height];
+        reader.getPixels(0, 0, width, height, format, pixels, 0, width);
+        
+        PixelWriter writer = page.getPixelWriter();
+        writer.setPixels(x, y, width, height, format, pixels, 0, width);
+        writer.setPixels(x - 1, y, 1, height, format, pixels, 0, width);                           // Left
+        writer.setPixels(x + width, y, 1, height, format, pixels, width - 1, width);               // Right
+        writer.setPixels(x, y - 1, width, 1, format, pixels, 0, width);                            // Top
+        writer.setPixels(x, y + height, width, 1, format, pixels, (height - 1) * width, width);    // Bottom
+        writer.setPixels(x - 1, y - 1, 1, 1, format, pixels, 0, width);
+        writer.setPixels(x + width, y - 1, 1, 1, format, pixels, width - 1, width);
+        writer.setPixels(x - 1, y + height, 1, 1, format, pixels, (height - 1) * width, width);
+        writer.setPixels(x + width, y + height, 1, 1, format, pixels, height * width - 1, width);
+        return new Region(page, x, y);
+    }
+    
+    /**
+     * One atlas page and its skyline
+     */
+    private static class Page {
+        final WritableImage image;
+        final Skyline skyline;
+        
+        Page(int size) {
+            this.image = new WritableImage(size, size);
+            this.skyline = new Skyline(size);
+        }
+    }
+    
+    /**
+     * Skyline packer for one square page (no pixels, so it can be tested without JavaFX)
+     */
+    static class Skyline {
+        final int size;
+        // Segments left to right, each {x, y, width}: covers [x, x + width) at height y
+        final List<int[]> segments;
+        
+        Skyline(int size) {
+            this.size = size;
+            this.segments = new ArrayList<>();
+            this.segments.add(new int[] {0, 0, size});
+        }
+        
+        /**
+         * Find the lowest spot for a cell (ties: the narrowest segment) and raise the skyline over it
+         * @return {x, y} of the cell, or null if it does not fit
+         */
+        int[] place(int width, int height) {
+            int bestIndex = -1;
+            int bestY = Integer.MAX_VALUE;
+            int bestWidth = Integer.MAX_VALUE;
+            for (int i = 0; i < segments.size(); i++) {
+                int y = fit(i, width);
+                if (y < 0 || y + height > size) {
+                    continue;
+                }
+                int segmentWidth = segments.get(i)[2];
+                if (y < bestY || (y == bestY && segmentWidth < bestWidth)) {
+                    bestIndex = i;
+                    bestY = y;
+                    bestWidth = segmentWidth;
+                }
+            }
+            if (bestIndex < 0) {
+                return null;
+            }
+            
+            int x = segments.get(bestIndex)[0];
+            raise(bestIndex, x, bestY + height, width);
+            return new int[] {x, bestY};
+        }
+        
+        /**
+         * Height a cell starting at segment i would rest at
+         * @return Resting y, or -1 if the cell runs past the right edge
+         */
+        private int fit(int index, int width) {
+            int x = segments.get(index)[0];
+            if (x + width > size) {
+                return -1;
+            }
+            int y = 0;
+            int remaining = width;
+            for (int i = index; remaining > 0; i++) {
+                int[] segment = segments.get(i);
+                y = Math.max(y, segment[1]);
+                remaining -= segment[2];
+            }
+            return y;
+        }
+        
+        /**
+         * Insert a segment for a placed cell and trim the segments it covers
+         */
+        private void raise(int index, int x, int top, int width) {
+            segments.add(index, new int[] {x, top, width});
+            int right = x + width;
+            int i = index + 1;
+            while (i < segments.size()) {
+                int[] segment = segments.get(i);
+                if (segment[0] >= right) {
+                    break;
+                }
+                int overlap = right - segment[0];
+                if (overlap >= segment[2]) {
+                    segments.remove(i);
+                    continue;
+                }
+                segment[0] += overlap;
+                segment[2] -= overlap;
+                break;
+            }
+            
+            // Merge neighbours at the same height
+            for (int j = 0; j < segments.size() - 1; ) {
+                int[] a = segments.get(j);
+                int[] b = segments.get(j + 1);
+                if (a[1] == b[1]) {
+                    a[2] += b[2];
+                    segments.remove(j + 1);
+                } else {
+                    j++;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the number of pages in use
+     * @return Page count
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+    
+    /**
+     * Get a page image (e.g. to inspect the packing)
+     * @param index Page index
+     * @return Page image, or null if the index is invalid
+     */
+    public Image getPage(int index) {
+        return index >= 0 && index < pages.size() ? pages.get(index).image : null;
+    }
+    
+    /**
+     * Get the number of distinct images packed
+     * @return Packed image count
+     */
+    public int getImageCount() {
+        return regions.size();
+    }
+    
+    @Override
+    public String toString() {
+        return "TextureAtlas{" + regions.size() + " images on " + pages.size() + " pages of " +
+               pageSize + "x" + pageSize + "}";
+    }
+}
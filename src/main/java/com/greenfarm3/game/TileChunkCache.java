@@ -0,0 +1,256 @@
+package com.greenfarm3.game;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.paint.Color;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-drawn images of a TileMap, one per chunk of CHUNK_SIZE x CHUNK_SIZE tiles.
+ *
+ * A chunk is drawn once, by copying its tiles' pixels into one image, and is
+ * drawn again only when the map says a tile in it changed (chunk version) or
+ * the look of a tile type it contains changed (a sprite arrived or was
+ * reloaded, see invalidateTile). Each chunk remembers which tile types it
+ * shows, so a new sprite only redraws the chunks that use it.
+ * A frame then draws a few chunk images instead of every visible tile, and
+ * that stays the same however large the map grows.
+ *
+ * Only chunks near the view keep their image; the rest are dropped and drawn
+ * again when they come back, so memory follows the view size, not the map size.
+ */
+class TileChunkCache {
+    
+    /** Chunks this far outside the view keep their image */
+    private static final int KEEP_MARGIN_CHUNKS = 1;
+    
+    private final TileMap map;
+    private final TileRenderer tiles;
+    private final Chunk[] chunks;  // [row * columns + column], null until first drawn
+    private final Map<Integer, int[]> tilePixels;  // tileId -> tile-sized IntArgbPre pixels
+    private final int[] buffer;  // One full chunk of pixels, reused for every bake
+    private int keepStartX, keepStartY, keepEndX, keepEndY;  // Chunk range kept last frame
+    private long bakeCount;
+    
+    /** Chunk.tiles bit for tile ids outside 0-62 */
+    private static final long OTHER_TILES = 1L << 63;
+    
+    /**
+     * One pre-drawn chunk
+     */
+    private static class Chunk {
+        WritableImage image;
+        int mapVersion;
+        long tiles;  // Bit per tile id shown (see tileBit)
+        boolean stale;  // A tile type shown here changed its look
+    }
+    
+    /**
+     * Create an empty cache for a map
+     * @param map Map whose chunks are drawn
+     * @param tiles Supplies each tile's sprite or fallback color
+     */
+    TileChunkCache(TileMap map, TileRenderer tiles) {
+        this.map = map;
+        this.tiles = tiles;
+        this.chunks = new Chunk[map.getChunkColumns() * map.getChunkRows()];
+        this.tilePixels = new HashMap<>();
+        this.buffer = new int[TileMap.CHUNK_SIZE * map.getTileWidth() * TileMap.CHUNK_SIZE * map.getTileHeight()];
+    }
+    
+    TileMap getMap() {
+        return map;
+    }
+    
+    /**
+     * Forget one tile type's pixels and mark the chunks showing it stale, because its sprite changed
+     * @param tileId Tile ID
+     */
+    void invalidateTile(int tileId) {
+        tilePixels.remove(tileId);
+        long bit = tileBit(tileId);
+        for (Chunk chunk : chunks) {
+            if (chunk != null && (chunk.tiles & bit) != 0) {
+                chunk.stale = true;
+            }
+        }
+    }
+    
+    private static long tileBit(int tileId) {
+        return tileId >= 0 && tileId < 63 ? 1L << tileId : OTHER_TILES;
+    }
+    
+    /**
+     * Get a chunk's image, drawing it first if it is missing or stale
+     * @param chunkX Chunk column
+     * @param chunkY Chunk row
+     * @return Chunk image, or null if the chunk is outside the map
+     */
+    Image getChunk(int chunkX, int chunkY) {
+        int version = map.getChunkVersion(chunkX, chunkY);
+        if (version < 0) {
+            return null;
+        }
+        
+        int index = chunkY * map.getChunkColumns() + chunkX;
+        Chunk chunk = chunks[index];
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunks[index] = chunk;
+        } else if (chunk.image != null && chunk.mapVersion == version && !chunk.stale) {
+            return chunk.image;
+        }
+        
+        bake(chunk, chunkX, chunkY);
+        chunk.mapVersion = version;
+        chunk.stale = false;
+        return chunk.image;
+    }
+    
+    /**
+     * Copy the tiles of one chunk into its image
+     */
+    private void bake(Chunk chunk, int chunkX, int chunkY) {
+        int tileWidth = map.getTileWidth();
+        int tileHeight = map.getTileHeight();
+        int startX = chunkX * TileMap.CHUNK_SIZE;
+        int startY = chunkY * TileMap.CHUNK_SIZE;
+        int columns = Math.min(TileMap.CHUNK_SIZE, map.getWidth() - startX);
+        int rows = Math.min(TileMap.CHUNK_SIZE, map.getHeight() - startY);
+        int width = columns * tileWidth;
+        int height = rows * tileHeight;
+        
+        long tiles = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int tileId = map.getTile(startX + column, startY + row);
+                tiles |= tileBit(tileId);
+                int[] pixels = getTilePixels(tileId, tileWidth, tileHeight);
+                int offset = row * tileHeight * width + column * tileWidth;
+                for (int y = 0; y < tileHeight; y++) {
+                    System.arraycopy(pixels, y * tileWidth, buffer, offset + y * width, tileWidth);
+                }
+            }
+        }
+        
+        // Edge chunks are smaller, so an image is only reused at the same size
+        if (chunk.image == null || (int) chunk.image.getWidth() != width || (int) chunk.image.getHeight() != height) {
+            chunk.image = new WritableImage(width, height);
+        }
+        chunk.image.getPixelWriter().setPixels(0, 0, width, height,
+            PixelFormat.getIntArgbPreInstance(), buffer, 0, width);
+        chunk.tiles = tiles;
+        bakeCount++;
+    }
+    
+    /**
+     * Get one tile's pixels at tile size: its sprite scaled to fit, or its fallback color
+     */
+    private int[] getTilePixels(int tileId, int tileWidth, int tileHeight) {
+        int[] pixels = tilePixels.get(tileId);
+        if (pixels != null) {
+            return pixels;
+        }
+        
+        pixels = readSprite(tiles.getTileSprite(tileId), tileWidth, tileHeight);
+        if (pixels == null) {
+            Color color = tiles.getTileColor(tileId);
+            pixels = new int[tileWidth * tileHeight];
+            Arrays.fill(pixels, toArgbPre(color != null ? color : Color.MAGENTA));
+        }
+        tilePixels.put(tileId, pixels);
+        return pixels;
+    }
+    
+    /**
+     * Read a sprite's pixels, scaled to tile size (nearest neighbour, as the tiles are pixel art)
+     * @return IntArgbPre pixels, or null if the sprite has no readable image
+     */
+    private static int[] readSprite(Sprite sprite, int tileWidth, int tileHeight) {
+        if (sprite == null || !sprite.isValid()) {
+            return null;
+        }
+        PixelReader reader = sprite.getImage().getPixelReader();
+        if (reader == null) {
+            return null;
+        }
+        
+        WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbPreInstance();
+        int width = sprite.getWidth();
+        int height = sprite.getHeight();
+        int[] source = new int[width * height];
+        reader.getPixels(0, 0, width, height, format, source, 0, width);
+        if (width == tileWidth && height == tileHeight) {
+            return source;
+        }
+        
+        int[] scaled = new int[tileWidth * tileHeight];
+        for (int y = 0; y < tileHeight; y++) {
+            int sourceRow = (y * height / tileHeight) * width;
+            for (int x = 0; x < tileWidth; x++) {
+                scaled[y * tileWidth + x] = source[sourceRow + x * width / tileWidth];
+            }
+        }
+        return scaled;
+    }
+    
+    private static int toArgbPre(Color color) {
+        double alpha = color.getOpacity();
+        return ((int) Math.round(alpha * 255) << 24) |
+               ((int) Math.round(color.getRed() * alpha * 255) << 16) |
+               ((int) Math.round(color.getGreen() * alpha * 255) << 8) |
+               (int) Math.round(color.getBlue() * alpha * 255);
+    }
+    
+    /**
+     * Drop the images of chunks that left the view (plus a margin).
+     * Only scans when the visible chunk range changed since the last call.
+     * @param startX First visible chunk column
+     * @param startY First visible chunk row
+     * @param endX Chunk column past the view
+     * @param endY Chunk row past the view
+     */
+    void retain(int startX, int startY, int endX, int endY) {
+        startX -= KEEP_MARGIN_CHUNKS;
+        startY -= KEEP_MARGIN_CHUNKS;
+        endX += KEEP_MARGIN_CHUNKS;
+        endY += KEEP_MARGIN_CHUNKS;
+        if (startX == keepStartX && startY == keepStartY && endX == keepEndX && endY == keepEndY) {
+            return;
+        }
+        keepStartX = startX;
+        keepStartY = startY;
+        keepEndX = endX;
+        keepEndY = endY;
+        
+        int columns = map.getChunkColumns();
+        for (int i = 0; i < chunks.length; i++) {
+            int cx = i % columns;
+            int cy = i / columns;
+            if (chunks[i] != null && (cx < startX || cx >= endX || cy < startY || cy >= endY)) {
+                chunks[i] = null;
+            }
+        }
+    }
+    
+    /**
+     * Get the number of chunk images drawn so far
+     * @return Bake count
+     */
+    long getBakeCount() {
+        return bakeCount;
+    }
+    
+    @Override
+    public String toString() {
+        return "TileChunkCache{" + map.getChunkColumns() + "x" + map.getChunkRows() + " chunks, " +
+               bakeCount + " baked}";
+    }
+}
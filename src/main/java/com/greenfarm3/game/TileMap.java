@@ -19,11 +19,17 @@ public class TileMap {
     public static final int PROPERTY_WALKABLE = 1;
     public static final int PROPERTY_PLANTABLE = 2;
     
+    /** Side of a render chunk in tiles (see TileChunkCache) */
+    public static final int CHUNK_SIZE = 8;
+    
     private int[][] tiles;  // tileId tại mỗi vị trí [y][x]
     private int tileWidth;
     private int tileHeight;
     private int mapWidth;   // Số tiles theo chiều ngang
     private int mapHeight;  // Số tiles theo chiều dọc
+    private int chunkColumns;
+    private int chunkRows;
+    private int[] chunkVersions;  // Bumped when a tile in the chunk changes, [row * chunkColumns + column]
     
     /**
      * Create a new tile map
@@ -38,6 +44,9 @@ public class TileMap {
         this.tileWidth = tileWidth;
         this.tileHeight = tileHeight;
         this.tiles = new int[mapHeight][mapWidth];
+        this.chunkColumns = (mapWidth + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunkRows = (mapHeight + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunkVersions = new int[chunkColumns * chunkRows];
         
         // Initialize with grass tiles
         fill(TILE_GRASS);
@@ -76,7 +85,10 @@ public class TileMap {
         if (!isValidPosition(x, y)) {
             return false;
         }
-        tiles[y][x] = tileId;
+        if (tiles[y][x] != tileId) {
+            tiles[y][x] = tileId;
+            chunkVersions[(y / CHUNK_SIZE) * chunkColumns + x / CHUNK_SIZE]++;
+        }
         return true;
     }
     
@@ -100,6 +112,7 @@ public class TileMap {
                 tiles[y][x] = tileId;
             }
         }
+        touchChunks(0, 0, mapWidth, mapHeight);
     }
     
     /**
@@ -118,6 +131,60 @@ public class TileMap {
                 tiles[ty][tx] = tileId;
             }
         }
+        touchChunks(x, y, x + width, y + height);
+    }
+    
+    /**
+     * Bump the version of every chunk overlapping a tile range
+     * @param startX First tile X
+     * @param startY First tile Y
+     * @param endX Tile X past the range
+     * @param endY Tile Y past the range
+     */
+    private void touchChunks(int startX, int startY, int endX, int endY) {
+        startX = Math.max(0, startX);
+        startY = Math.max(0, startY);
+        endX = Math.min(mapWidth, endX);
+        endY = Math.min(mapHeight, endY);
+        if (startX >= endX || startY >= endY) {
+            return;
+        }
+        for (int cy = startY / CHUNK_SIZE; cy <= (endY - 1) / CHUNK_SIZE; cy++) {
+            for (int cx = startX / CHUNK_SIZE; cx <= (endX - 1) / CHUNK_SIZE; cx++) {
+                chunkVersions[cy * chunkColumns + cx]++;
+            }
+        }
+    }
+    
+    /**
+     * Get the number of chunk columns (CHUNK_SIZE tiles each, the last may be narrower)
+     * @return Chunk columns
+     */
+    public int getChunkColumns() {
+        return chunkColumns;
+    }
+    
+    /**
+     * Get the number of chunk rows (CHUNK_SIZE tiles each, the last may be shorter)
+     * @return Chunk rows
+     */
+    public int getChunkRows() {
+        return chunkRows;
+    }
+    
+    /**
+     * Get a chunk's version. It changes whenever setTile, fill or fillRect
+     * changes a tile inside the chunk, so a renderer can keep a chunk drawn
+     * once and redraw it only when its version moves.
+     * @param chunkX Chunk column
+     * @param chunkY Chunk row
+     * @return Chunk version, or -1 if the chunk is outside the map
+     */
+    public int getChunkVersion(int chunkX, int chunkY) {
+        if (chunkX < 0 || chunkX >= chunkColumns || chunkY < 0 || chunkY >= chunkRows) {
+            return -1;
+        }
+        return chunkVersions[chunkY * chunkColumns + chunkX];
     }
     
     /**
@@ -208,23 +275,71 @@ public class TileMap {
     }
     
     /**
-     * Convert world pixel coordinates to tile coordinates
+     * Convert world pixel coordinates to tile coordinates.
+     * Allocates; per-frame code uses pixelToTileX/Y or the bulk variant.
      * @param pixelX Pixel X coordinate
      * @param pixelY Pixel Y coordinate
      * @return Array with [tileX, tileY], or null if out of bounds
      */
     public int[] pixelToTile(int pixelX, int pixelY) {
-        int tileX = pixelX / tileWidth;
-        int tileY = pixelY / tileHeight;
+        int tileX = pixelToTileX(pixelX);
+        int tileY = pixelToTileY(pixelY);
         
-        if (isValidPosition(tileX, tileY)) {
+        if (tileX >= 0 && tileY >= 0) {
             return new int[]{tileX, tileY};
         }
         return null;
     }
     
     /**
-     * Convert tile coordinates to world pixel coordinates (top-left of tile)
+     * Convert a world pixel X coordinate to a tile column
+     * @param pixelX Pixel X coordinate
+     * @return Tile X coordinate, or -1 if outside the map
+     */
+    public int pixelToTileX(int pixelX) {
+        int tileX = pixelX / tileWidth;
+        return tileX >= 0 && tileX < mapWidth ? tileX : -1;
+    }
+    
+    /**
+     * Convert a world pixel Y coordinate to a tile row
+     * @param pixelY Pixel Y coordinate
+     * @return Tile Y coordinate, or -1 if outside the map
+     */
+    public int pixelToTileY(int pixelY) {
+        int tileY = pixelY / tileHeight;
+        return tileY >= 0 && tileY < mapHeight ? tileY : -1;
+    }
+    
+    /**
+     * Convert points from pixel to tile coordinates into a caller's array
+     * @param pixels Points as [x0, y0, x1, y1, ...]
+     * @param pixelOffset Index of the first point's X
+     * @param tiles Receives [tileX, tileY] per point, [-1, -1] for points outside the map (may be the same array)
+     * @param tileOffset Index to write the first point's X
+     * @param count Number of points
+     * @return Number of points inside the map
+     */
+    public int pixelToTile(int[] pixels, int pixelOffset, int[] tiles, int tileOffset, int count) {
+        int inside = 0;
+        for (int i = 0; i < count * 2; i += 2) {
+            int tileX = pixelToTileX(pixels[pixelOffset + i]);
+            int tileY = pixelToTileY(pixels[pixelOffset + i + 1]);
+            if (tileX < 0 || tileY < 0) {
+                tileX = -1;
+                tileY = -1;
+            } else {
+                inside++;
+            }
+            tiles[tileOffset + i] = tileX;
+            tiles[tileOffset + i + 1] = tileY;
+        }
+        return inside;
+    }
+    
+    /**
+     * Convert tile coordinates to world pixel coordinates (top-left of tile).
+     * Allocates; per-frame code uses tileToPixelX/Y or the bulk variant.
      * @param tileX Tile X coordinate
      * @param tileY Tile Y coordinate
      * @return Array with [pixelX, pixelY], or null if invalid
@@ -233,6 +348,41 @@ public class TileMap {
         if (!isValidPosition(tileX, tileY)) {
             return null;
         }
-        return new int[]{tileX * tileWidth, tileY * tileHeight};
+        return new int[]{tileToPixelX(tileX), tileToPixelY(tileY)};
+    }
+    
+    /**
+     * Convert a tile column to world pixel X (left edge of the tile).
+     * Not bounds checked, so it also places tiles just outside the map.
+     * @param tileX Tile X coordinate
+     * @return Pixel X coordinate
+     */
+    public int tileToPixelX(int tileX) {
+        return tileX * tileWidth;
+    }
+    
+    /**
+     * Convert a tile row to world pixel Y (top edge of the tile).
+     * Not bounds checked, so it also places tiles just outside the map.
+     * @param tileY Tile Y coordinate
+     * @return Pixel Y coordinate
+     */
+    public int tileToPixelY(int tileY) {
+        return tileY * tileHeight;
+    }
+    
+    /**
+     * Convert points from tile to pixel coordinates into a caller's array
+     * @param tiles Points as [x0, y0, x1, y1, ...]
+     * @param tileOffset Index of the first point's X
+     * @param pixels Receives the top-left pixel of each tile (may be the same array)
+     * @param pixelOffset Index to write the first point's X
+     * @param count Number of points
+     */
+    public void tileToPixel(int[] tiles, int tileOffset, int[] pixels, int pixelOffset, int count) {
+        for (int i = 0; i < count * 2; i += 2) {
+            pixels[pixelOffset + i] = tiles[tileOffset + i] * tileWidth;
+            pixels[pixelOffset + i + 1] = tiles[tileOffset + i + 1] * tileHeight;
+        }
     }
 }
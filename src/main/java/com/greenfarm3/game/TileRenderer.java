@@ -1,35 +1,63 @@
 package com.greenfarm3.game;
 
-import com.greenfarm3.assets.AssetManager;
+import com.greenfarm3.assets.StreamingAssetLoader;
+import com.greenfarm3.logging.Logger;
 import com.greenfarm3.ui.Renderer;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Renders tiles from a TileMap.
  * Handles culling (only renders visible tiles) and tile sprite loading.
+ * 
+ * Tile sprites are streamed: each frame the tiles inside the camera view are
+ * requested first, then a ring of MARGIN_TILES around it, and every other tile
+ * sprite waits at background priority. Tiles draw as colored rectangles until
+ * their sprite arrives.
+ * 
+ * Tiles are not drawn one by one: the map is drawn in chunks of
+ * TileMap.CHUNK_SIZE tiles that are pre-drawn once and kept (TileChunkCache),
+ * and redrawn only when one of their tiles or a tile sprite changes. Tile
+ * sprites are only read when a chunk is drawn, so they are not packed into a
+ * TextureAtlas.
  */
 public class TileRenderer {
     
-    private AssetManager assetManager;
+    private static final Logger LOG = Logger.get(TileRenderer.class);
+    
+    /** Asset numbers tried as tile sprites */
+    private static final int[] TILE_NUMBERS = {0, 1, 2, 3, 4, 5, 10, 20, 30, 50};
+    
+    /** Width of the ring around the view whose tiles are requested ahead of time */
+    private static final int MARGIN_TILES = 2;
+    
+    private StreamingAssetLoader loader;
     private Map<Integer, Sprite> tileSprites;  // Map tileId -> Sprite
     private Map<Integer, Color> tileColors;    // Map tileId -> Color (fallback)
+    private Map<Integer, Integer> tileAssets;  // Map tileId -> asset number
+    private Map<Integer, CompletableFuture<Image>> pendingTiles;  // Map tileId -> request in flight
+    private TileChunkCache chunkCache;  // Pre-drawn chunks of the map last rendered
     
     /**
      * Create a new tile renderer
+     * @param loader Loader that streams the tile sprites
      */
-    public TileRenderer() {
-        this.assetManager = AssetManager.getInstance();
+    public TileRenderer(StreamingAssetLoader loader) {
+        this.loader = loader;
         this.tileSprites = new HashMap<>();
         this.tileColors = new HashMap<>();
+        this.tileAssets = new HashMap<>();
+        this.pendingTiles = new HashMap<>();
         
         // Initialize default tile colors (fallback if sprites not found)
         initializeTileColors();
         
-        // Try to load tile sprites
+        // Queue tile sprites (non-blocking)
         loadTileSprites();
     }
     
@@ -46,29 +74,107 @@ public class TileRenderer {
     }
     
     /**
-     * Load tile sprites from assets
-     * Tries to load numbered sprites that might be tiles
+     * Queue tile sprites from assets at background priority
+     * Tries numbered sprites that might be tiles; the ones in view are raised
+     * to a higher priority by render()
      */
     public void loadTileSprites() {
         // Try to load sprites for common tile types
         // We'll try numbered assets that might be tiles
-        int[] tileNumbers = {0, 1, 2, 3, 4, 5, 10, 20, 30, 50};
+        for (int num : TILE_NUMBERS) {
+            // Try to map to tile types based on number or order
+            // This is a heuristic - actual mapping might need adjustment
+            int tileId = mapNumberToTileId(num);
+            if (tileId >= 0 && !tileAssets.containsKey(tileId)) {
+                tileAssets.put(tileId, num);
+                requestTileSprite(tileId, StreamingAssetLoader.PRIORITY_BACKGROUND);
+            }
+        }
         
-        for (int num : tileNumbers) {
-            Image img = assetManager.loadImageByNumber(num);
+        LOG.debug("Queued {} tile sprites", tileAssets.size());
+    }
+    
+    /**
+     * Request a tile's sprite unless it is loaded already
+     */
+    private void requestTileSprite(int tileId, int priority) {
+        Integer number = tileAssets.get(tileId);
+        if (number == null || tileSprites.containsKey(tileId)) {
+            return;
+        }
+        // Same future while in flight; the loader only updates its priority
+        CompletableFuture<Image> future = loader.request(number, priority);
+        pendingTiles.putIfAbsent(tileId, future);
+    }
+    
+    /**
+     * Register the tile sprites that finished loading since the last frame.
+     * Runs on the render thread, so the sprite map needs no locking.
+     */
+    private void collectLoadedTiles() {
+        if (pendingTiles.isEmpty()) {
+            return; // Everything loaded, skip the iterator
+        }
+        Iterator<Map.Entry<Integer, CompletableFuture<Image>>> it = pendingTiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, CompletableFuture<Image>> entry = it.next();
+            CompletableFuture<Image> future = entry.getValue();
+            if (!future.isDone()) {
+                continue;
+            }
+            it.remove();
+            
+            // Cancelled requests left the view; they are requested again when they come back
+            Image img = future.isCancelled() || future.isCompletedExceptionally() ? null : future.getNow(null);
             if (img != null) {
-                // Try to map to tile types based on number or order
-                // This is a heuristic - actual mapping might need adjustment
-                int tileId = mapNumberToTileId(num);
-                if (tileId >= 0) {
-                    Sprite sprite = new Sprite(img, "tile_" + tileId);
-                    tileSprites.put(tileId, sprite);
-                    System.out.println("[TileRenderer] Loaded tile sprite " + tileId + " from asset " + num);
-                }
+                registerTileSprite(entry.getKey(), img);
+                LOG.debug("Loaded tile sprite {} from asset {}", entry.getKey(), tileAssets.get(entry.getKey()));
+            } else if (!future.isCancelled()) {
+                // Not an image, use the fallback color for good
+                tileAssets.remove(entry.getKey());
+            }
+        }
+    }
+    
+    /**
+     * Check if a tile sprite finished loading and waits to be picked up by the next render
+     * @return true if the map should be drawn again to show it
+     */
+    public boolean hasLoadedTiles() {
+        if (pendingTiles.isEmpty()) {
+            return false;
+        }
+        for (CompletableFuture<Image> future : pendingTiles.values()) {
+            if (future.isDone() && !future.isCancelled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Request the sprites of the tiles in and around the view, most urgent first
+     */
+    private void requestVisibleTiles(TileMap map, int startTileX, int startTileY, int endTileX, int endTileY) {
+        loader.beginFrame();
+        
+        int ringStartX = Math.max(0, startTileX - MARGIN_TILES);
+        int ringStartY = Math.max(0, startTileY - MARGIN_TILES);
+        int ringEndX = Math.min(map.getWidth(), endTileX + MARGIN_TILES);
+        int ringEndY = Math.min(map.getHeight(), endTileY + MARGIN_TILES);
+        
+        for (int ty = ringStartY; ty < ringEndY; ty++) {
+            for (int tx = ringStartX; tx < ringEndX; tx++) {
+                int tileId = map.getTile(tx, ty);
+                if (tileId < 0 || tileSprites.containsKey(tileId)) continue;
+                
+                boolean inView = tx >= startTileX && tx < endTileX && ty >= startTileY && ty < endTileY;
+                requestTileSprite(tileId, inView ? StreamingAssetLoader.PRIORITY_VISIBLE 
+                                                 : StreamingAssetLoader.PRIORITY_MARGIN);
             }
         }
         
-        System.out.println("[TileRenderer] Loaded " + tileSprites.size() + " tile sprites");
+        loader.endFrame();
     }
     
     /**
@@ -110,6 +216,7 @@ public class TileRenderer {
      */
     public void registerTileSprite(int tileId, Sprite sprite) {
         tileSprites.put(tileId, sprite);
+        invalidateChunks(tileId);
     }
     
     /**
@@ -119,8 +226,29 @@ public class TileRenderer {
      */
     public void registerTileSprite(int tileId, Image image) {
         if (image != null) {
-            Sprite sprite = new Sprite(image, "tile_" + tileId);
-            tileSprites.put(tileId, sprite);
+            registerTileSprite(tileId, new Sprite(image, "tile_" + tileId));
+        }
+    }
+    
+    /**
+     * Swap a reloaded image into every tile sprite that shows the old one
+     * @param oldImage Image that was replaced
+     * @param newImage Replacement image
+     */
+    public void replaceImage(Image oldImage, Image newImage) {
+        for (Map.Entry<Integer, Sprite> entry : tileSprites.entrySet()) {
+            if (entry.getValue().replaceImage(oldImage, newImage)) {
+                invalidateChunks(entry.getKey());
+            }
+        }
+    }
+    
+    /**
+     * Redraw the chunks showing a tile type on their next render because its look changed
+     */
+    private void invalidateChunks(int tileId) {
+        if (chunkCache != null) {
+            chunkCache.invalidateTile(tileId);
         }
     }
     
@@ -150,52 +278,40 @@ public class TileRenderer {
         endTileX = Math.min(map.getWidth(), endTileX);
         endTileY = Math.min(map.getHeight(), endTileY);
         
-        // Render visible tiles
-        for (int ty = startTileY; ty < endTileY; ty++) {
-            for (int tx = startTileX; tx < endTileX; tx++) {
-                int tileId = map.getTile(tx, ty);
-                if (tileId < 0) continue;
-                
-                // Calculate world position
-                int worldX = tx * tileWidth;
-                int worldY = ty * tileHeight;
+        // Stream in missing sprites, view first
+        collectLoadedTiles();
+        requestVisibleTiles(map, startTileX, startTileY, endTileX, endTileY);
+        
+        // Draw the visible chunks, pre-drawn and only redrawn when something in them changed
+        if (chunkCache == null || chunkCache.getMap() != map) {
+            chunkCache = new TileChunkCache(map, this);
+        }
+        int startChunkX = startTileX / TileMap.CHUNK_SIZE;
+        int startChunkY = startTileY / TileMap.CHUNK_SIZE;
+        int endChunkX = (endTileX + TileMap.CHUNK_SIZE - 1) / TileMap.CHUNK_SIZE;
+        int endChunkY = (endTileY + TileMap.CHUNK_SIZE - 1) / TileMap.CHUNK_SIZE;
+        chunkCache.retain(startChunkX, startChunkY, endChunkX, endChunkY);
+        
+        int chunkWidth = TileMap.CHUNK_SIZE * tileWidth;
+        int chunkHeight = TileMap.CHUNK_SIZE * tileHeight;
+        for (int cy = startChunkY; cy < endChunkY; cy++) {
+            for (int cx = startChunkX; cx < endChunkX; cx++) {
+                Image chunk = chunkCache.getChunk(cx, cy);
+                if (chunk == null) continue;
                 
                 // Convert to screen coordinates
-                int[] screenCoords = camera.worldToScreen(worldX, worldY);
-                int screenX = screenCoords[0];
-                int screenY = screenCoords[1];
-                
-                // Render tile
-                renderTile(renderer, tileId, screenX, screenY, tileWidth, tileHeight);
+                renderer.drawImage(chunk, camera.worldToScreenX(cx * chunkWidth), camera.worldToScreenY(cy * chunkHeight));
             }
         }
     }
     
     /**
-     * Render a single tile
-     * @param renderer Renderer to use
+     * Get the fallback color of a tile type
      * @param tileId Tile ID
-     * @param x Screen X coordinate
-     * @param y Screen Y coordinate
-     * @param width Tile width
-     * @param height Tile height
-     */
-    private void renderTile(Renderer renderer, int tileId, int x, int y, int width, int height) {
-        // Try to render with sprite first
-        Sprite sprite = tileSprites.get(tileId);
-        if (sprite != null && sprite.isValid()) {
-            renderer.drawSprite(sprite, x, y, width, height);
-            return;
-        }
-        
-        // Fallback to colored rectangle
-        Color color = tileColors.get(tileId);
-        if (color != null) {
-            renderer.fillRect(x, y, width, height, color);
-        } else {
-            // Default color if tile type not found
-            renderer.fillRect(x, y, width, height, Color.MAGENTA);
-        }
+     * @return Color drawn until the tile's sprite loads, or null if the tile type has none
+     */
+    Color getTileColor(int tileId) {
+        return tileColors.get(tileId);
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.greenfarm3.game.states;
 
+import com.greenfarm3.assets.AssetPreloader;
 import com.greenfarm3.game.GameState;
 import com.greenfarm3.ui.Renderer;
 import javafx.scene.canvas.GraphicsContext;
@@ -15,6 +16,8 @@ public class MenuState extends GameState {
     
     private Renderer renderer;
     private Consumer<String> stateChangeCallback;
+    private AssetPreloader assetPreloader;
+    private int shownProgress = -1; // Completed count last drawn, -1 once the bar is gone
     private int selectedOption = 0;
     private final String[] menuOptions = {
         "New Game",
@@ -23,6 +26,12 @@ public class MenuState extends GameState {
         "Exit"
     };
     
+    // Loading bar
+    private static final int BAR_X = 40;
+    private static final int BAR_Y = 300;
+    private static final int BAR_WIDTH = 160;
+    private static final int BAR_HEIGHT = 6;
+    
     public MenuState(Renderer renderer) {
         this.renderer = renderer;
     }
@@ -31,6 +40,14 @@ public class MenuState extends GameState {
         this.stateChangeCallback = callback;
     }
     
+    /**
+     * Show background asset loading progress on the menu
+     * @param preloader Preloader to poll (may be null)
+     */
+    public void setAssetPreloader(AssetPreloader preloader) {
+        this.assetPreloader = preloader;
+    }
+    
     @Override
     public void initialize() {
         super.initialize();
@@ -38,7 +55,15 @@ public class MenuState extends GameState {
     
     @Override
     public void update(double deltaTime) {
-        // Menu doesn't need continuous updates
+        // Menu doesn't need continuous updates, only the loading bar moves
+        if (assetPreloader == null) {
+            return;
+        }
+        int progress = assetPreloader.isDone() ? -1 : assetPreloader.getCompletedCount();
+        if (progress != shownProgress) {
+            shownProgress = progress;
+            invalidate(BAR_X, BAR_Y - 14, BAR_WIDTH, BAR_HEIGHT + 14); // Bar and label above it
+        }
     }
     
     @Override
@@ -64,6 +89,22 @@ public class MenuState extends GameState {
                 renderer.drawText(">", 60, startY + i * spacing, menuFont, color);
             }
         }
+        
+        // Draw asset loading progress (polled, never waits on the loader)
+        if (assetPreloader != null && !assetPreloader.isDone()) {
+            renderLoadingProgress();
+        }
+    }
+    
+    private void renderLoadingProgress() {
+        int filled = (int) (BAR_WIDTH * assetPreloader.getProgress());
+        
+        renderer.fillRect(BAR_X, BAR_Y, BAR_WIDTH, BAR_HEIGHT, Color.DARKGREEN.darker());
+        renderer.fillRect(BAR_X, BAR_Y, filled, BAR_HEIGHT, Color.YELLOWGREEN);
+        
+        Font progressFont = Font.font("Arial", 8);
+        String label = "Loading assets " + assetPreloader.getCompletedCount() + "/" + assetPreloader.getSubmittedCount();
+        renderer.drawText(label, BAR_X, BAR_Y - 4, progressFont, Color.DARKGREEN);
     }
     
     @Override
@@ -1,19 +1,25 @@
 package com.greenfarm3.game.states;
 
 import com.greenfarm3.assets.AssetManager;
+import com.greenfarm3.assets.StreamingAssetLoader;
 import com.greenfarm3.game.Camera;
 import com.greenfarm3.game.GameState;
 import com.greenfarm3.game.Sprite;
+import com.greenfarm3.game.TextureAtlas;
 import com.greenfarm3.game.TileMap;
 import com.greenfarm3.game.TileRenderer;
 import com.greenfarm3.game.states.PauseState;
 import com.greenfarm3.game.ui.HUDOverlay;
+import com.greenfarm3.logging.Logger;
 import com.greenfarm3.ui.Renderer;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -22,6 +28,8 @@ import java.util.function.Consumer;
  */
 public class PlayState extends GameState {
     
+    private static final Logger LOG = Logger.get(PlayState.class);
+    
     private Renderer renderer;
     private AssetManager assetManager;
     
@@ -34,11 +42,14 @@ public class PlayState extends GameState {
     private Sprite iconSprite;
     private Sprite playerSprite;
     private Sprite[] testSprites;
+    private List<CompletableFuture<Image>> pendingSprites;  // Streamed in, picked up by update()
+    private StreamingAssetLoader assetLoader;
     
     // Tile map system
     private TileMap tileMap;
     private Camera camera;
     private TileRenderer tileRenderer;
+    private TextureAtlas atlas;
     
     // Pause system
     private boolean isPaused = false;
@@ -49,6 +60,14 @@ public class PlayState extends GameState {
     private HUDOverlay hudOverlay;
     private Consumer<String> hudActionCallback;
     
+    // Debug text, rebuilt only when the values in it change
+    private final Font uiFont = Font.font("Arial", 12);
+    private final int[] debugValues = {Integer.MIN_VALUE, 0, 0, 0, 0, 0, 0};
+    private String playerInfo;
+    private String tileInfo;
+    private String cameraInfo;
+    private String tilesInfo;
+    
     // Viewport size (matches GameWindow base dimensions)
     private static final int VIEW_WIDTH = 240;
     private static final int VIEW_HEIGHT = 320;
@@ -92,10 +111,14 @@ public class PlayState extends GameState {
         // Initialize camera
         initializeCamera();
         
-        // Initialize tile renderer
-        tileRenderer = new TileRenderer();
+        // Initialize tile renderer (streams tile sprites in view first)
+        assetLoader = new StreamingAssetLoader(assetManager);
+        tileRenderer = new TileRenderer(assetLoader);
+        
+        // Sprites draw as regions of a few shared atlas pages (tiles draw from pre-drawn chunks instead)
+        atlas = new TextureAtlas();
         
-        // Load sprites
+        // Queue sprites (non-blocking, the first frame draws without them)
         loadSprites();
     }
     
@@ -107,9 +130,8 @@ public class PlayState extends GameState {
         // Generate default map
         tileMap.generateDefaultMap();
         
-        System.out.println("[PlayState] Tile map initialized: " + 
-                          tileMap.getWidth() + "x" + tileMap.getHeight() + 
-                          " tiles (" + tileMap.getPixelWidth() + "x" + tileMap.getPixelHeight() + " pixels)");
+        LOG.info("Tile map initialized: {}x{} tiles", tileMap.getWidth(), tileMap.getHeight());
+        LOG.debug("Tile map size: {}x{} pixels", tileMap.getPixelWidth(), tileMap.getPixelHeight());
     }
     
     private void initializeCamera() {
@@ -122,61 +144,94 @@ public class PlayState extends GameState {
         // Center camera on player initially
         camera.setCenter(playerX, playerY);
         
-        System.out.println("[PlayState] Camera initialized: " + 
-                          VIEW_WIDTH + "x" + VIEW_HEIGHT + " viewport");
+        LOG.info("Camera initialized: {}x{} viewport", VIEW_WIDTH, VIEW_HEIGHT);
     }
     
     private void loadSprites() {
-        // Load icon sprite
+        // Load icon sprite (small and always on screen)
         Image iconImage = assetManager.loadImage("/images/icon.png");
         if (iconImage != null) {
             iconSprite = new Sprite(iconImage, "icon");
-            System.out.println("[PlayState] Loaded icon sprite: " + iconSprite);
+            atlas.add(iconSprite);
+            playerSprite = iconSprite;
+            LOG.debug("Loaded icon sprite: {}", iconSprite);
         } else {
-            System.out.println("[PlayState] Warning: Could not load icon.png");
+            LOG.warn("Could not load icon.png");
         }
         
-        // Try to load numbered sprites (test with first few)
+        // Queue numbered sprites (test with first few) behind the visible tiles
         testSprites = new Sprite[10];
-        int loadedCount = 0;
-        for (int i = 0; i < 10; i++) {
-            Image img = assetManager.loadImageByNumber(i);
+        pendingSprites = new ArrayList<>(testSprites.length);
+        for (int i = 0; i < testSprites.length; i++) {
+            pendingSprites.add(assetLoader.request(i, StreamingAssetLoader.PRIORITY_BACKGROUND));
+        }
+        LOG.debug("Queued {} numbered sprites", testSprites.length);
+    }
+    
+    /**
+     * Pick up numbered sprites that finished loading.
+     * The first loaded one is used as the player sprite (icon until then).
+     * @return true if any sprite was picked up
+     */
+    private boolean collectLoadedSprites() {
+        if (pendingSprites == null) {
+            return false;
+        }
+        
+        boolean collected = false;
+        for (int i = 0; i < pendingSprites.size(); i++) {
+            CompletableFuture<Image> future = pendingSprites.get(i);
+            if (future == null || !future.isDone()) {
+                continue;
+            }
+            pendingSprites.set(i, null);
+            
+            Image img = future.isCancelled() || future.isCompletedExceptionally() ? null : future.getNow(null);
             if (img != null) {
                 testSprites[i] = new Sprite(img, "sprite_" + i);
-                loadedCount++;
-                System.out.println("[PlayState] Loaded sprite " + i + ": " + testSprites[i]);
+                atlas.add(testSprites[i]);
+                LOG.debug("Loaded sprite {}: {}", i, testSprites[i]);
+                collected = true;
             }
         }
-        System.out.println("[PlayState] Loaded " + loadedCount + " numbered sprites");
+        if (!collected) {
+            return false;
+        }
         
         // Try to use first loaded sprite as player sprite
-        for (Sprite sprite : testSprites) {
-            if (sprite != null && sprite.isValid()) {
-                playerSprite = sprite;
-                System.out.println("[PlayState] Using sprite as player: " + playerSprite.getName());
-                break;
+        if (playerSprite == null || playerSprite == iconSprite) {
+            for (Sprite sprite : testSprites) {
+                if (sprite != null && sprite.isValid()) {
+                    playerSprite = sprite;
+                    LOG.debug("Using sprite as player: {}", playerSprite.getName());
+                    break;
+                }
             }
         }
-        
-        // If no numbered sprites, try to use icon as player
-        if (playerSprite == null && iconSprite != null && iconSprite.isValid()) {
-            playerSprite = iconSprite;
-            System.out.println("[PlayState] Using icon as player sprite");
-        }
+        return true;
     }
     
     
     @Override
     public void update(double deltaTime) {
+        if (collectLoadedSprites() || (tileRenderer != null && tileRenderer.hasLoadedTiles())) {
+            invalidate();
+        }
+        
         // Don't update game when paused
         if (isPaused) {
             return;
         }
         
-        // Update camera to follow player
+        // Update camera to follow player (smooth follow keeps moving after the player stops)
         if (camera != null) {
+            int viewX = camera.getViewX();
+            int viewY = camera.getViewY();
             camera.follow(playerX, playerY);
             camera.update();
+            if (camera.getViewX() != viewX || camera.getViewY() != viewY) {
+                invalidate();
+            }
         }
     }
     
@@ -192,18 +247,19 @@ public class PlayState extends GameState {
         
         // Draw player sprite (convert world coords to screen coords)
         if (playerSprite != null && playerSprite.isValid() && camera != null) {
-            int[] screenCoords = camera.worldToScreen(playerX, playerY);
-            int screenX = screenCoords[0] - playerSprite.getWidth() / 2;
-            int screenY = screenCoords[1] - playerSprite.getHeight() / 2;
+            int screenX = camera.worldToScreenX(playerX) - playerSprite.getWidth() / 2;
+            int screenY = camera.worldToScreenY(playerY) - playerSprite.getHeight() / 2;
             renderer.drawSprite(playerSprite, screenX, screenY);
         } else if (camera != null) {
             // Fallback to placeholder rectangle
-            int[] screenCoords = camera.worldToScreen(playerX, playerY);
-            int screenX = screenCoords[0] - 10;
-            int screenY = screenCoords[1] - 10;
+            int screenX = camera.worldToScreenX(playerX) - 10;
+            int screenY = camera.worldToScreenY(playerY) - 10;
             renderer.fillRect(screenX, screenY, 20, 20, Color.BLUE);
         }
         
+        // Everything below is drawn over the map at fixed screen positions
+        renderer.setLayer(Renderer.LAYER_UI);
+        
         // Draw test sprites in a row (if loaded) - fixed screen position
         if (testSprites != null) {
             int x = 10;
@@ -226,21 +282,22 @@ public class PlayState extends GameState {
         }
         
         // Draw UI overlay
-        Font uiFont = Font.font("Arial", 12);
         renderer.drawText("Green Farm 3", 10, 20, uiFont, Color.WHITE);
         
         // Draw debug info
         if (tileMap != null && camera != null) {
-            int[] playerTile = tileMap.pixelToTile(playerX, playerY);
-            String tileInfo = playerTile != null ? 
-                "Tile: " + playerTile[0] + "," + playerTile[1] : "Tile: out of bounds";
-            renderer.drawText("Player: " + playerX + "," + playerY, 10, 35, uiFont, Color.WHITE);
+            updateDebugText();
+            renderer.drawText(playerInfo, 10, 35, uiFont, Color.WHITE);
             renderer.drawText(tileInfo, 10, 50, uiFont, Color.WHITE);
-            renderer.drawText("Camera: " + camera.getViewX() + "," + camera.getViewY(), 10, 65, uiFont, Color.WHITE);
+            renderer.drawText(cameraInfo, 10, 65, uiFont, Color.WHITE);
         }
         
         if (tileRenderer != null) {
-            renderer.drawText("Tiles loaded: " + tileRenderer.getLoadedSpriteCount(), 10, 80, uiFont, Color.WHITE);
+            if (tilesInfo == null || debugValues[6] != tileRenderer.getLoadedSpriteCount()) {
+                debugValues[6] = tileRenderer.getLoadedSpriteCount();
+                tilesInfo = "Tiles loaded: " + debugValues[6];
+            }
+            renderer.drawText(tilesInfo, 10, 80, uiFont, Color.WHITE);
         }
         
         // Render HUD overlay (always visible when not paused)
@@ -250,10 +307,33 @@ public class PlayState extends GameState {
         
         // Render pause menu overlay if paused
         if (isPaused && pauseState != null) {
+            renderer.setLayer(Renderer.LAYER_OVERLAY);
             pauseState.render(gc);
         }
     }
     
+    /**
+     * Rebuild the player, tile and camera debug lines if their values changed
+     */
+    private void updateDebugText() {
+        int tileX = tileMap.pixelToTileX(playerX);
+        int tileY = tileMap.pixelToTileY(playerY);
+        if (debugValues[0] == playerX && debugValues[1] == playerY && debugValues[2] == tileX &&
+            debugValues[3] == tileY && debugValues[4] == camera.getViewX() && debugValues[5] == camera.getViewY()) {
+            return;
+        }
+        debugValues[0] = playerX;
+        debugValues[1] = playerY;
+        debugValues[2] = tileX;
+        debugValues[3] = tileY;
+        debugValues[4] = camera.getViewX();
+        debugValues[5] = camera.getViewY();
+        
+        playerInfo = "Player: " + playerX + "," + playerY;
+        tileInfo = tileX >= 0 && tileY >= 0 ? "Tile: " + tileX + "," + tileY : "Tile: out of bounds";
+        cameraInfo = "Camera: " + camera.getViewX() + "," + camera.getViewY();
+    }
+    
     @Override
     public void handleKeyPress(KeyCode keyCode) {
         int newX = playerX;
@@ -303,9 +383,10 @@ public class PlayState extends GameState {
         
         // Check if tile is walkable (if we have a map)
         if (tileMap != null) {
-            int[] tile = tileMap.pixelToTile(newX, newY);
-            if (tile != null) {
-                int tileId = tileMap.getTile(tile[0], tile[1]);
+            int tileX = tileMap.pixelToTileX(newX);
+            int tileY = tileMap.pixelToTileY(newY);
+            if (tileX >= 0 && tileY >= 0) {
+                int tileId = tileMap.getTile(tileX, tileY);
                 if (TileMap.isWalkable(tileId)) {
                     playerX = newX;
                     playerY = newY;
@@ -356,6 +437,36 @@ public class PlayState extends GameState {
         }
     }
     
+    @Override
+    public void replaceImage(Image oldImage, Image newImage) {
+        // playerSprite is usually one of these, but may be the only reference
+        for (Sprite sprite : new Sprite[] {iconSprite, playerSprite}) {
+            if (sprite != null && sprite.replaceImage(oldImage, newImage)) {
+                atlas.add(sprite);
+            }
+        }
+        if (testSprites != null) {
+            for (Sprite sprite : testSprites) {
+                if (sprite != null && sprite.replaceImage(oldImage, newImage)) {
+                    atlas.add(sprite);
+                }
+            }
+        }
+        if (tileRenderer != null) {
+            tileRenderer.replaceImage(oldImage, newImage);
+        }
+    }
+    
+    @Override
+    public void cleanup() {
+        super.cleanup();
+        // Drop whatever is still queued; loaded images stay in the AssetManager cache
+        if (assetLoader != null) {
+            assetLoader.shutdown();
+            assetLoader = null;
+        }
+    }
+    
     /**
      * Check if game is paused
      */
@@ -35,6 +35,15 @@ public class HUDOverlay {
     
     private Button[] buttons;
     
+    // Fonts and colors, created once rather than every frame
+    private final Font infoFont = Font.font("Arial", 10);
+    private final Font buttonFont = Font.font("Arial", 11);
+    private final Color infoBgColor = new Color(0, 0, 0, 0.6);
+    private final Color buttonBgColor = new Color(0.3, 0.3, 0.3, 0.8);
+    private final String[] infoText = new String[2];  // Money and level lines, rebuilt when they change
+    private int shownMoney = -1;
+    private int shownLevel = -1;
+    
     // Game info (placeholders)
     private int money = 0;
     private int level = 1;
@@ -85,17 +94,19 @@ public class HUDOverlay {
      */
     public void render() {
         // Draw semi-transparent background for info area (top-left)
-        Color infoBgColor = new Color(0, 0, 0, 0.6);
         renderer.fillRect(HUD_PADDING, HUD_PADDING, 100, 50, infoBgColor);
         
         // Draw game info
-        Font infoFont = Font.font("Arial", 10);
-        renderer.drawText("Money: $" + money, HUD_PADDING + 5, HUD_PADDING + 15, infoFont, Color.WHITE);
-        renderer.drawText("Level: " + level, HUD_PADDING + 5, HUD_PADDING + 30, infoFont, Color.WHITE);
+        if (money != shownMoney || level != shownLevel) {
+            shownMoney = money;
+            shownLevel = level;
+            infoText[0] = "Money: $" + money;
+            infoText[1] = "Level: " + level;
+        }
+        renderer.drawText(infoText[0], HUD_PADDING + 5, HUD_PADDING + 15, infoFont, Color.WHITE);
+        renderer.drawText(infoText[1], HUD_PADDING + 5, HUD_PADDING + 30, infoFont, Color.WHITE);
         
         // Draw buttons (top-right)
-        Font buttonFont = Font.font("Arial", 11);
-        Color buttonBgColor = new Color(0.3, 0.3, 0.3, 0.8);
         Color buttonTextColor = Color.WHITE;
         
         for (Button button : buttons) {
@@ -0,0 +1,219 @@
+package com.greenfarm3.logging;
+
+import java.io.PrintStream;
+
+/**
+ * Writes log messages to the console on a background thread.
+ *
+ * Callers copy the template and raw arguments into a preallocated ring slot
+ * and return; formatting and console I/O happen on the "log-writer" thread,
+ * so the game loop never waits for the terminal. If the ring is full the
+ * message is dropped and counted instead of blocking the caller.
+ */
+final class AsyncLogWriter implements Runnable {
+    
+    /** Ring capacity in messages (power of two) */
+    private static final int CAPACITY = 1024;
+    /** Longest a shutdown flush may delay exit */
+    private static final long SHUTDOWN_FLUSH_MILLIS = 500;
+    
+    static final AsyncLogWriter INSTANCE = new AsyncLogWriter();
+    
+    private final Event[] ring;
+    private final int mask;
+    private long head;      // Next slot the writer reads, guarded by this
+    private long tail;      // Next slot a caller fills, guarded by this
+    private long dropped;   // Messages lost to a full ring since the last report
+    private boolean idle;   // Writer thread is waiting for messages
+    private final StringBuilder line = new StringBuilder(256); // Writer thread only
+    
+    private AsyncLogWriter() {
+        this.ring = new Event[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Event();
+        }
+        this.mask = CAPACITY - 1;
+        
+        Thread thread = new Thread(this, "log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(SHUTDOWN_FLUSH_MILLIS), "log-flush"));
+    }
+    
+    /**
+     * Queue a message. Never blocks on I/O; drops the message if the ring is full.
+     * Object arguments are formatted later on the writer thread, so they
+     * should not be modified after logging (strings and numbers are safe).
+     */
+    synchronized void append(LogLevel level, String tag, String format, int argCount, int longMask,
+                             Object o0, Object o1, Object o2, Object o3, long l0, long l1, long l2, long l3) {
+        if (tail - head == CAPACITY) {
+            dropped++;
+            return;
+        }
+        
+        Event event = ring[(int) (tail & mask)];
+        event.level = level;
+        event.tag = tag;
+        event.format = format;
+        event.argCount = argCount;
+        event.longMask = longMask;
+        event.o0 = o0;
+        event.o1 = o1;
+        event.o2 = o2;
+        event.o3 = o3;
+        event.l0 = l0;
+        event.l1 = l1;
+        event.l2 = l2;
+        event.l3 = l3;
+        tail++;
+        if (idle) {
+            notifyAll();
+        }
+    }
+    
+    /**
+     * Wait until everything queued so far has been written
+     * @param timeoutMillis Maximum time to wait
+     */
+    synchronized void flush(long timeoutMillis) {
+        long target = tail;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            while (head < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                wait(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public void run() {
+        while (true) {
+            long from;
+            long to;
+            long lost;
+            synchronized (this) {
+                while (head == tail) {
+                    idle = true;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                idle = false;
+                from = head;
+                to = tail;
+                lost = dropped;
+                dropped = 0;
+            }
+            
+            // Slots in [from, to) are not reused by callers until head moves past them
+            for (long i = from; i < to; i++) {
+                Event event = ring[(int) (i & mask)];
+                try {
+                    write(event);
+                } catch (RuntimeException e) {
+                    // A failing toString() must not stop the writer
+                    System.err.println("[Log] Could not format message: " + event.format + " - " + e);
+                } finally {
+                    event.clear();
+                }
+            }
+            if (lost > 0) {
+                System.err.println("[Log] Dropped " + lost + " messages (log writer could not keep up)");
+            }
+            System.out.flush();
+            
+            synchronized (this) {
+                head = to;
+                notifyAll(); // Wake flush()
+            }
+        }
+    }
+    
+    private void write(Event event) {
+        line.setLength(0);
+        line.append('[').append(event.tag).append("] ");
+        Throwable thrown = format(event);
+        
+        PrintStream out = event.level.compareTo(LogLevel.WARN) <= 0 ? System.err : System.out;
+        out.println(line);
+        if (thrown != null) {
+            thrown.printStackTrace(out);
+        }
+    }
+    
+    /**
+     * Replace each {} in the template with the next argument.
+     * @return A trailing Throwable argument left without a placeholder (printed with its stack trace), or null
+     */
+    private Throwable format(Event event) {
+        String format = event.format;
+        int arg = 0;
+        int start = 0;
+        int placeholder;
+        while (arg < event.argCount && (placeholder = format.indexOf("{}", start)) >= 0) {
+            line.append(format, start, placeholder);
+            appendArg(event, arg++);
+            start = placeholder + 2;
+        }
+        line.append(format, start, format.length());
+        
+        if (arg == event.argCount - 1 && (event.longMask & (1 << arg)) == 0 && event.object(arg) instanceof Throwable) {
+            return (Throwable) event.object(arg);
+        }
+        return null;
+    }
+    
+    private void appendArg(Event event, int index) {
+        if ((event.longMask & (1 << index)) != 0) {
+            line.append(event.number(index));
+        } else {
+            line.append(event.object(index));
+        }
+    }
+    
+    /**
+     * One ring slot: a log call's template and raw arguments.
+     * Argument i is a long if bit i of longMask is set, otherwise an Object.
+     */
+    private static final class Event {
+        LogLevel level;
+        String tag;
+        String format;
+        int argCount;
+        int longMask;
+        Object o0, o1, o2, o3;
+        long l0, l1, l2, l3;
+        
+        Object object(int index) {
+            switch (index) {
+                case 0: return o0;
+                case 1: return o1;
+                case 2: return o2;
+                default: return o3;
+            }
+        }
+        
+        long number(int index) {
+            switch (index) {
+                case 0: return l0;
+                case 1: return l1;
+                case 2: return l2;
+                default: return l3;
+            }
+        }
+        
+        void clear() {
+            // Do not keep logged objects reachable until the slot is reused
+            o0 = o1 = o2 = o3 = null;
+        }
+    }
+}
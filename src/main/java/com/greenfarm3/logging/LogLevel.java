@@ -0,0 +1,29 @@
+package com.greenfarm3.logging;
+
+/**
+ * Log levels, from most to least severe.
+ * A logger set to a level writes that level and everything more severe.
+ */
+public enum LogLevel {
+    ERROR,
+    WARN,
+    INFO,
+    DEBUG;
+    
+    /**
+     * Parse a level name, case-insensitive
+     * @param name Level name (e.g. "debug")
+     * @param fallback Level to use if the name is null or unknown
+     * @return Parsed level, or fallback
+     */
+    public static LogLevel parse(String name, LogLevel fallback) {
+        if (name != null) {
+            for (LogLevel level : values()) {
+                if (level.name().equalsIgnoreCase(name.trim())) {
+                    return level;
+                }
+            }
+        }
+        return fallback;
+    }
+}
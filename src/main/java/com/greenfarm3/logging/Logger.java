@@ -0,0 +1,245 @@
+package com.greenfarm3.logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Level-gated logger that hands messages to a background writer.
+ *
+ * Messages use {} placeholders instead of string concatenation:
+ *
+ *     log.debug("Loaded image: {} ({}x{})", path, width, height);
+ *
+ * The level is checked before anything else, so a disabled call costs one
+ * comparison and allocates nothing; numbers passed to the long overloads are
+ * never boxed. Enabled calls are copied into a ring buffer and formatted on
+ * the writer thread (see AsyncLogWriter). A Throwable passed as the last
+ * argument without a placeholder is printed with its stack trace.
+ *
+ * Levels default to the system property greenfarm3.log.level (INFO if unset);
+ * greenfarm3.log.level.Tag overrides it for one logger. A logger with its own
+ * level (from that property or setLevel) keeps it when the default changes.
+ */
+public final class Logger {
+    
+    private static final String LEVEL_PROPERTY = "greenfarm3.log.level";
+    private static final Map<String, Logger> LOGGERS = new ConcurrentHashMap<>();
+    private static volatile LogLevel defaultLevel = LogLevel.parse(System.getProperty(LEVEL_PROPERTY), LogLevel.INFO);
+    
+    private final String tag;
+    private volatile int threshold; // Ordinal of the most verbose level written
+    private volatile boolean ownLevel; // Set by a per-tag property or setLevel, not by the default
+    
+    private Logger(String tag) {
+        this.tag = tag;
+        String own = System.getProperty(LEVEL_PROPERTY + "." + tag);
+        LogLevel level = LogLevel.parse(own, null);
+        this.ownLevel = level != null;
+        this.threshold = (level != null ? level : defaultLevel).ordinal();
+    }
+    
+    /**
+     * Get the logger for a tag, creating it on first use
+     * @param tag Short name printed in front of each message (usually the class name)
+     * @return Shared logger
+     */
+    public static Logger get(String tag) {
+        return LOGGERS.computeIfAbsent(tag, Logger::new);
+    }
+    
+    /**
+     * Get the logger for a class, tagged with its simple name
+     * @param type Class that logs
+     * @return Shared logger
+     */
+    public static Logger get(Class<?> type) {
+        return get(type.getSimpleName());
+    }
+    
+    /**
+     * Set the level of every logger, existing and future, that has no level of its own
+     * @param level New level
+     */
+    public static void setDefaultLevel(LogLevel level) {
+        defaultLevel = level;
+        for (Logger logger : LOGGERS.values()) {
+            if (!logger.ownLevel) {
+                logger.threshold = level.ordinal();
+            }
+        }
+    }
+    
+    /**
+     * Wait until queued messages have been written (e.g. before exiting)
+     * @param timeoutMillis Maximum time to wait
+     */
+    public static void flush(long timeoutMillis) {
+        AsyncLogWriter.INSTANCE.flush(timeoutMillis);
+    }
+    
+    /**
+     * Give this logger its own level, kept when the default level changes
+     * @param level New level
+     */
+    public void setLevel(LogLevel level) {
+        this.threshold = level.ordinal();
+        this.ownLevel = true;
+    }
+    
+    public LogLevel getLevel() {
+        return LogLevel.values()[threshold];
+    }
+    
+    public String getTag() {
+        return tag;
+    }
+    
+    /**
+     * Check a level before building expensive arguments
+     * @param level Level to check
+     * @return true if messages at this level are written
+     */
+    public boolean isEnabled(LogLevel level) {
+        return level.ordinal() <= threshold;
+    }
+    
+    public boolean isDebugEnabled() {
+        return LogLevel.DEBUG.ordinal() <= threshold;
+    }
+    
+    // ERROR
+    
+    public void error(String message) {
+        log(LogLevel.ERROR, message, 0, 0, null, null, null, null, 0, 0, 0, 0);
+    }
+    
+    public void error(String format, Object a) {
+        log(LogLevel.ERROR, format, 1, 0, a, null, null, null, 0, 0, 0, 0);
+    }
+    
+    public void error(String format, Object a, Object b) {
+        log(LogLevel.ERROR, format, 2, 0, a, b, null, null, 0, 0, 0, 0);
+    }
+    
+    public void error(String format, Object a, Object b, Object c) {
+        log(LogLevel.ERROR, format, 3, 0, a, b, c, null, 0, 0, 0, 0);
+    }
+    
+    // WARN
+    
+    public void warn(String message) {
+        log(LogLevel.WARN, message, 0, 0, null, null, null, null, 0, 0, 0, 0);
+    }
+    
+    public void warn(String format, Object a) {
+        log(LogLevel.WARN, format, 1, 0, a, null, null, null, 0, 0, 0, 0);
+    }
+    
+    public void warn(String format, Object a, Object b) {
+        log(LogLevel.WARN, format, 2, 0, a, b, null, null, 0, 0, 0, 0);
+    }
+    
+    public void warn(String format, Object a, long b) {
+        log(LogLevel.WARN, format, 2, 0b010, a, null, null, null, 0, b, 0, 0);
+    }
+    
+    public void warn(String format, Object a, Object b, Object c) {
+        log(LogLevel.WARN, format, 3, 0, a, b, c, null, 0, 0, 0, 0);
+    }
+    
+    // INFO
+    
+    public void info(String message) {
+        log(LogLevel.INFO, message, 0, 0, null, null, null, null, 0, 0, 0, 0);
+    }
+    
+    public void info(String format, Object a) {
+        log(LogLevel.INFO, format, 1, 0, a, null, null, null, 0, 0, 0, 0);
+    }
+    
+    public void info(String format, Object a, Object b) {
+        log(LogLevel.INFO, format, 2, 0, a, b, null, null, 0, 0, 0, 0);
+    }
+    
+    public void info(String format, Object a, Object b, Object c) {
+        log(LogLevel.INFO, format, 3, 0, a, b, c, null, 0, 0, 0, 0);
+    }
+    
+    public void info(String format, long a) {
+        log(LogLevel.INFO, format, 1, 0b001, null, null, null, null, a, 0, 0, 0);
+    }
+    
+    public void info(String format, long a, long b) {
+        log(LogLevel.INFO, format, 2, 0b011, null, null, null, null, a, b, 0, 0);
+    }
+    
+    public void info(String format, Object a, long b, long c) {
+        log(LogLevel.INFO, format, 3, 0b110, a, null, null, null, 0, b, c, 0);
+    }
+    
+    // DEBUG
+    
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message, 0, 0, null, null, null, null, 0, 0, 0, 0);
+    }
+    
+    public void debug(String format, Object a) {
+        log(LogLevel.DEBUG, format, 1, 0, a, null, null, null, 0, 0, 0, 0);
+    }
+    
+    public void debug(String format, Object a, Object b) {
+        log(LogLevel.DEBUG, format, 2, 0, a, b, null, null, 0, 0, 0, 0);
+    }
+    
+    public void debug(String format, Object a, Object b, Object c) {
+        log(LogLevel.DEBUG, format, 3, 0, a, b, c, null, 0, 0, 0, 0);
+    }
+    
+    public void debug(String format, long a) {
+        log(LogLevel.DEBUG, format, 1, 0b001, null, null, null, null, a, 0, 0, 0);
+    }
+    
+    public void debug(String format, long a, long b) {
+        log(LogLevel.DEBUG, format, 2, 0b011, null, null, null, null, a, b, 0, 0);
+    }
+    
+    public void debug(String format, Object a, long b) {
+        log(LogLevel.DEBUG, format, 2, 0b010, a, null, null, null, 0, b, 0, 0);
+    }
+    
+    public void debug(String format, long a, Object b) {
+        log(LogLevel.DEBUG, format, 2, 0b001, null, b, null, null, a, 0, 0, 0);
+    }
+    
+    public void debug(String format, long a, long b, long c) {
+        log(LogLevel.DEBUG, format, 3, 0b111, null, null, null, null, a, b, c, 0);
+    }
+    
+    public void debug(String format, Object a, long b, long c) {
+        log(LogLevel.DEBUG, format, 3, 0b110, a, null, null, null, 0, b, c, 0);
+    }
+    
+    public void debug(String format, Object a, Object b, Object c, Object d) {
+        log(LogLevel.DEBUG, format, 4, 0, a, b, c, d, 0, 0, 0, 0);
+    }
+    
+    public void debug(String format, Object a, Object b, long c) {
+        log(LogLevel.DEBUG, format, 3, 0b100, a, b, null, null, 0, 0, c, 0);
+    }
+    
+    public void debug(String format, Object a, Object b, long c, long d) {
+        log(LogLevel.DEBUG, format, 4, 0b1100, a, b, null, null, 0, 0, c, d);
+    }
+    
+    public void debug(String format, Object a, long b, long c, long d) {
+        log(LogLevel.DEBUG, format, 4, 0b1110, a, null, null, null, 0, b, c, d);
+    }
+    
+    private void log(LogLevel level, String format, int argCount, int longMask,
+                     Object o0, Object o1, Object o2, Object o3, long l0, long l1, long l2, long l3) {
+        if (level.ordinal() > threshold) {
+            return;
+        }
+        AsyncLogWriter.INSTANCE.append(level, tag, format, argCount, longMask, o0, o1, o2, o3, l0, l1, l2, l3);
+    }
+}
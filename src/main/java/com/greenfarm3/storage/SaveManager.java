@@ -3,6 +3,7 @@ package com.greenfarm3.storage;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.greenfarm3.game.GameState;
+import com.greenfarm3.logging.Logger;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -15,6 +16,7 @@ import java.nio.file.Paths;
  */
 public class SaveManager {
     
+    private static final Logger LOG = Logger.get(SaveManager.class);
     private static final String SAVE_DIR = "saves";
     private static final String SAVE_FILE = "savegame.json";
     private final Gson gson;
@@ -32,7 +34,7 @@ public class SaveManager {
                 Files.createDirectories(savePath);
             }
         } catch (IOException e) {
-            System.err.println("Failed to create save directory: " + e.getMessage());
+            LOG.error("Failed to create save directory: {}", e.getMessage());
         }
     }
     
@@ -53,10 +55,9 @@ public class SaveManager {
             Path filePath = savePath.resolve(SAVE_FILE);
             Files.write(filePath, json.getBytes());
             
-            System.out.println("Game saved successfully");
+            LOG.info("Game saved successfully");
         } catch (IOException e) {
-            System.err.println("Failed to save game: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Failed to save game", e);
         }
     }
     
@@ -69,7 +70,7 @@ public class SaveManager {
             Path filePath = savePath.resolve(SAVE_FILE);
             
             if (!Files.exists(filePath)) {
-                System.out.println("No save file found");
+                LOG.info("No save file found");
                 return null;
             }
             
@@ -82,11 +83,10 @@ public class SaveManager {
             // Convert to game state
             GameState gameState = saveData.toGameState();
             
-            System.out.println("Game loaded successfully");
+            LOG.info("Game loaded successfully");
             return gameState;
         } catch (IOException e) {
-            System.err.println("Failed to load game: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Failed to load game", e);
             return null;
         }
     }
@@ -108,10 +108,10 @@ public class SaveManager {
             Path filePath = savePath.resolve(SAVE_FILE);
             if (Files.exists(filePath)) {
                 Files.delete(filePath);
-                System.out.println("Save file deleted");
+                LOG.info("Save file deleted");
             }
         } catch (IOException e) {
-            System.err.println("Failed to delete save: " + e.getMessage());
+            LOG.error("Failed to delete save: {}", e.getMessage());
         }
     }
 }
@@ -0,0 +1,601 @@
+package com.greenfarm3.ui;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Records draw calls for a frame and plays them back sorted, so that calls
+ * using the same color, font or image run together and the GraphicsContext
+ * state changes as little as possible.
+ *
+ * Commands are kept in primitive arrays (reused between frames) with a sort
+ * key of layer, batch, state and sequence number. Layers draw in order. Inside
+ * a layer a command may move ahead of earlier commands with a different state,
+ * but never ahead of one it overlaps, so the picture is the same as drawing in
+ * call order. The sequence number keeps the sort stable.
+ *
+ * States are numbered per frame (one id for each distinct operation, paint and
+ * font or image), and the sort key is sized at flush time from the frame's
+ * batch, state and command counts, so a frame never runs out of key space and
+ * nothing is drawn before flush() is called.
+ *
+ * Overlap is found through a grid per layer rather than by comparing every
+ * pair of commands: each cell lists the last CELL_ENTRIES commands that cover
+ * it, and a new command is tested exactly against the commands listed in the
+ * cells it covers. Older commands of a busy cell are folded into a summary
+ * (highest batch, and whether it holds one state) that is treated as
+ * overlapping everything in the cell, which only costs batching. Recording
+ * therefore costs the cells covered, however many commands the frame has.
+ *
+ * Coordinates are canvas pixels (already scaled by the Renderer).
+ */
+public class RenderCommandBuffer {
+    
+    /** Highest layer number */
+    public static final int MAX_LAYER = 31;
+    
+    // Sort key: layer | batch | state | sequence, each as wide as the frame needs; the sign bit stays clear
+    private static final int LAYER_BITS = 5;
+    private static final int KEY_BITS = 63;
+    
+    /** Resource tables are emptied after a frame once they hold more entries than this */
+    private static final int RESOURCE_RESET_COUNT = 1024;
+    
+    // Overlap grid: 32 pixel cells (1 << CELL_SHIFT), GRID_SIZE x GRID_SIZE per layer; coordinates outside clamp to the edge cells
+    private static final int CELL_SHIFT = 5;
+    private static final int GRID_SIZE = 32;
+    private static final int CELL_ENTRIES = 16;
+    private static final int MIXED_STATES = -1;
+    
+    private static final int OP_FILL_RECT = 0;
+    private static final int OP_STROKE_RECT = 1;
+    private static final int OP_TEXT = 2;
+    private static final int OP_IMAGE = 3;
+    
+    private final Target target;
+    
+    // One entry per command
+    private int count;
+    private int[] ops = new int[256];
+    private int[] layers = new int[256];
+    private int[] batches = new int[256];
+    private int[] states = new int[256];
+    private int[] paints = new int[256];       // Resource id of the fill/stroke paint, or -1
+    private int[] textures = new int[256];     // Resource id of the font (text) or image, or -1
+    private double[] coords = new double[256 * 8]; // Source x, y, w, h (images), destination x, y, w, h
+    private String[] texts = new String[256];
+    private long[] keys = new long[256];
+    
+    // Per layer, created on first use: frame a cell was last drawn into, commands added to it,
+    // its last CELL_ENTRIES commands (a ring), and the top batch and state of the older ones (-1 if none)
+    private final int[][] cellFrames = new int[MAX_LAYER + 1][];
+    private final int[][] cellCounts = new int[MAX_LAYER + 1][];
+    private final int[][] cellEntries = new int[MAX_LAYER + 1][];
+    private final int[][] cellBatches = new int[MAX_LAYER + 1][];
+    private final int[][] cellStates = new int[MAX_LAYER + 1][];
+    private int frame = 1;  // Cells stamped with an older frame are empty
+    private int maxBatch;  // Highest batch this frame
+    
+    // State ids of this frame: open-addressing table from packed (op, paint, texture) to id
+    private long[] stateKeys = new long[256];  // 0 = empty slot
+    private int[] stateValues = new int[256];
+    private int stateCount;
+    private int[] order = new int[256];  // Command indices in playback order, filled by flush()
+    
+    // Paints and fonts are compared by value (callers create new Colors each frame), images by identity.
+    // Ids are kept between frames, so a steady frame looks them up without adding map entries.
+    private final Map<Object, Integer> valueIds = new HashMap<>();
+    private final Map<Object, Integer> imageIds = new IdentityHashMap<>();
+    private Object[] resources = new Object[64];
+    private int resourceCount;
+    
+    // Counts of the last flush
+    private int lastCommandCount;
+    private int lastDrawCalls;
+    private int lastStateChanges;
+    
+    /**
+     * Create an empty buffer
+     * @param gc GraphicsContext commands are played back into
+     */
+    public RenderCommandBuffer(GraphicsContext gc) {
+        this(new ContextTarget(gc));
+    }
+    
+    /**
+     * Create an empty buffer that plays back into something other than a GraphicsContext (tests)
+     * @param target Receiver of the sorted calls
+     */
+    RenderCommandBuffer(Target target) {
+        this.target = target;
+    }
+    
+    /**
+     * The GraphicsContext calls made by flush()
+     */
+    interface Target {
+        void setFill(Paint paint);
+        void setStroke(Paint paint);
+        void setFont(Font font);
+        void fillRect(double x, double y, double width, double height);
+        void strokeRect(double x, double y, double width, double height);
+        void fillText(String text, double x, double y);
+        void drawImage(Image image, double srcX, double srcY, double srcWidth, double srcHeight,
+                       double x, double y, double width, double height);
+    }
+    
+    private static class ContextTarget implements Target {
+        private final GraphicsContext gc;
+        
+        ContextTarget(GraphicsContext gc) {
+            this.gc = gc;
+        }
+        
+        @Override
+        public void setFill(Paint paint) {
+            gc.setFill(paint);
+        }
+        
+        @Override
+        public void setStroke(Paint paint) {
+            gc.setStroke(paint);
+        }
+        
+        @Override
+        public void setFont(Font font) {
+            gc.setFont(font);
+        }
+        
+        @Override
+        public void fillRect(double x, double y, double width, double height) {
+            gc.fillRect(x, y, width, height);
+        }
+        
+        @Override
+        public void strokeRect(double x, double y, double width, double height) {
+            gc.strokeRect(x, y, width, height);
+        }
+        
+        @Override
+        public void fillText(String text, double x, double y) {
+            gc.fillText(text, x, y);
+        }
+        
+        @Override
+        public void drawImage(Image image, double srcX, double srcY, double srcWidth, double srcHeight,
+                              double x, double y, double width, double height) {
+            gc.drawImage(image, srcX, srcY, srcWidth, srcHeight, x, y, width, height);
+        }
+    }
+    
+    /**
+     * Record a filled rectangle
+     * @param layer Layer (0 to MAX_LAYER, drawn in order)
+     * @param paint Fill paint
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @param width Width
+     * @param height Height
+     */
+    public void fillRect(int layer, Paint paint, double x, double y, double width, double height) {
+        ensureRoom();
+        int paintId = valueId(paint);
+        int index = record(OP_FILL_RECT, layer, paintId, -1, x, y, width, height);
+        setSource(index, 0, 0, 0, 0);
+    }
+    
+    /**
+     * Record a rectangle outline
+     * @param layer Layer (0 to MAX_LAYER, drawn in order)
+     * @param paint Stroke paint
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @param width Width
+     * @param height Height
+     */
+    public void strokeRect(int layer, Paint paint, double x, double y, double width, double height) {
+        ensureRoom();
+        int paintId = valueId(paint);
+        // A stroke is centered on the edge, so it reaches half a line width outside the rectangle
+        int index = record(OP_STROKE_RECT, layer, paintId, -1, x - 1, y - 1, width + 2, height + 2);
+        setSource(index, x, y, width, height);
+    }
+    
+    /**
+     * Record text
+     * @param layer Layer (0 to MAX_LAYER, drawn in order)
+     * @param font Font, or null for the context's current font
+     * @param paint Fill paint
+     * @param text Text to draw
+     * @param x X coordinate of the baseline start
+     * @param y Y coordinate of the baseline
+     */
+    public void fillText(int layer, Font font, Paint paint, String text, double x, double y) {
+        ensureRoom();
+        int fontId = font != null ? valueId(font) : -1;
+        int paintId = valueId(paint);
+        // Generous bounds (every glyph one em wide, descenders included): too large only costs batching
+        double size = font != null ? font.getSize() : 12;
+        int index = record(OP_TEXT, layer, paintId, fontId, x, y - size, text.length() * size, size * 1.5);
+        setSource(index, x, y, 0, 0);
+        texts[index] = text;
+    }
+    
+    /**
+     * Record a region of an image
+     * @param layer Layer (0 to MAX_LAYER, drawn in order)
+     * @param image Image to draw from
+     * @param srcX Source X
+     * @param srcY Source Y
+     * @param srcWidth Source width
+     * @param srcHeight Source height
+     * @param x Destination X
+     * @param y Destination Y
+     * @param width Destination width
+     * @param height Destination height
+     */
+    public void drawImage(int layer, Image image, double srcX, double srcY, double srcWidth, double srcHeight,
+                          double x, double y, double width, double height) {
+        ensureRoom();
+        int imageId = imageId(image);
+        int index = record(OP_IMAGE, layer, -1, imageId, x, y, width, height);
+        setSource(index, srcX, srcY, srcWidth, srcHeight);
+    }
+    
+    /**
+     * Make room for one more command
+     */
+    private void ensureRoom() {
+        if (count == ops.length) {
+            grow();
+        }
+    }
+    
+    /**
+     * Add a command, placing it in the first batch it can join without drawing over or under
+     * something it overlaps
+     * @return Command index
+     */
+    private int record(int op, int layer, int paintId, int textureId, double x, double y, double width, double height) {
+        layer = Math.max(0, Math.min(MAX_LAYER, layer));
+        int state = stateId(op, paintId, textureId);
+        
+        if (cellFrames[layer] == null) {
+            cellFrames[layer] = new int[GRID_SIZE * GRID_SIZE];
+            cellCounts[layer] = new int[GRID_SIZE * GRID_SIZE];
+            cellEntries[layer] = new int[GRID_SIZE * GRID_SIZE * CELL_ENTRIES];
+            cellBatches[layer] = new int[GRID_SIZE * GRID_SIZE];
+            cellStates[layer] = new int[GRID_SIZE * GRID_SIZE];
+        }
+        int[] frames = cellFrames[layer];
+        int[] counts = cellCounts[layer];
+        int[] entries = cellEntries[layer];
+        int[] olderBatches = cellBatches[layer];
+        int[] olderStates = cellStates[layer];
+        int startX = cell(x);
+        int startY = cell(y);
+        int endX = cell(x + width);
+        int endY = cell(y + height);
+        
+        // Lowest batch that draws after everything of another state this command overlaps
+        int batch = 0;
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int c = cy * GRID_SIZE + startX, end = cy * GRID_SIZE + endX; c <= end; c++) {
+                if (frames[c] != frame) {
+                    continue;
+                }
+                if (olderBatches[c] >= 0) {
+                    batch = Math.max(batch, olderStates[c] == state ? olderBatches[c] : olderBatches[c] + 1);
+                }
+                for (int e = c * CELL_ENTRIES, last = e + Math.min(counts[c], CELL_ENTRIES); e < last; e++) {
+                    int i = entries[e];
+                    if (states[i] == state && batches[i] <= batch) {
+                        continue; // Cannot push this command any later
+                    }
+                    int o = i * 8 + 4;
+                    if (x < coords[o] + coords[o + 2] && coords[o] < x + width &&
+                        y < coords[o + 1] + coords[o + 3] && coords[o + 1] < y + height) {
+                        batch = Math.max(batch, states[i] == state ? batches[i] : batches[i] + 1);
+                    }
+                }
+            }
+        }
+        maxBatch = Math.max(maxBatch, batch);
+        
+        int index = count++;
+        ops[index] = op;
+        layers[index] = layer;
+        batches[index] = batch;
+        states[index] = state;
+        paints[index] = paintId;
+        textures[index] = textureId;
+        texts[index] = null;
+        int o = index * 8 + 4;
+        coords[o] = x;
+        coords[o + 1] = y;
+        coords[o + 2] = width;
+        coords[o + 3] = height;
+        
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int c = cy * GRID_SIZE + startX, end = cy * GRID_SIZE + endX; c <= end; c++) {
+                if (frames[c] != frame) {
+                    frames[c] = frame;
+                    counts[c] = 0;
+                    olderBatches[c] = -1;
+                }
+                int e = c * CELL_ENTRIES + counts[c] % CELL_ENTRIES;
+                if (counts[c] >= CELL_ENTRIES) {
+                    // Ring full: fold the oldest command into the cell's summary
+                    int evicted = entries[e];
+                    if (batches[evicted] > olderBatches[c]) {
+                        olderBatches[c] = batches[evicted];
+                        olderStates[c] = states[evicted];
+                    } else if (batches[evicted] == olderBatches[c] && states[evicted] != olderStates[c]) {
+                        olderStates[c] = MIXED_STATES;
+                    }
+                }
+                entries[e] = index;
+                counts[c]++;
+            }
+        }
+        return index;
+    }
+    
+    /**
+     * Get this frame's id for a combination of operation and resources, numbering new ones in order
+     */
+    private int stateId(int op, int paintId, int textureId) {
+        long key = Long.MIN_VALUE | ((long) op << 60) | ((long) (paintId + 1) << 30) | (textureId + 1);
+        int mask = stateKeys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (stateKeys[slot] != 0) {
+            if (stateKeys[slot] == key) {
+                return stateValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        stateKeys[slot] = key;
+        stateValues[slot] = stateCount;
+        if (++stateCount * 2 > stateKeys.length) {
+            growStates();
+        }
+        return stateCount - 1;
+    }
+    
+    private void growStates() {
+        long[] oldKeys = stateKeys;
+        int[] oldValues = stateValues;
+        stateKeys = new long[oldKeys.length * 2];
+        stateValues = new int[oldKeys.length * 2];
+        int mask = stateKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = (int) ((oldKeys[i] * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+                while (stateKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                stateKeys[slot] = oldKeys[i];
+                stateValues[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int cell(double coordinate) {
+        return Math.max(0, Math.min(GRID_SIZE - 1, (int) Math.floor(coordinate) >> CELL_SHIFT));
+    }
+    
+    private void setSource(int index, double x, double y, double width, double height) {
+        int o = index * 8;
+        coords[o] = x;
+        coords[o + 1] = y;
+        coords[o + 2] = width;
+        coords[o + 3] = height;
+    }
+    
+    private void grow() {
+        int capacity = ops.length * 2;
+        ops = Arrays.copyOf(ops, capacity);
+        layers = Arrays.copyOf(layers, capacity);
+        batches = Arrays.copyOf(batches, capacity);
+        states = Arrays.copyOf(states, capacity);
+        paints = Arrays.copyOf(paints, capacity);
+        textures = Arrays.copyOf(textures, capacity);
+        coords = Arrays.copyOf(coords, capacity * 8);
+        texts = Arrays.copyOf(texts, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+    
+    private int valueId(Object resource) {
+        return resourceId(valueIds, resource);
+    }
+    
+    private int imageId(Image image) {
+        return resourceId(imageIds, image);
+    }
+    
+    private int resourceId(Map<Object, Integer> ids, Object resource) {
+        Integer id = ids.get(resource);
+        if (id == null) {
+            if (resourceCount == resources.length) {
+                resources = Arrays.copyOf(resources, resourceCount * 2);
+            }
+            id = resourceCount;
+            resources[resourceCount++] = resource;
+            ids.put(resource, id);
+        }
+        return id;
+    }
+    
+    /**
+     * Draw every recorded command, sorted, and empty the buffer
+     * @return Number of draw calls made
+     */
+    public int flush() {
+        sort();
+        
+        // The context's state is unknown (save/restore, other drawing), so the first use always sets it
+        int fill = -1;
+        int stroke = -1;
+        int font = -1;
+        int texture = -1;
+        int stateChanges = 0;
+        for (int k = 0; k < count; k++) {
+            int i = order[k];
+            int o = i * 8;
+            switch (ops[i]) {
+                case OP_FILL_RECT:
+                    if (paints[i] != fill) {
+                        target.setFill((Paint) resources[paints[i]]);
+                        fill = paints[i];
+                        stateChanges++;
+                    }
+                    target.fillRect(coords[o + 4], coords[o + 5], coords[o + 6], coords[o + 7]);
+                    break;
+                case OP_STROKE_RECT:
+                    if (paints[i] != stroke) {
+                        target.setStroke((Paint) resources[paints[i]]);
+                        stroke = paints[i];
+                        stateChanges++;
+                    }
+                    target.strokeRect(coords[o], coords[o + 1], coords[o + 2], coords[o + 3]);
+                    break;
+                case OP_TEXT:
+                    if (textures[i] >= 0 && textures[i] != font) {
+                        target.setFont((Font) resources[textures[i]]);
+                        font = textures[i];
+                        stateChanges++;
+                    }
+                    if (paints[i] != fill) {
+                        target.setFill((Paint) resources[paints[i]]);
+                        fill = paints[i];
+                        stateChanges++;
+                    }
+                    target.fillText(texts[i], coords[o], coords[o + 1]);
+                    texts[i] = null;
+                    break;
+                case OP_IMAGE:
+                    if (textures[i] != texture) {
+                        texture = textures[i]; // No context state, but a texture switch for the GPU
+                        stateChanges++;
+                    }
+                    target.drawImage((Image) resources[textures[i]], coords[o], coords[o + 1], coords[o + 2], coords[o + 3],
+                                     coords[o + 4], coords[o + 5], coords[o + 6], coords[o + 7]);
+                    break;
+            }
+        }
+        
+        lastCommandCount = count;
+        lastDrawCalls = count;
+        lastStateChanges = stateChanges;
+        count = 0;
+        maxBatch = 0;
+        if (stateCount > 0) {
+            Arrays.fill(stateKeys, 0);
+            stateCount = 0;
+        }
+        if (++frame == 0) {
+            // Stamps wrapped around: clear them so no cell looks drawn this frame
+            for (int[] frames : cellFrames) {
+                if (frames != null) {
+                    Arrays.fill(frames, 0);
+                }
+            }
+            frame = 1;
+        }
+        if (resourceCount > RESOURCE_RESET_COUNT) {
+            // Mostly stale by now (old colors, replaced images): start over rather than grow forever
+            valueIds.clear();
+            imageIds.clear();
+            Arrays.fill(resources, 0, resourceCount, null);
+            resourceCount = 0;
+        }
+        return lastDrawCalls;
+    }
+    
+    /**
+     * Put the command indices in playback order: by layer, batch, state, then call order
+     */
+    private void sort() {
+        int batchBits = bitsFor(maxBatch);
+        int stateBits = bitsFor(stateCount - 1);
+        int sequenceBits = bitsFor(count - 1);
+        if (LAYER_BITS + batchBits + stateBits + sequenceBits > KEY_BITS) {
+            sortLarge();
+            return;
+        }
+        
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) layers[i] << (batchBits + stateBits + sequenceBits)) |
+                      ((long) batches[i] << (stateBits + sequenceBits)) |
+                      ((long) states[i] << sequenceBits) | i;
+        }
+        Arrays.sort(keys, 0, count);
+        long sequenceMask = (1L << sequenceBits) - 1;
+        for (int k = 0; k < count; k++) {
+            order[k] = (int) (keys[k] & sequenceMask);
+        }
+    }
+    
+    /**
+     * Sort a frame too large for one packed key (millions of commands); allocates, but never runs in a normal frame
+     */
+    private void sortLarge() {
+        Integer[] sorted = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (a, b) -> {
+            int c = Integer.compare(layers[a], layers[b]);
+            c = c != 0 ? c : Integer.compare(batches[a], batches[b]);
+            c = c != 0 ? c : Integer.compare(states[a], states[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int k = 0; k < count; k++) {
+            order[k] = sorted[k];
+        }
+    }
+    
+    private static int bitsFor(int value) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(0, value));
+    }
+    
+    /**
+     * Get the number of commands waiting for flush()
+     * @return Recorded command count
+     */
+    public int getPendingCount() {
+        return count;
+    }
+    
+    /**
+     * Get the number of draw calls made by the last flush
+     * @return Draw call count
+     */
+    public int getDrawCallCount() {
+        return lastDrawCalls;
+    }
+    
+    /**
+     * Get the number of state changes (fill, stroke, font, texture) made by the last flush.
+     * Drawing in call order would change state about once per command whenever states alternate.
+     * @return State change count
+     */
+    public int getStateChangeCount() {
+        return lastStateChanges;
+    }
+    
+    @Override
+    public String toString() {
+        return "RenderCommandBuffer{" + lastCommandCount + " commands, " + lastDrawCalls + " draw calls, " +
+               lastStateChanges + " state changes}";
+    }
+}
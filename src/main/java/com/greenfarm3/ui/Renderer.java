@@ -1,5 +1,7 @@
 package com.greenfarm3.ui;
 
+import com.greenfarm3.assets.PalettedSprite;
+import com.greenfarm3.assets.SpriteBank;
 import com.greenfarm3.game.Sprite;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
@@ -9,17 +11,66 @@ import javafx.scene.text.Font;
 /**
  * Utility class for rendering operations.
  * Provides helper methods for common drawing operations.
+ *
+ * Drawing goes straight to the GraphicsContext unless a RenderCommandBuffer is
+ * set: then calls are recorded on the current layer and drawn, sorted to
+ * group colors, fonts and images, when flush() is called at the end of the frame.
  */
 public class Renderer {
     
+    /** Layer for the map and everything in the world */
+    public static final int LAYER_WORLD = 0;
+    /** Layer for the HUD and on-screen text */
+    public static final int LAYER_UI = 1;
+    /** Layer for menus drawn over the game */
+    public static final int LAYER_OVERLAY = 2;
+    
     private final GraphicsContext gc;
     private final int scale;
+    private RenderCommandBuffer buffer; // Null to draw immediately
+    private int layer = LAYER_WORLD;
+    private Font font; // Last font set by drawText, used by drawText without a font
     
     public Renderer(GraphicsContext gc, int scale) {
         this.gc = gc;
         this.scale = scale;
     }
     
+    /**
+     * Record drawing into a command buffer instead of drawing immediately
+     * @param buffer Buffer to record into, or null to draw immediately
+     */
+    public void setCommandBuffer(RenderCommandBuffer buffer) {
+        flush();
+        this.buffer = buffer;
+    }
+    
+    public RenderCommandBuffer getCommandBuffer() {
+        return buffer;
+    }
+    
+    /**
+     * Set the layer later calls are recorded on. Higher layers draw on top;
+     * without a command buffer calls draw in call order and the layer is ignored.
+     * @param layer Layer (e.g. LAYER_UI)
+     */
+    public void setLayer(int layer) {
+        this.layer = layer;
+    }
+    
+    public int getLayer() {
+        return layer;
+    }
+    
+    /**
+     * Draw everything recorded this frame and go back to LAYER_WORLD
+     * @return Number of draw calls made (0 without a command buffer)
+     */
+    public int flush() {
+        layer = LAYER_WORLD;
+        return buffer != null ? buffer.flush() : 0;
+    }
+    
     /**
      * Draw an image with scaling
      * @param image Image to draw
@@ -28,8 +79,7 @@ public class Renderer {
      */
     public void drawImage(Image image, int x, int y) {
         if (image != null) {
-            gc.drawImage(image, x * scale, y * scale, 
-                        image.getWidth() * scale, image.getHeight() * scale);
+            drawImage(image, x, y, (int) image.getWidth(), (int) image.getHeight());
         }
     }
     
@@ -42,7 +92,13 @@ public class Renderer {
      * @param height Height (in game coordinates)
      */
     public void drawImage(Image image, int x, int y, int width, int height) {
-        if (image != null) {
+        if (image == null) {
+            return;
+        }
+        if (buffer != null) {
+            buffer.drawImage(layer, image, 0, 0, image.getWidth(), image.getHeight(),
+                             x * scale, y * scale, width * scale, height * scale);
+        } else {
             gc.drawImage(image, x * scale, y * scale, 
                         width * scale, height * scale);
         }
@@ -57,6 +113,10 @@ public class Renderer {
      * @param color Fill color
      */
     public void fillRect(int x, int y, int width, int height, Color color) {
+        if (buffer != null) {
+            buffer.fillRect(layer, color, x * scale, y * scale, width * scale, height * scale);
+            return;
+        }
         gc.setFill(color);
         gc.fillRect(x * scale, y * scale, width * scale, height * scale);
     }
@@ -70,6 +130,10 @@ public class Renderer {
      * @param color Stroke color
      */
     public void strokeRect(int x, int y, int width, int height, Color color) {
+        if (buffer != null) {
+            buffer.strokeRect(layer, color, x * scale, y * scale, width * scale, height * scale);
+            return;
+        }
         gc.setStroke(color);
         gc.strokeRect(x * scale, y * scale, width * scale, height * scale);
     }
@@ -82,6 +146,10 @@ public class Renderer {
      * @param color Text color
      */
     public void drawText(String text, int x, int y, Color color) {
+        if (buffer != null) {
+            buffer.fillText(layer, font, color, text, x * scale, y * scale);
+            return;
+        }
         gc.setFill(color);
         gc.fillText(text, x * scale, y * scale);
     }
@@ -95,6 +163,11 @@ public class Renderer {
      * @param color Text color
      */
     public void drawText(String text, int x, int y, Font font, Color color) {
+        this.font = font;
+        if (buffer != null) {
+            buffer.fillText(layer, font, color, text, x * scale, y * scale);
+            return;
+        }
         gc.setFont(font);
         gc.setFill(color);
         gc.fillText(text, x * scale, y * scale);
@@ -106,7 +179,7 @@ public class Renderer {
      */
     public void drawSprite(Sprite sprite) {
         if (sprite != null && sprite.isValid()) {
-            drawImage(sprite.getImage(), sprite.getX(), sprite.getY());
+            drawSpriteImage(sprite, sprite.getX(), sprite.getY(), sprite.getWidth(), sprite.getHeight());
         }
     }
     
@@ -118,7 +191,7 @@ public class Renderer {
      */
     public void drawSprite(Sprite sprite, int x, int y) {
         if (sprite != null && sprite.isValid()) {
-            drawImage(sprite.getImage(), x, y);
+            drawSpriteImage(sprite, x, y, sprite.getWidth(), sprite.getHeight());
         }
     }
     
@@ -132,12 +205,66 @@ public class Renderer {
      */
     public void drawSprite(Sprite sprite, int x, int y, int width, int height) {
         if (sprite != null && sprite.isValid()) {
+            drawSpriteImage(sprite, x, y, width, height);
+        }
+    }
+    
+    /**
+     * Draw a whole sprite, from its atlas region if it has one (see TextureAtlas)
+     */
+    private void drawSpriteImage(Sprite sprite, int x, int y, int width, int height) {
+        Image atlas = sprite.getAtlasImage();
+        if (atlas != null) {
+            drawImageRegion(atlas, 
+                sprite.getAtlasX(), sprite.getAtlasY(), sprite.getWidth(), sprite.getHeight(),
+                x, y, width, height);
+        } else {
             drawImage(sprite.getImage(), x, y, width, height);
         }
     }
     
     /**
-     * Draw a portion of a sprite (for sprite sheets)
+     * Draw one section of a sprite bank, decoding it the first time it is drawn
+     * @param bank Sprite bank
+     * @param index Section index
+     * @param x X coordinate (in game coordinates)
+     * @param y Y coordinate (in game coordinates)
+     */
+    public void drawBankSprite(SpriteBank bank, int index, int x, int y) {
+        if (bank != null) {
+            drawImage(bank.getImage(index), x, y);
+        }
+    }
+    
+    /**
+     * Draw a paletted sprite with one of its built-in palettes
+     * @param sprite Paletted sprite
+     * @param palette Palette index (e.g. season or ripeness variant)
+     * @param x X coordinate (in game coordinates)
+     * @param y Y coordinate (in game coordinates)
+     */
+    public void drawPalettedSprite(PalettedSprite sprite, int palette, int x, int y) {
+        if (sprite != null) {
+            drawImage(sprite.getImage(palette), x, y);
+        }
+    }
+    
+    /**
+     * Draw a paletted sprite recolored with a custom palette (e.g. a shop highlight)
+     * @param sprite Paletted sprite
+     * @param palette ARGB colors (keep the same array between frames so the variant stays cached)
+     * @param x X coordinate (in game coordinates)
+     * @param y Y coordinate (in game coordinates)
+     */
+    public void drawPalettedSprite(PalettedSprite sprite, int[] palette, int x, int y) {
+        if (sprite != null) {
+            drawImage(sprite.getImage(palette), x, y);
+        }
+    }
+    
+    /**
+     * Draw a portion of a sprite (for sprite sheets).
+     * Sprites packed into a TextureAtlas are drawn from their atlas region.
      * @param sprite Sprite to draw from
      * @param srcX Source X in sprite
      * @param srcY Source Y in sprite
@@ -151,8 +278,26 @@ public class Renderer {
     public void drawSpriteRegion(Sprite sprite, int srcX, int srcY, int srcWidth, int srcHeight,
                                   int destX, int destY, int destWidth, int destHeight) {
         if (sprite != null && sprite.isValid()) {
-            Image img = sprite.getImage();
-            gc.drawImage(img, 
+            Image img = sprite.getAtlasImage();
+            if (img != null) {
+                srcX += sprite.getAtlasX();
+                srcY += sprite.getAtlasY();
+            } else {
+                img = sprite.getImage();
+            }
+            drawImageRegion(img, 
+                srcX, srcY, srcWidth, srcHeight,
+                destX, destY, destWidth, destHeight);
+        }
+    }
+    
+    private void drawImageRegion(Image image, int srcX, int srcY, int srcWidth, int srcHeight,
+                                 int destX, int destY, int destWidth, int destHeight) {
+        if (buffer != null) {
+            buffer.drawImage(layer, image, srcX, srcY, srcWidth, srcHeight,
+                             destX * scale, destY * scale, destWidth * scale, destHeight * scale);
+        } else {
+            gc.drawImage(image, 
                 srcX, srcY, srcWidth, srcHeight,
                 destX * scale, destY * scale, destWidth * scale, destHeight * scale);
         }
@@ -163,6 +308,10 @@ public class Renderer {
      * @param color Background color
      */
     public void clear(Color color) {
+        if (buffer != null) {
+            buffer.fillRect(layer, color, 0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
+            return;
+        }
         gc.setFill(color);
         gc.fillRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
     }
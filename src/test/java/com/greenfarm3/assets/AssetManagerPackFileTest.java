@@ -0,0 +1,56 @@
+package com.greenfarm3.assets;
+
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests that numbered pack files decode only through their sprite entries:
+ * a pack file without a sprite is not an image, never a dimension-guessed one.
+ */
+class AssetManagerPackFileTest {
+    
+    private static ByteBuffer read(String path) throws IOException {
+        try (InputStream is = AssetManagerPackFileTest.class.getResourceAsStream(path)) {
+            assertNotNull(is, path);
+            return ByteBuffer.wrap(is.readAllBytes()).asReadOnlyBuffer();
+        }
+    }
+    
+    @Test
+    void packFilesWithoutSpritesAreNotImages() throws IOException {
+        for (int number : new int[] {1, 4, 6, 9, 10}) {
+            String path = "/images/" + number;
+            ByteBuffer data = read(path);
+            J2MEResourceParser.PackTable table = J2MEResourceParser.parsePackTable(data);
+            assertNotNull(table, path + " is a pack file");
+            for (int entry = 0; entry < table.getEntryCount(); entry++) {
+                assertNull(J2MESpriteParser.decodeSection(J2MEResourceParser.readPackEntry(data, table, entry)),
+                    path + " entry " + entry);
+            }
+            
+            assertNull(AssetManager.getInstance().loadImage(path), path);
+        }
+    }
+    
+    @Test
+    void packFilesWithSpritesDecodeFromTheSpriteHeader() throws IOException {
+        int[][] sizes = {{2, 4, 7}, {5, 56, 28}, {11, 43, 28}};
+        for (int[] size : sizes) {
+            String path = "/images/" + size[0];
+            assertNotNull(J2MEResourceParser.parsePackTable(read(path)), path + " is a pack file");
+            
+            Image image = AssetManager.getInstance().loadImage(path);
+            assertNotNull(image, path);
+            assertEquals(size[1], (int) image.getWidth(), path);
+            assertEquals(size[2], (int) image.getHeight(), path);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.greenfarm3.assets;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests for AssetPackBuilder.decode: pack files are baked only from their
+ * sprite entries, never from pixels guessed out of their other entries.
+ */
+class AssetPackBuilderTest {
+    
+    private static byte[] read(String path) throws IOException {
+        try (InputStream is = AssetPackBuilderTest.class.getResourceAsStream(path)) {
+            assertNotNull(is, path);
+            return is.readAllBytes();
+        }
+    }
+    
+    /**
+     * Build a single pack file (all entries in the base file)
+     * @param entries Entry contents, each starting with its type byte
+     */
+    private static byte[] pack(byte[]... entries) {
+        int tableStart = 4 + 2;
+        int length = tableStart + 4 * (entries.length + 1);
+        for (byte[] entry : entries) {
+            length += entry.length;
+        }
+        
+        ByteBuffer out = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        out.putShort((short) entries.length);
+        out.putShort((short) 1);
+        out.putShort((short) 0);
+        int offset = tableStart + 4 * (entries.length + 1);
+        for (byte[] entry : entries) {
+            out.putInt(offset);
+            offset += entry.length;
+        }
+        out.putInt(offset);
+        for (byte[] entry : entries) {
+            out.put(entry);
+        }
+        return out.array();
+    }
+    
+    /** An entry of the given type followed by bytes that look like RGB pixels */
+    private static byte[] entry(int type, int length) {
+        byte[] data = new byte[length];
+        data[0] = (byte) type;
+        for (int i = 1; i < length; i++) {
+            data[i] = (byte) (i * 37);
+        }
+        return data;
+    }
+    
+    @Test
+    void leavesOutPackFilesWhoseEntriesAreNotSprites() {
+        byte[] data = pack(entry(SpriteBank.ENTRY_SPRITE, 3 * 16 * 16 + 1), entry(5, 3 * 20 * 20 + 1));
+        assertNotNull(J2MEResourceParser.parsePackTable(ByteBuffer.wrap(data)));
+        assertNull(AssetPackBuilder.decode(data));
+    }
+    
+    @Test
+    void leavesOutShippedPackFilesWithoutSprites() throws IOException {
+        for (int number : new int[] {1, 3, 4, 6, 9, 10}) {
+            assertNull(AssetPackBuilder.decode(read("/images/" + number)), "/images/" + number);
+        }
+    }
+    
+    @Test
+    void bakesShippedPackFilesFromTheirSprites() throws IOException {
+        int[][] sizes = {{2, 4, 7}, {5, 56, 28}, {11, 43, 28}};
+        for (int[] size : sizes) {
+            RGBImageParser.RGBImageData image = AssetPackBuilder.decode(read("/images/" + size[0]));
+            assertNotNull(image, "/images/" + size[0]);
+            assertEquals(size[1], image.width);
+            assertEquals(size[2], image.height);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.greenfarm3.assets;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for EmbeddedImageIndex.scan: exact bounds, every byte lane and the
+ * sub-word tail, back-to-back images, truncated images and stray signature bytes.
+ */
+class EmbeddedImageIndexTest {
+    
+    // ===== Minimal well-formed images =====
+    
+    /** Signature, IHDR and IEND (CRCs are not checked by the scanner) */
+    private static byte[] png() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        writeChunk(out, "IHDR", new byte[] {0, 0, 0, 1, 0, 0, 0, 1, 8, 6, 0, 0, 0});
+        writeChunk(out, "IDAT", new byte[] {0x78, (byte) 0x9C, 0x63, 0, 0, 0, 2, 0, 1});
+        writeChunk(out, "IEND", new byte[0]);
+        return out.toByteArray();
+    }
+    
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data) {
+        writeIntBE(out, data.length);
+        out.writeBytes(type.getBytes());
+        out.writeBytes(data);
+        writeIntBE(out, 0);
+    }
+    
+    /** SOI, APP0, SOS with entropy-coded data (a stuffed FF 00 and a restart marker), EOI */
+    private static byte[] jpeg() {
+        return new byte[] {
+            (byte) 0xFF, (byte) 0xD8,
+            (byte) 0xFF, (byte) 0xE0, 0, 6, 'J', 'F', 'I', 'F',
+            (byte) 0xFF, (byte) 0xDA, 0, 4, 1, 2,
+            0x11, (byte) 0xFF, 0x00, 0x22, (byte) 0xFF, (byte) 0xD0, 0x33,
+            (byte) 0xFF, (byte) 0xD9
+        };
+    }
+    
+    /** Header without color table, one image descriptor with one data sub-block, trailer */
+    private static byte[] gif() {
+        return new byte[] {
+            'G', 'I', 'F', '8', '9', 'a', 1, 0, 1, 0, 0, 0, 0,
+            0x2C, 0, 0, 0, 0, 1, 0, 1, 0, 0,
+            2, 2, 0x44, 0x01, 0,
+            0x3B
+        };
+    }
+    
+    /** File header and BITMAPINFOHEADER for a 1x1 24-bit image */
+    private static byte[] bmp() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('B');
+        out.write('M');
+        writeIntLE(out, 58);
+        writeIntLE(out, 0);
+        writeIntLE(out, 54);
+        writeIntLE(out, 40);
+        writeIntLE(out, 1);
+        writeIntLE(out, 1);
+        out.writeBytes(new byte[] {1, 0, 24, 0});
+        out.writeBytes(new byte[24]);
+        out.writeBytes(new byte[] {0, 0, (byte) 0xFF, 0});
+        return out.toByteArray();
+    }
+    
+    private static void writeIntBE(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+    
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+    
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+    
+    private static byte[] filler(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (0x20 + i % 0x40); // ASCII, with stray B and G bytes but no image
+        }
+        return data;
+    }
+    
+    private static void assertEntry(EmbeddedImageIndex.Entry entry, String format, int offset, int length) {
+        assertEquals(format, entry.format);
+        assertEquals(offset, entry.offset);
+        assertEquals(length, entry.getLength());
+    }
+    
+    // ===== Offsets =====
+    
+    @Test
+    void findsEachFormatInEveryByteLane() {
+        byte[][] images = {png(), jpeg(), gif(), bmp()};
+        String[] formats = {"PNG", "JPEG", "GIF", "BMP"};
+        for (int f = 0; f < images.length; f++) {
+            for (int offset = 0; offset < 16; offset++) {
+                byte[] data = concat(filler(offset), images[f], filler(16));
+                EmbeddedImageIndex index = EmbeddedImageIndex.scan(data);
+                assertEquals(1, index.size(), formats[f] + " at " + offset);
+                assertEntry(index.get(0), formats[f], offset, images[f].length);
+            }
+        }
+    }
+    
+    @Test
+    void findsImagesInTheTailShorterThanAWord() {
+        byte[][] images = {png(), jpeg(), gif(), bmp()};
+        String[] formats = {"PNG", "JPEG", "GIF", "BMP"};
+        for (int f = 0; f < images.length; f++) {
+            // The image ends the file, so its start lies past the last full word for small images
+            // and in every lane of the final words for the larger ones
+            for (int offset = 1; offset < 12; offset++) {
+                byte[] data = concat(filler(offset), images[f]);
+                EmbeddedImageIndex index = EmbeddedImageIndex.scan(data);
+                assertEquals(1, index.size(), formats[f] + " at " + offset);
+                assertEntry(index.get(0), formats[f], offset, images[f].length);
+                assertEquals(data.length, index.get(0).end);
+            }
+        }
+        
+        // Smallest JPEG starting within the last seven bytes
+        byte[] tiny = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9};
+        for (int length = 8; length < 24; length++) {
+            byte[] data = concat(filler(length - tiny.length), tiny);
+            EmbeddedImageIndex index = EmbeddedImageIndex.scan(data);
+            assertEquals(1, index.size(), "file length " + length);
+            assertEntry(index.get(0), "JPEG", length - tiny.length, tiny.length);
+        }
+    }
+    
+    // ===== Several images =====
+    
+    @Test
+    void findsBackToBackImagesWithExactBounds() {
+        byte[] png = png();
+        byte[] jpeg = jpeg();
+        byte[] gif = gif();
+        byte[] bmp = bmp();
+        byte[] data = concat(png, jpeg, gif, bmp, jpeg);
+        
+        EmbeddedImageIndex index = EmbeddedImageIndex.scan(data);
+        assertEquals(5, index.size());
+        int offset = 0;
+        assertEntry(index.get(0), "PNG", offset, png.length);
+        offset += png.length;
+        assertEntry(index.get(1), "JPEG", offset, jpeg.length);
+        offset += jpeg.length;
+        assertEntry(index.get(2), "GIF", offset, gif.length);
+        offset += gif.length;
+        assertEntry(index.get(3), "BMP", offset, bmp.length);
+        offset += bmp.length;
+        assertEntry(index.get(4), "JPEG", offset, jpeg.length);
+        assertEquals(data.length, index.getScannedLength());
+        
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(i, index.indexOfOffset(index.get(i).offset));
+        }
+        assertEquals(-1, index.indexOfOffset(1));
+        assertEquals(-1, index.indexOfOffset(data.length));
+    }
+    
+    @Test
+    void doesNotReportAnImageInsideAnother() {
+        // A JPEG thumbnail inside a PNG chunk belongs to the PNG
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        writeChunk(out, "IHDR", new byte[13]);
+        writeChunk(out, "tEXt", jpeg());
+        writeChunk(out, "IEND", new byte[0]);
+        byte[] png = out.toByteArray();
+        
+        EmbeddedImageIndex index = EmbeddedImageIndex.scan(concat(filler(3), png));
+        assertEquals(1, index.size());
+        assertEntry(index.get(0), "PNG", 3, png.length);
+    }
+    
+    // ===== Rejected candidates =====
+    
+    @Test
+    void rejectsTruncatedImages() {
+        byte[][] images = {png(), jpeg(), gif(), bmp()};
+        for (byte[] image : images) {
+            for (int cut = 1; cut < image.length; cut++) {
+                byte[] data = concat(filler(5), Arrays.copyOf(image, image.length - cut));
+                assertSame(EmbeddedImageIndex.EMPTY, EmbeddedImageIndex.scan(data),
+                    new String(image, 0, 1) + " cut by " + cut);
+            }
+        }
+    }
+    
+    @Test
+    void keepsScanningAfterATruncatedCandidate() {
+        byte[] png = png();
+        byte[] truncated = Arrays.copyOf(png, png.length - 12); // No IEND
+        byte[] gif = gif();
+        byte[] data = concat(truncated, filler(2), gif);
+        
+        EmbeddedImageIndex index = EmbeddedImageIndex.scan(data);
+        assertEquals(1, index.size());
+        assertEntry(index.get(0), "GIF", truncated.length + 2, gif.length);
+    }
+    
+    @Test
+    void ignoresStraySignatureBytes() {
+        byte[] text = "BIG GIFT BOX: Bring Macros, GIF87 Bytes, BMP ".getBytes();
+        byte[] noise = {
+            (byte) 0x89, 'P', 'N', 'G', 0, 0, 0, 0,           // PNG signature cut short
+            (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00, 0x00, // JPEG start with a zero marker
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+            'B', 'M', 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, // BMP with an unknown header
+            'G', 'I', 'F', '8', '9', 'a', 0, 0, 0, 0, 0, 0, 0, 0x7F      // GIF with an unknown block
+        };
+        assertSame(EmbeddedImageIndex.EMPTY, EmbeddedImageIndex.scan(concat(text, noise, text)));
+        
+        // A PNG signature followed by something other than IHDR
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        writeChunk(out, "IDAT", new byte[4]);
+        writeChunk(out, "IEND", new byte[0]);
+        assertSame(EmbeddedImageIndex.EMPTY, EmbeddedImageIndex.scan(out.toByteArray()));
+        
+        // Stray bytes around a real image do not disturb its bounds
+        byte[] jpeg = jpeg();
+        EmbeddedImageIndex index = EmbeddedImageIndex.scan(concat(noise, jpeg, noise));
+        assertEquals(1, index.size());
+        assertEntry(index.get(0), "JPEG", noise.length, jpeg.length);
+    }
+    
+    @Test
+    void handlesEmptyAndShortInput() {
+        assertSame(EmbeddedImageIndex.EMPTY, EmbeddedImageIndex.scan(null));
+        assertSame(EmbeddedImageIndex.EMPTY, EmbeddedImageIndex.scan(new byte[0]));
+        assertSame(EmbeddedImageIndex.EMPTY, EmbeddedImageIndex.scan(new byte[] {(byte) 0xFF, (byte) 0xD8}));
+        assertNull(EmbeddedImageIndex.EMPTY.get(0));
+    }
+}
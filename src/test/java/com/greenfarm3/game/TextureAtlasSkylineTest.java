@@ -0,0 +1,119 @@
+package com.greenfarm3.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the skyline packer behind TextureAtlas pages: every placed cell
+ * stays inside the page and no two cells overlap.
+ */
+class TextureAtlasSkylineTest {
+    
+    /**
+     * Place cells until the page is full, checking each one
+     * @return Placed cells, each {x, y, width, height}
+     */
+    private static List<int[]> fill(TextureAtlas.Skyline skyline, Random random, int maxSide) {
+        List<int[]> placed = new ArrayList<>();
+        int misses = 0;
+        while (misses < 50) {
+            int width = 1 + random.nextInt(maxSide);
+            int height = 1 + random.nextInt(maxSide);
+            int[] position = skyline.place(width, height);
+            if (position == null) {
+                misses++;
+                continue;
+            }
+            int[] cell = {position[0], position[1], width, height};
+            assertInBounds(cell, skyline.size);
+            for (int[] other : placed) {
+                assertFalse(overlaps(cell, other), describe(cell) + " overlaps " + describe(other));
+            }
+            placed.add(cell);
+            assertSkylineValid(skyline);
+        }
+        return placed;
+    }
+    
+    private static void assertInBounds(int[] cell, int size) {
+        assertTrue(cell[0] >= 0 && cell[1] >= 0 && cell[0] + cell[2] <= size && cell[1] + cell[3] <= size,
+            describe(cell) + " outside " + size + "x" + size);
+    }
+    
+    private static boolean overlaps(int[] a, int[] b) {
+        return a[0] < b[0] + b[2] && b[0] < a[0] + a[2] && a[1] < b[1] + b[3] && b[1] < a[1] + a[3];
+    }
+    
+    /**
+     * Segments must cover [0, size) left to right without gaps, and neighbours differ in height
+     */
+    private static void assertSkylineValid(TextureAtlas.Skyline skyline) {
+        int x = 0;
+        int previousY = -1;
+        for (int[] segment : skyline.segments) {
+            assertEquals(x, segment[0]);
+            assertTrue(segment[2] > 0);
+            assertTrue(segment[1] >= 0 && segment[1] <= skyline.size);
+            assertTrue(segment[1] != previousY, "unmerged neighbours at x=" + x);
+            previousY = segment[1];
+            x += segment[2];
+        }
+        assertEquals(skyline.size, x);
+    }
+    
+    private static String describe(int[] cell) {
+        return "[" + cell[0] + "," + cell[1] + " " + cell[2] + "x" + cell[3] + "]";
+    }
+    
+    @Test
+    void placesCellsBottomLeftFirst() {
+        TextureAtlas.Skyline skyline = new TextureAtlas.Skyline(64);
+        assertArrayEquals(new int[] {0, 0}, skyline.place(20, 10));
+        assertArrayEquals(new int[] {20, 0}, skyline.place(30, 20));
+        assertArrayEquals(new int[] {50, 0}, skyline.place(14, 5));
+        // Lowest spot is now on top of the first cell
+        assertArrayEquals(new int[] {50, 5}, skyline.place(10, 10));
+        assertArrayEquals(new int[] {0, 10}, skyline.place(20, 10));
+        assertSkylineValid(skyline);
+    }
+    
+    @Test
+    void rejectsCellsThatDoNotFit() {
+        TextureAtlas.Skyline skyline = new TextureAtlas.Skyline(32);
+        assertNull(skyline.place(33, 1));
+        assertNull(skyline.place(1, 33));
+        assertArrayEquals(new int[] {0, 0}, skyline.place(32, 32));
+        assertNull(skyline.place(1, 1));
+    }
+    
+    @Test
+    void neverOverlapsOrLeavesThePage() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            TextureAtlas.Skyline skyline = new TextureAtlas.Skyline(256);
+            List<int[]> placed = fill(skyline, random, 1 + random.nextInt(64));
+            assertFalse(placed.isEmpty());
+        }
+    }
+    
+    @Test
+    void fillsMostOfThePageWithEqualCells() {
+        TextureAtlas.Skyline skyline = new TextureAtlas.Skyline(128);
+        int count = 0;
+        while (skyline.place(18, 18) != null) {
+            count++;
+        }
+        assertEquals((128 / 18) * (128 / 18), count);
+        assertNotNull(skyline.place(128 - 7 * 18, 18)); // The strip left at the right edge still takes a cell
+    }
+}
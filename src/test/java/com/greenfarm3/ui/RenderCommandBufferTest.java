@@ -0,0 +1,317 @@
+package com.greenfarm3.ui;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for RenderCommandBuffer playback: fewer state changes than drawing in
+ * call order, layers in order, overlapping commands in call order, and nothing
+ * drawn before flush().
+ */
+class RenderCommandBufferTest {
+    
+    /**
+     * One recorded command or one played-back draw call
+     */
+    private static class Call {
+        final int layer;
+        final String op;
+        final Paint paint;
+        final String text;
+        final double x;
+        final double y;
+        final double width;
+        final double height;
+        
+        Call(int layer, String op, Paint paint, String text, double x, double y, double width, double height) {
+            this.layer = layer;
+            this.op = op;
+            this.paint = paint;
+            this.text = text;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+        
+        boolean sameDraw(Call other) {
+            return op.equals(other.op) && paint.equals(other.paint) && x == other.x && y == other.y &&
+                   width == other.width && height == other.height &&
+                   (text == null ? other.text == null : text.equals(other.text));
+        }
+        
+        /** Pixels the call may touch (a stroke reaches past its rectangle, text is given generous bounds) */
+        boolean overlaps(Call other) {
+            return left() < other.right() && other.left() < right() && top() < other.bottom() && other.top() < bottom();
+        }
+        
+        private double left() {
+            return op.equals("stroke") ? x - 1 : x;
+        }
+        
+        private double right() {
+            return op.equals("stroke") ? x + width + 1 : op.equals("text") ? x + text.length() * 12 : x + width;
+        }
+        
+        private double top() {
+            return op.equals("stroke") ? y - 1 : op.equals("text") ? y - 12 : y;
+        }
+        
+        private double bottom() {
+            return op.equals("stroke") ? y + height + 1 : op.equals("text") ? y + 6 : y + height;
+        }
+        
+        @Override
+        public String toString() {
+            return op + " " + paint + " " + x + "," + y + " " + width + "x" + height;
+        }
+    }
+    
+    /**
+     * Target that keeps the draw calls it receives, with the paint in effect for each
+     */
+    private static class RecordingTarget implements RenderCommandBuffer.Target {
+        final List<Call> draws = new ArrayList<>();
+        Paint fill;
+        Paint stroke;
+        
+        @Override
+        public void setFill(Paint paint) {
+            fill = paint;
+        }
+        
+        @Override
+        public void setStroke(Paint paint) {
+            stroke = paint;
+        }
+        
+        @Override
+        public void setFont(Font font) {
+        }
+        
+        @Override
+        public void fillRect(double x, double y, double width, double height) {
+            draws.add(new Call(-1, "fill", fill, null, x, y, width, height));
+        }
+        
+        @Override
+        public void strokeRect(double x, double y, double width, double height) {
+            draws.add(new Call(-1, "stroke", stroke, null, x, y, width, height));
+        }
+        
+        @Override
+        public void fillText(String text, double x, double y) {
+            draws.add(new Call(-1, "text", fill, text, x, y, 0, 0));
+        }
+        
+        @Override
+        public void drawImage(Image image, double srcX, double srcY, double srcWidth, double srcHeight,
+                              double x, double y, double width, double height) {
+            draws.add(new Call(-1, "image", null, null, x, y, width, height));
+        }
+    }
+    
+    /**
+     * Buffer plus the commands recorded into it, in call order
+     */
+    private static class Scene {
+        final RecordingTarget target = new RecordingTarget();
+        final RenderCommandBuffer buffer = new RenderCommandBuffer(target);
+        final List<Call> calls = new ArrayList<>();
+        
+        void fillRect(int layer, Paint paint, double x, double y, double width, double height) {
+            buffer.fillRect(layer, paint, x, y, width, height);
+            calls.add(new Call(layer, "fill", paint, null, x, y, width, height));
+        }
+        
+        void strokeRect(int layer, Paint paint, double x, double y, double width, double height) {
+            buffer.strokeRect(layer, paint, x, y, width, height);
+            calls.add(new Call(layer, "stroke", paint, null, x, y, width, height));
+        }
+        
+        void fillText(int layer, Paint paint, String text, double x, double y) {
+            buffer.fillText(layer, null, paint, text, x, y);
+            calls.add(new Call(layer, "text", paint, text, x, y, 0, 0));
+        }
+        
+        /**
+         * Flush and match every draw call to the command it came from
+         * @return For each position in playback order, the index of the command in call order
+         */
+        int[] flush() {
+            target.draws.clear();
+            buffer.flush();
+            assertEquals(calls.size(), target.draws.size());
+            int[] played = new int[calls.size()];
+            boolean[] used = new boolean[calls.size()];
+            for (int k = 0; k < played.length; k++) {
+                Call draw = target.draws.get(k);
+                played[k] = -1;
+                for (int i = 0; i < calls.size() && played[k] < 0; i++) {
+                    if (!used[i] && calls.get(i).sameDraw(draw)) {
+                        played[k] = i;
+                        used[i] = true;
+                    }
+                }
+                assertTrue(played[k] >= 0, "Unexpected draw " + draw);
+            }
+            return played;
+        }
+        
+        /**
+         * Number of state changes drawing in call order would make
+         */
+        int inOrderStateChanges() {
+            Paint fill = null;
+            Paint stroke = null;
+            int changes = 0;
+            for (Call call : calls) {
+                if (call.op.equals("stroke")) {
+                    if (!call.paint.equals(stroke)) {
+                        stroke = call.paint;
+                        changes++;
+                    }
+                } else if (!call.paint.equals(fill)) {
+                    fill = call.paint;
+                    changes++;
+                }
+            }
+            return changes;
+        }
+        
+        /**
+         * Check that layers play in order and overlapping commands of a layer keep their call order
+         */
+        void assertSameResult(int[] played) {
+            int[] position = new int[played.length];
+            for (int k = 0; k < played.length; k++) {
+                position[played[k]] = k;
+                if (k > 0) {
+                    assertTrue(calls.get(played[k - 1]).layer <= calls.get(played[k]).layer,
+                        "Layer " + calls.get(played[k - 1]).layer + " played after " + calls.get(played[k]).layer);
+                }
+            }
+            for (int i = 0; i < calls.size(); i++) {
+                for (int j = i + 1; j < calls.size(); j++) {
+                    Call a = calls.get(i);
+                    Call b = calls.get(j);
+                    if (a.layer == b.layer && a.overlaps(b)) {
+                        assertTrue(position[i] < position[j], a + " (call " + i + ") played after " + b + " (call " + j + ")");
+                    }
+                }
+            }
+        }
+    }
+    
+    // ===== Batching =====
+    
+    @Test
+    void batchesPanelsWithFewerStateChanges() {
+        Scene scene = new Scene();
+        Color shade = new Color(0, 0, 0, 0.5);
+        scene.fillRect(0, Color.GREEN, 0, 0, 480, 640);
+        for (int i = 0; i < 3; i++) {
+            int y = 10 + i * 60;
+            scene.fillRect(1, shade, 350, y, 120, 50);
+            scene.strokeRect(1, Color.WHITE, 350, y, 120, 50);
+            scene.fillText(1, Color.WHITE, "Panel", 355, y + 20);
+        }
+        scene.fillRect(2, Color.RED, 0, 0, 10, 10);
+        scene.fillRect(2, Color.RED, 100, 100, 10, 10);
+        
+        int[] played = scene.flush();
+        scene.assertSameResult(played);
+        assertEquals(12, scene.buffer.getDrawCallCount());
+        assertEquals(9, scene.inOrderStateChanges());
+        assertEquals(5, scene.buffer.getStateChangeCount());
+    }
+    
+    @Test
+    void batchesAdjacentItemsThatDoNotTouch() {
+        Scene scene = new Scene();
+        for (int i = 0; i < 100; i++) {
+            scene.fillRect(0, i % 2 == 0 ? Color.RED : Color.BLUE, i * 4, 0, 4, 4);
+        }
+        
+        int[] played = scene.flush();
+        scene.assertSameResult(played);
+        assertEquals(100, scene.inOrderStateChanges());
+        assertEquals(2, scene.buffer.getStateChangeCount());
+    }
+    
+    // ===== Draw order =====
+    
+    @Test
+    void keepsOverlappingCommandsInCallOrder() {
+        Random random = new Random(42);
+        Color[] colors = {Color.RED, Color.GREEN, Color.BLUE, Color.WHITE};
+        Scene scene = new Scene();
+        // Several frames through one buffer, in a small area so that cells overflow their entry lists
+        for (int frame = 0; frame < 5; frame++) {
+            scene.calls.clear();
+            for (int i = 0; i < 400; i++) {
+                int layer = random.nextInt(3);
+                Color color = colors[random.nextInt(colors.length)];
+                double x = random.nextInt(120) + i / 1024.0; // Fraction keeps every draw distinguishable
+                double y = random.nextInt(120);
+                double width = 1 + random.nextInt(40);
+                double height = 1 + random.nextInt(40);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        scene.strokeRect(layer, color, x, y, width, height);
+                        break;
+                    case 1:
+                        scene.fillText(layer, color, "ab", x, y);
+                        break;
+                    default:
+                        scene.fillRect(layer, color, x, y, width, height);
+                        break;
+                }
+            }
+            scene.assertSameResult(scene.flush());
+            assertTrue(scene.buffer.getStateChangeCount() < scene.inOrderStateChanges());
+        }
+    }
+    
+    @Test
+    void keepsOrderOutsideTheGrid() {
+        Scene scene = new Scene();
+        // Far outside the grid, everything clamps to the edge cells
+        scene.fillRect(0, Color.RED, 5000, 5000, 10, 10);
+        scene.fillRect(0, Color.BLUE, 5005, 5005, 10, 10);
+        scene.fillRect(0, Color.RED, -300, -300, 10, 10);
+        scene.fillRect(0, Color.BLUE, 5100, 5100, 10, 10);
+        scene.fillRect(0, Color.RED, 5008, 5008, 10, 10);
+        
+        int[] played = scene.flush();
+        scene.assertSameResult(played);
+        assertEquals(4, played[played.length - 1]);
+    }
+    
+    // ===== Flushing =====
+    
+    @Test
+    void drawsNothingBeforeFlush() {
+        Scene scene = new Scene();
+        for (int i = 0; i < 5000; i++) {
+            scene.buffer.fillRect(i % (RenderCommandBuffer.MAX_LAYER + 1), Color.rgb(i % 256, i / 256, 7), i % 400, i % 300, 2, 2);
+        }
+        assertEquals(5000, scene.buffer.getPendingCount());
+        assertTrue(scene.target.draws.isEmpty());
+        
+        scene.buffer.flush();
+        assertEquals(0, scene.buffer.getPendingCount());
+        assertEquals(5000, scene.buffer.getDrawCallCount());
+        assertEquals(5000, scene.target.draws.size());
+    }
+}